@@ -0,0 +1,286 @@
+package lib.Forge.NetworkTableUtils.Processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@code <Subsystem>_NetworkPublishers} class for every class with
+ * {@code @AutoNetworkPublisher} methods.
+ * <p>
+ * The generated class resolves one NTPublisher handle per method and registers a lambda that
+ * calls the method directly, so publishing needs neither {@code Method.invoke} nor boxing. Types
+ * are referenced by name only, this processor does not depend on WPILib nor on the robot code.
+ * <p>
+ * The supported return types are the ones {@code NetworkSubsystem} publishes reflectively, so a
+ * method publishes the same with and without the generated class.
+ */
+@SupportedAnnotationTypes(NetworkPublisherProcessor.kAnnotation)
+public class NetworkPublisherProcessor extends AbstractProcessor {
+
+    static final String kAnnotation = "lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.AutoNetworkPublisher";
+
+    private static final String kPriority = "lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.TelemetryPriority";
+    private static final String kPublisher = "lib.Forge.NetworkTableUtils.NetworkMultipleData.NTPublisher";
+    private static final String kGenerated = "lib.Forge.NetworkTableUtils.NetworkSubsystem.GeneratedNetworkPublishers";
+    private static final String kSubsystem = "lib.Forge.NetworkTableUtils.NetworkSubsystem.NetworkSubsystem";
+    private static final String kSuffix = "_NetworkPublishers";
+
+    private static final String kGeometry = "edu.wpi.first.math.geometry.";
+    private static final String kKinematics = "edu.wpi.first.math.kinematics.";
+
+    // The struct types NetworkSubsystem.registerAnnotatedPublishers handles, keep both in sync
+    private static final Set<String> kStructs = Set.of(
+        kGeometry + "Pose2d", kGeometry + "Pose3d",
+        kGeometry + "Rotation2d", kGeometry + "Rotation3d",
+        kGeometry + "Translation2d", kGeometry + "Translation3d",
+        kKinematics + "ChassisSpeeds");
+
+    private static final Set<String> kStructArrays = Set.of(
+        kGeometry + "Pose2d", kGeometry + "Pose3d",
+        kGeometry + "Rotation2d",
+        kGeometry + "Translation2d", kGeometry + "Translation3d",
+        kKinematics + "SwerveModuleState", kKinematics + "SwerveModulePosition");
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+        Map<TypeElement, List<ExecutableElement>> methodsByClass = new LinkedHashMap<>();
+
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.METHOD) continue;
+
+                TypeElement owner = (TypeElement) element.getEnclosingElement();
+                methodsByClass.computeIfAbsent(owner, k -> new ArrayList<>()).add((ExecutableElement) element);
+            }
+        }
+
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : methodsByClass.entrySet()) {
+            if (!isSubsystem(entry.getKey())) {
+                for (ExecutableElement method : entry.getValue()) {
+                    processingEnv.getMessager().printMessage(
+                        Diagnostic.Kind.ERROR, "[AutoNetworkPublisher] " + method.getSimpleName() + " must be declared in a NetworkSubsystem", method);
+                }
+
+                continue;
+            }
+
+            try {
+                generate(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR, "[AutoNetworkPublisher] Could not generate publishers: " + e.getMessage(), entry.getKey());
+            }
+        }
+
+        return true;
+    }
+
+    private void generate(TypeElement owner, List<ExecutableElement> methods) throws IOException {
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(owner).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(owner).toString();
+        String flatName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_');
+        String generatedName = flatName + kSuffix;
+        String ownerName = owner.getQualifiedName().toString();
+
+        StringBuilder body = new StringBuilder();
+
+        for (ExecutableElement method : methods) {
+            String publisher = createPublisher(method);
+
+            if (publisher != null) {
+                body.append(publisher);
+            }
+        }
+
+        Writer writer = processingEnv.getFiler()
+            .createSourceFile(packageName.isEmpty() ? generatedName : packageName + "." + generatedName, owner)
+            .openWriter();
+
+        try (writer) {
+            if (!packageName.isEmpty()) {
+                writer.write("package " + packageName + ";\n\n");
+            }
+
+            writer.write("/**\n * Generated from the @AutoNetworkPublisher methods of {@link " + ownerName + "}, do not edit.\n */\n");
+            writer.write("public final class " + generatedName + " implements " + kGenerated + "<" + ownerName + "> {\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public void register(" + ownerName + " subsystem, " + kGenerated + ".Registrar registrar) {\n");
+            writer.write("        String table = subsystem.getTableKey();\n");
+            writer.write(body.toString());
+            writer.write("    }\n}\n");
+        }
+    }
+
+    /**
+     * @return The source registering the publisher of the method, or null if it cannot be published.
+     */
+    private String createPublisher(ExecutableElement method) {
+
+        String name = method.getSimpleName().toString();
+
+        if (method.getModifiers().contains(Modifier.PRIVATE) || method.getModifiers().contains(Modifier.STATIC)) {
+            processingEnv.getMessager().printMessage(
+                Diagnostic.Kind.ERROR, "[AutoNetworkPublisher] " + name + " must be a non private instance method", method);
+            return null;
+        }
+
+        if (!method.getParameters().isEmpty()) {
+            processingEnv.getMessager().printMessage(
+                Diagnostic.Kind.ERROR, "[AutoNetworkPublisher] " + name + " must not take parameters", method);
+            return null;
+        }
+
+        AnnotationMirror annotation = findAnnotation(method);
+        String key = "";
+        String rateHz = "0.0";
+        String priority = "HIGH";
+
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value :
+                processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+
+            String attribute = value.getKey().getSimpleName().toString();
+            Object attributeValue = value.getValue().getValue();
+
+            if (attribute.equals("key")) {
+                key = (String) attributeValue;
+            } else if (attribute.equals("rateHz")) {
+                rateHz = Double.toString(((Number) attributeValue).doubleValue());
+            } else if (attribute.equals("priority")) {
+                priority = ((VariableElement) attributeValue).getSimpleName().toString();
+            }
+        }
+
+        String handle = createHandle(method.getReturnType(), "\"" + escape(key) + "\"");
+
+        if (handle == null) {
+            processingEnv.getMessager().printMessage(
+                Diagnostic.Kind.WARNING, "[AutoNetworkPublisher] Not Supported Data type! " + method.getReturnType(), method);
+            return null;
+        }
+
+        TypeMirror returnType = method.getReturnType();
+        String publish;
+
+        // Unboxing a null would throw on the telemetry thread, skipped like the reflective publishers do
+        if (isType(returnType, "java.lang.Double") || isType(returnType, "java.lang.Boolean")) {
+            publish = "() -> {\n"
+                + "                var value = subsystem." + name + "();\n"
+                + "                if (value != null) handle.publishAsync(value);\n"
+                + "            }";
+        } else {
+            publish = "() -> handle.publishAsync(subsystem." + name + "())";
+        }
+
+        return "        {\n"
+            + "            var handle = " + handle + ";\n"
+            + "            registrar.register(" + publish + ", " + rateHz + ", " + kPriority + "." + priority + ");\n"
+            + "        }\n";
+    }
+
+    /**
+     * @return The expression resolving the handle for the type, or null if it is not supported.
+     */
+    private String createHandle(TypeMirror type, String key) {
+
+        switch (type.getKind()) {
+            case DOUBLE:
+                return kPublisher + ".doubleHandle(table, " + key + ")";
+            case BOOLEAN:
+                return kPublisher + ".booleanHandle(table, " + key + ")";
+            case ARRAY:
+                TypeMirror component = ((ArrayType) type).getComponentType();
+
+                if (component.getKind() == TypeKind.DOUBLE) return kPublisher + ".doubleArrayHandle(table, " + key + ")";
+                if (component.getKind() == TypeKind.BOOLEAN) return kPublisher + ".booleanArrayHandle(table, " + key + ")";
+                if (isType(component, "java.lang.String")) return kPublisher + ".stringArrayHandle(table, " + key + ")";
+                if (isStruct(component, kStructArrays)) return kPublisher + ".arrayHandle(table, " + key + ", " + erasure(component) + ".struct)";
+
+                return null;
+            case DECLARED:
+                if (isType(type, "java.lang.Double")) return kPublisher + ".doubleHandle(table, " + key + ")";
+                if (isType(type, "java.lang.Boolean")) return kPublisher + ".booleanHandle(table, " + key + ")";
+                if (isType(type, "java.lang.String")) return kPublisher + ".stringHandle(table, " + key + ")";
+                if (isStruct(type, kStructs)) return kPublisher + ".handle(table, " + key + ", " + erasure(type) + ".struct)";
+
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Checks if the type is one of the given WPILib types published with their {@code struct}.
+     */
+    private boolean isStruct(TypeMirror type, Set<String> structs) {
+        return type.getKind() == TypeKind.DECLARED && structs.contains(erasure(type));
+    }
+
+    /**
+     * Checks if the class extends NetworkSubsystem, the generated class only compiles for those.
+     */
+    private boolean isSubsystem(TypeElement owner) {
+
+        TypeElement subsystem = processingEnv.getElementUtils().getTypeElement(kSubsystem);
+
+        if (subsystem == null) {
+            return false;
+        }
+
+        return processingEnv.getTypeUtils().isSubtype(
+            processingEnv.getTypeUtils().erasure(owner.asType()),
+            processingEnv.getTypeUtils().erasure(subsystem.asType()));
+    }
+
+    private boolean isType(TypeMirror type, String name) {
+        return type.getKind() == TypeKind.DECLARED
+            && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(name);
+    }
+
+    private String erasure(TypeMirror type) {
+        return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+    }
+
+    private AnnotationMirror findAnnotation(ExecutableElement method) {
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(kAnnotation)) {
+                return mirror;
+            }
+        }
+
+        throw new IllegalStateException("Missing " + kAnnotation + " on " + method);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
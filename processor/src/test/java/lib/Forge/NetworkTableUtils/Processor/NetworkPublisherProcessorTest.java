@@ -0,0 +1,224 @@
+package lib.Forge.NetworkTableUtils.Processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NetworkPublisherProcessorTest {
+
+    /**
+     * The classes the generated code references, reduced to what it calls.
+     */
+    private static final Map<String, String> kStubs = Map.ofEntries(
+        Map.entry("lib/Forge/NetworkTableUtils/NetworkSubsystem/Interfaces/Annotations/AutoNetworkPublisher.java", """
+            package lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations;
+            public @interface AutoNetworkPublisher {
+                String key();
+                double rateHz() default 0;
+                TelemetryPriority priority() default TelemetryPriority.HIGH;
+            }
+            """),
+        Map.entry("lib/Forge/NetworkTableUtils/NetworkSubsystem/Interfaces/Annotations/TelemetryPriority.java", """
+            package lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations;
+            public enum TelemetryPriority { HIGH, LOW }
+            """),
+        Map.entry("lib/Forge/NetworkTableUtils/NetworkSubsystem/NetworkSubsystem.java", """
+            package lib.Forge.NetworkTableUtils.NetworkSubsystem;
+            public abstract class NetworkSubsystem {
+                public String getTableKey() { return "Test"; }
+            }
+            """),
+        Map.entry("lib/Forge/NetworkTableUtils/NetworkSubsystem/GeneratedNetworkPublishers.java", """
+            package lib.Forge.NetworkTableUtils.NetworkSubsystem;
+            import lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.TelemetryPriority;
+            public interface GeneratedNetworkPublishers<S extends NetworkSubsystem> {
+                interface Registrar { void register(Runnable publisher, double rateHz, TelemetryPriority priority); }
+                void register(S subsystem, Registrar registrar);
+            }
+            """),
+        Map.entry("lib/Forge/NetworkTableUtils/NetworkMultipleData/NTPublisher.java", """
+            package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+            import edu.wpi.first.util.struct.Struct;
+            public final class NTPublisher {
+                public interface Handle<T> { void publishAsync(T value); }
+                public static Handle<Double> doubleHandle(String table, String key) { return null; }
+                public static Handle<Boolean> booleanHandle(String table, String key) { return null; }
+                public static Handle<String> stringHandle(String table, String key) { return null; }
+                public static Handle<double[]> doubleArrayHandle(String table, String key) { return null; }
+                public static Handle<boolean[]> booleanArrayHandle(String table, String key) { return null; }
+                public static Handle<String[]> stringArrayHandle(String table, String key) { return null; }
+                public static <T> Handle<T> handle(String table, String key, Struct<T> struct) { return null; }
+                public static <T> Handle<T[]> arrayHandle(String table, String key, Struct<T> struct) { return null; }
+            }
+            """),
+        Map.entry("edu/wpi/first/util/struct/Struct.java", """
+            package edu.wpi.first.util.struct;
+            public interface Struct<T> {}
+            """),
+        Map.entry("edu/wpi/first/math/geometry/Pose2d.java", """
+            package edu.wpi.first.math.geometry;
+            public class Pose2d { public static final edu.wpi.first.util.struct.Struct<Pose2d> struct = null; }
+            """),
+        Map.entry("edu/wpi/first/math/geometry/Transform2d.java", """
+            package edu.wpi.first.math.geometry;
+            public class Transform2d { public static final edu.wpi.first.util.struct.Struct<Transform2d> struct = null; }
+            """),
+        Map.entry("edu/wpi/first/math/kinematics/ChassisSpeeds.java", """
+            package edu.wpi.first.math.kinematics;
+            public class ChassisSpeeds { public static final edu.wpi.first.util.struct.Struct<ChassisSpeeds> struct = null; }
+            """),
+        Map.entry("edu/wpi/first/math/kinematics/SwerveModuleState.java", """
+            package edu.wpi.first.math.kinematics;
+            public class SwerveModuleState { public static final edu.wpi.first.util.struct.Struct<SwerveModuleState> struct = null; }
+            """));
+
+    @TempDir
+    Path directory;
+
+    private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    /**
+     * Compiles the stubs and the given class with the processor.
+     *
+     * @return true if the compilation succeeded.
+     */
+    private boolean compile(String path, String source) throws IOException {
+        Path sources = directory.resolve("src");
+        Path generated = Files.createDirectories(directory.resolve("generated"));
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+
+        List<Path> files = new ArrayList<>();
+
+        for (Map.Entry<String, String> stub : kStubs.entrySet()) {
+            files.add(write(sources.resolve(stub.getKey()), stub.getValue()));
+        }
+
+        files.add(write(sources.resolve(path), source));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null)) {
+            List<String> options = List.of(
+                "-processor", NetworkPublisherProcessor.class.getName(),
+                "-s", generated.toString(),
+                "-d", classes.toString());
+
+            return compiler.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjectsFromPaths(files)).call();
+        }
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+
+    private List<String> messages(Diagnostic.Kind kind) {
+        return diagnostics.getDiagnostics().stream()
+            .filter(diagnostic -> diagnostic.getKind() == kind)
+            .map(diagnostic -> diagnostic.getMessage(Locale.ROOT))
+            .collect(Collectors.toList());
+    }
+
+    private String generated(String path) throws IOException {
+        return Files.readString(directory.resolve("generated").resolve(path));
+    }
+
+    @Test
+    void generatesDirectCallsForTheSupportedTypes() throws IOException {
+        boolean compiled = compile("frc/robot/Drive.java", """
+            package frc.robot;
+            import edu.wpi.first.math.geometry.Pose2d;
+            import edu.wpi.first.math.kinematics.ChassisSpeeds;
+            import edu.wpi.first.math.kinematics.SwerveModuleState;
+            import lib.Forge.NetworkTableUtils.NetworkSubsystem.NetworkSubsystem;
+            import lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.AutoNetworkPublisher;
+            import lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.TelemetryPriority;
+            public class Drive extends NetworkSubsystem {
+                @AutoNetworkPublisher(key = "Pose") Pose2d pose() { return null; }
+                @AutoNetworkPublisher(key = "States") SwerveModuleState[] states() { return null; }
+                @AutoNetworkPublisher(key = "Speeds") ChassisSpeeds speeds() { return null; }
+                @AutoNetworkPublisher(key = "Voltage", rateHz = 5, priority = TelemetryPriority.LOW) double voltage() { return 0; }
+                @AutoNetworkPublisher(key = "Current") Double current() { return null; }
+                @AutoNetworkPublisher(key = "Faults") String[] faults() { return null; }
+            }
+            """);
+
+        assertTrue(compiled, diagnostics.getDiagnostics().toString());
+        assertEquals(List.of(), messages(Diagnostic.Kind.WARNING));
+
+        String source = generated("frc/robot/Drive_NetworkPublishers.java");
+
+        assertTrue(source.contains("subsystem.pose()"));
+        assertTrue(source.contains(".arrayHandle(table, \"States\", edu.wpi.first.math.kinematics.SwerveModuleState.struct)"));
+        assertTrue(source.contains(".handle(table, \"Speeds\", edu.wpi.first.math.kinematics.ChassisSpeeds.struct)"));
+        assertTrue(source.contains("5.0, lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.TelemetryPriority.LOW"));
+        assertTrue(source.contains("if (value != null) handle.publishAsync(value);"));
+        assertTrue(source.contains(".stringArrayHandle(table, \"Faults\")"));
+    }
+
+    @Test
+    void skipsTheTypesTheReflectivePublishersReject() throws IOException {
+        boolean compiled = compile("frc/robot/Drive.java", """
+            package frc.robot;
+            import edu.wpi.first.math.geometry.Transform2d;
+            import edu.wpi.first.math.kinematics.ChassisSpeeds;
+            import edu.wpi.first.math.kinematics.SwerveModuleState;
+            import lib.Forge.NetworkTableUtils.NetworkSubsystem.NetworkSubsystem;
+            import lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.AutoNetworkPublisher;
+            public class Drive extends NetworkSubsystem {
+                @AutoNetworkPublisher(key = "Offset") Transform2d offset() { return null; }
+                @AutoNetworkPublisher(key = "State") SwerveModuleState state() { return null; }
+                @AutoNetworkPublisher(key = "Speeds") ChassisSpeeds[] speeds() { return null; }
+                @AutoNetworkPublisher(key = "Count") int count() { return 0; }
+            }
+            """);
+
+        assertTrue(compiled, diagnostics.getDiagnostics().toString());
+
+        List<String> warnings = messages(Diagnostic.Kind.WARNING);
+        assertEquals(4, warnings.size(), warnings.toString());
+        assertTrue(warnings.stream().allMatch(warning -> warning.contains("Not Supported Data type")));
+
+        String source = generated("frc/robot/Drive_NetworkPublishers.java");
+
+        assertFalse(source.contains("handle"));
+    }
+
+    @Test
+    void rejectsMethodsOutsideOfANetworkSubsystem() throws IOException {
+        boolean compiled = compile("frc/robot/Arm.java", """
+            package frc.robot;
+            import lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.AutoNetworkPublisher;
+            public class Arm {
+                @AutoNetworkPublisher(key = "Angle") double angle() { return 0; }
+            }
+            """);
+
+        assertFalse(compiled);
+
+        List<String> errors = messages(Diagnostic.Kind.ERROR);
+        assertEquals(1, errors.size(), errors.toString());
+        assertTrue(errors.get(0).contains("angle must be declared in a NetworkSubsystem"));
+
+        assertFalse(Files.exists(directory.resolve("generated/frc/robot/Arm_NetworkPublishers.java")));
+    }
+}
@@ -0,0 +1,137 @@
+package lib.Forge.SwerveLib.Control;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import lib.Forge.Math.Constants.ProfileGains.PIDGains;
+import lib.Forge.Math.Constants.ProfileGains.SimpleFeedForwardGains;
+
+/**
+ * One control loop of {@link SwerveControlKernel} against the object pipeline it replaces, run
+ * with the gc profiler to compare the allocations too.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SwerveControlKernelBenchmark {
+
+    private static final Translation2d[] kModuleLocations = {
+        new Translation2d(0.3, 0.25),
+        new Translation2d(0.3, -0.25),
+        new Translation2d(-0.3, 0.25),
+        new Translation2d(-0.3, -0.25)
+    };
+
+    private static final double kMaxSpeed = 4.5;
+    private static final double kPeriod = 0.02;
+    private static final double kWheelRadius = 0.0508;
+
+    private static final PIDGains kDriveGains = new PIDGains(0.2, 0.0, 0.0);
+    private static final SimpleFeedForwardGains kDriveFF = new SimpleFeedForwardGains(0.15, 0.12, 0.0);
+    private static final PIDGains kTurnGains = new PIDGains(4.0, 0.0, 0.05);
+
+    // Inputs cycled through, so the branches of optimize and desaturate are not always the same
+    private static final int kInputs = 256;
+
+    private final double[][] chassisSpeeds = new double[kInputs][3];
+    private final double[][] moduleAngles = new double[kInputs][kModuleLocations.length];
+    private final double[] driveVelocities = new double[kModuleLocations.length];
+    private int input = 0;
+
+    private SwerveControlKernel kernel;
+    private final double[] driveVolts = new double[kModuleLocations.length];
+    private final double[] turnVolts = new double[kModuleLocations.length];
+
+    private SwerveDriveKinematics kinematics;
+    private SimpleMotorFeedforward feedforward;
+    private PIDController[] drivePIDs;
+    private PIDController[] turnPIDs;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(4481);
+
+        for (int i = 0; i < kInputs; i++) {
+            chassisSpeeds[i][0] = (random.nextDouble() * 2.0 - 1.0) * 6.0;
+            chassisSpeeds[i][1] = (random.nextDouble() * 2.0 - 1.0) * 6.0;
+            chassisSpeeds[i][2] = (random.nextDouble() * 2.0 - 1.0) * 10.0;
+
+            for (int module = 0; module < kModuleLocations.length; module++) {
+                moduleAngles[i][module] = (random.nextDouble() * 2.0 - 1.0) * Math.PI;
+            }
+        }
+
+        kernel = new SwerveControlKernel(
+            kModuleLocations, kMaxSpeed, kPeriod, kWheelRadius, kDriveGains, kDriveFF, kTurnGains);
+
+        kinematics = new SwerveDriveKinematics(kModuleLocations);
+        feedforward = new SimpleMotorFeedforward(kDriveFF.kS(), kDriveFF.kV());
+        drivePIDs = new PIDController[kModuleLocations.length];
+        turnPIDs = new PIDController[kModuleLocations.length];
+
+        for (int i = 0; i < kModuleLocations.length; i++) {
+            drivePIDs[i] = new PIDController(kDriveGains.kP(), kDriveGains.kI(), kDriveGains.kD(), kPeriod);
+            turnPIDs[i] = new PIDController(kTurnGains.kP(), kTurnGains.kI(), kTurnGains.kD(), kPeriod);
+            turnPIDs[i].enableContinuousInput(-Math.PI, Math.PI);
+        }
+    }
+
+    private int nextInput() {
+        input = (input + 1) & (kInputs - 1);
+        return input;
+    }
+
+    @Benchmark
+    public void kernel(Blackhole blackhole) {
+        int i = nextInput();
+        double[] speeds = chassisSpeeds[i];
+
+        kernel.setChassisSpeeds(speeds[0], speeds[1], speeds[2], moduleAngles[i]);
+        kernel.calculate(moduleAngles[i], driveVelocities, driveVolts, turnVolts);
+
+        blackhole.consume(driveVolts);
+        blackhole.consume(turnVolts);
+    }
+
+    @Benchmark
+    public void objectPipeline(Blackhole blackhole) {
+        int i = nextInput();
+        double[] speeds = chassisSpeeds[i];
+
+        SwerveModuleState[] states = kinematics.toSwerveModuleStates(
+            ChassisSpeeds.discretize(speeds[0], speeds[1], speeds[2], kPeriod));
+        SwerveDriveKinematics.desaturateWheelSpeeds(states, kMaxSpeed);
+
+        for (int module = 0; module < states.length; module++) {
+            Rotation2d current = new Rotation2d(moduleAngles[i][module]);
+
+            states[module].optimize(current);
+            states[module].cosineScale(current);
+
+            double wheelVelocity = states[module].speedMetersPerSecond / kWheelRadius;
+
+            turnVolts[module] = turnPIDs[module].calculate(current.getRadians(), states[module].angle.getRadians());
+            driveVolts[module] = drivePIDs[module].calculate(driveVelocities[module], wheelVelocity)
+                + feedforward.calculate(wheelVelocity);
+        }
+
+        blackhole.consume(driveVolts);
+        blackhole.consume(turnVolts);
+    }
+}
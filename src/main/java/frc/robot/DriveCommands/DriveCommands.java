@@ -102,10 +102,9 @@ public class DriveCommands {
                   getLinearVelocityFromJoysticks(xSupplier.getAsDouble(), ySupplier.getAsDouble());
 
                 double omega =
-                    angleController.calculate(
+                    angleController.calculateOutput(
                         new PositionState(angleSupplier.get().getRadians()),
-                        drive.getRotation().getRadians()
-                    ).getOutput();
+                        drive.getRotation().getRadians());
 
                 ChassisSpeeds speeds =
                     new ChassisSpeeds(
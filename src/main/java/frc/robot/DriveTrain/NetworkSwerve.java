@@ -1,5 +1,6 @@
 package frc.robot.DriveTrain;
 
+import com.ctre.phoenix6.BaseStatusSignal;
 import com.pathplanner.lib.auto.AutoBuilder;
 import com.pathplanner.lib.config.ModuleConfig;
 import com.pathplanner.lib.config.PIDConstants;
@@ -26,11 +27,15 @@ import lib.Forge.Field.FieldObject;
 import lib.Forge.NetworkTableUtils.NetworkSubsystem.NetworkSubsystem;
 import lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.AutoNetworkPublisher;
 import lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.NetworkCommand;
+import lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.TelemetryPriority;
+import lib.Forge.REV.SparkMax.CANBudget;
 import lib.Forge.Sim.RealDevice;
 import lib.Forge.Sim.SimulatedSubsystem;
+import lib.Forge.SwerveLib.Control.SwerveControlKernel;
 import lib.Forge.SwerveLib.Odometer.ForgeSwerveDrivePoseEstimator;
 import lib.Forge.SwerveLib.PathFinding.PoseFinder;
 import lib.Forge.SwerveLib.Utils.SwerveModuleStateSupplier;
+import lib.Forge.SwerveLib.Vision.VisionFusion;
 import lib.Forge.SwerveLib.Visualizers.SwerveWidget;
 
 public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsystem{
@@ -42,6 +47,9 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
         Math.hypot(TRACK_WIDTH_X / 2.0, TRACK_WIDTH_Y / 2.0);
     private static final double MAX_ANGULAR_SPEED = MAX_LINEAR_SPEED / DRIVE_BASE_RADIUS;
 
+    //Runs the module PIDs on the Sparks instead of the roboRIO
+    private static final boolean ONBOARD_CLOSED_LOOP = false;
+
     private static final double ROBOTMASSKG = 57.45;
     private static final double ROBOTMOI = 5.16;
 
@@ -65,6 +73,8 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
     private SwerveDriveKinematics kinematics = new SwerveDriveKinematics(getModuleLocations());
 
     private final ForgeSwerveDrivePoseEstimator poseEstimator;
+
+    private final VisionFusion visionFusion;
     
     private final PIDConstants translationPPgains; 
     private final PIDConstants rotationPPgains;
@@ -73,6 +83,23 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
 
     private SwerveModule[] modules = new SwerveModule[4];
 
+    private final SwerveControlKernel controlKernel;
+
+    private final BaseStatusSignal[] moduleSignals;
+
+    private final double[] moduleAngles = new double[4];
+    private final double[] moduleVelocities = new double[4];
+    private final double[] driveVoltages = new double[4];
+    private final double[] turnVoltages = new double[4];
+
+    private final SwerveModuleState[] moduleStates = {
+        new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState()
+    };
+
+    private final SwerveModulePosition[] modulePositions = {
+        new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition()
+    };
+
     public PathConstraints selectedConstraints;
 
     public enum SwervePathConstraints{
@@ -99,19 +126,33 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
             rotationPPgains = new PIDConstants(2.93, 0.0, 0.001);
         }
 
-        modules[0] = new SwerveModule(0);
-        modules[1] = new SwerveModule(1);
-        modules[2] = new SwerveModule(2);
-        modules[3] = new SwerveModule(3);
+        modules[0] = new SwerveModule(0, ONBOARD_CLOSED_LOOP);
+        modules[1] = new SwerveModule(1, ONBOARD_CLOSED_LOOP);
+        modules[2] = new SwerveModule(2, ONBOARD_CLOSED_LOOP);
+        modules[3] = new SwerveModule(3, ONBOARD_CLOSED_LOOP);
+
+        moduleSignals = collectModuleSignals();
+
+        controlKernel = new SwerveControlKernel(
+            getModuleLocations(),
+            MAX_LINEAR_SPEED,
+            0.02,
+            SwerveModule.WHEELRADIUS,
+            modules[0].getDrivePIDGains(),
+            modules[0].getDriveFFGains(),
+            modules[0].getTurnPIDGains());
 
         poseEstimator = new ForgeSwerveDrivePoseEstimator(
             kinematics,
             ()-> gyroConnection(),
-            this::getModulePositions,
-            this::getnavXRotation,
+            this::sampleModules,
+            ()-> Units.degreesToRadians(-getAngle()),
             true,
+            SwerveModule.ODOMETRY_FREQUENCY,
             0.01);
 
+        visionFusion = new VisionFusion(poseEstimator);
+
         AutoBuilder.configure(
             this::getEstimatedPosition,
             this::setPose,
@@ -129,6 +170,7 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
             selectedConstraints,
             this::runVelocity,
             this::getEstimatedPosition,
+            this::getChassisSpeeds,
             this::setPose,
             0.02,
             this);
@@ -149,19 +191,19 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
 
         suppliers[0] = new SwerveModuleStateSupplier(
             ()-> modules[0].getModuleVelocity(),
-            ()-> modules[0].getModuleRotation().getRadians());
+            ()-> modules[0].getModuleAngleRadians());
 
         suppliers[1] = new SwerveModuleStateSupplier(
             ()-> modules[1].getModuleVelocity(),
-            ()-> modules[1].getModuleRotation().getRadians());
+            ()-> modules[1].getModuleAngleRadians());
             
         suppliers[2] = new SwerveModuleStateSupplier(
             ()-> modules[2].getModuleVelocity(),
-            ()-> modules[2].getModuleRotation().getRadians());
+            ()-> modules[2].getModuleAngleRadians());
 
         suppliers[3] = new SwerveModuleStateSupplier(
             ()-> modules[3].getModuleVelocity(),
-            ()-> modules[3].getModuleRotation().getRadians());
+            ()-> modules[3].getModuleAngleRadians());
 
         SwerveWidget.buildCustomPath(
             getTableKey(),
@@ -219,19 +261,50 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
     public Rotation2d getnavXRotation(){
         return Rotation2d.fromDegrees(-getAngle());
     }
+
+    private void sampleModules(double[] drivePositionsMeters, double[] turnAnglesRadians){
+        for (int i = 0; i < 4; i++) {
+            drivePositionsMeters[i] = modules[i].sampleDrivePositionMeters();
+            turnAnglesRadians[i] = modules[i].sampleTurnAngleRadians();
+        }
+    }
     
     @Override
     public void NetworkPeriodic(){
 
+        //One refresh for the CANcoders of every module, the modules read the cached values
+        if (moduleSignals.length > 0) {
+            BaseStatusSignal.refreshAll(moduleSignals);
+        }
+
         for (var module : modules) {
             module.periodic();
         }
 
+        if (ONBOARD_CLOSED_LOOP) {
+            sendOnboardSetpoints();
+        }else{
+            readModuleAngles();
+
+            for (int i = 0; i < 4; i++) {
+                moduleVelocities[i] = modules[i].getDriveVelocity();
+            }
+
+            controlKernel.calculate(moduleAngles, moduleVelocities, driveVoltages, turnVoltages);
+
+            for (int i = 0; i < 4; i++) {
+                modules[i].setVoltages(driveVoltages[i], turnVoltages[i]);
+            }
+        }
+
         if (DriverStation.isDisabled()) {
-            for (var module : modules) {
-              module.stopModule();
+            for (int i = 0; i < 4; i++) {
+              controlKernel.setOpenLoop(i, 0, 0);
+              modules[i].stopModule();
         }}
 
+        pathFinder.periodic();
+
         handleSubsystemRealityLoop();
 
     }
@@ -242,21 +315,62 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
     @Override
     public void SimulationDevicesPeriodic(){}
 
-    public void runVelocity(ChassisSpeeds speeds) {
-        // Calculate module setpoints
-        ChassisSpeeds discreteSpeeds = ChassisSpeeds.discretize(speeds, 0.02);
-        SwerveModuleState[] setpointStates = kinematics.toSwerveModuleStates(discreteSpeeds);
-        SwerveDriveKinematics.desaturateWheelSpeeds(setpointStates, MAX_LINEAR_SPEED);
+    private void sendOnboardSetpoints(){
+        for (int i = 0; i < 4; i++) {
+            if (!controlKernel.isTurnClosedLoop(i)) {
+                modules[i].setVoltages(controlKernel.getDriveOpenLoopVoltage(i), controlKernel.getTurnOpenLoopVoltage(i));
+
+            } else if (!controlKernel.isDriveClosedLoop(i)) {
+                modules[i].setDriveOpenLoop(controlKernel.getDriveOpenLoopVoltage(i));
+                modules[i].setOnboardTurnSetpoint(controlKernel.getTurnSetpoint(i));
+
+            } else {
+                modules[i].setOnboardSetpoints(
+                    controlKernel.getTurnSetpoint(i),
+                    controlKernel.getDriveSetpoint(i),
+                    controlKernel.getDriveFeedforward(i));
+            }
+        }
+    }
+
+    private BaseStatusSignal[] collectModuleSignals(){
+        int count = 0;
+        for (var module : modules) {
+            count += module.getStatusSignals().length;
+        }
+
+        BaseStatusSignal[] signals = new BaseStatusSignal[count];
+        int index = 0;
+        for (var module : modules) {
+            for (var signal : module.getStatusSignals()) {
+                signals[index++] = signal;
+            }
+        }
+
+        return signals;
+    }
 
+    private void readModuleAngles(){
         for (int i = 0; i < 4; i++) {
-            modules[i].runSetpoint(setpointStates[i]);
+            moduleAngles[i] = modules[i].getModuleAngleRadians();
         }
+    }
+
+    public void runVelocity(ChassisSpeeds speeds) {
+        // Discretize, calculate and optimize the module setpoints, the module PIDs run on NetworkPeriodic
+        readModuleAngles();
+        controlKernel.setChassisSpeeds(
+            speeds.vxMetersPerSecond,
+            speeds.vyMetersPerSecond,
+            speeds.omegaRadiansPerSecond,
+            moduleAngles);
     
     }
 
     public void runCharacterization(double output) {
         for (int i = 0; i < 4; i++) {
-          modules[i].runCharacterization(output);
+          controlKernel.setDriveOpenLoop(i, output);
+          controlKernel.setTurnSetpoint(i, 0.0);
         }
     }
 
@@ -273,8 +387,9 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
     }
 
     public void homeModules(){
+        readModuleAngles();
         for (int i = 0; i < 4; i++) {
-              modules[i].toHome();
+              controlKernel.setModuleState(i, 0.0, 0.0, moduleAngles[i]);
           }
     }
 
@@ -284,11 +399,10 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
     }
 
     public void stopWithX() {
-        Rotation2d[] headings = new Rotation2d[4];
+        Translation2d[] locations = getModuleLocations();
         for (int i = 0; i < 4; i++) {
-          headings[i] = getModuleLocations()[i].getAngle();
+          controlKernel.resetHeading(i, locations[i].getX(), locations[i].getY());
         }
-        kinematics.resetHeadings(headings);
         stop();
     }
 
@@ -311,22 +425,26 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
         return Commands.runOnce(()-> resetHeading(), this);
     }
 
+    /**
+     * The returned array and its states are reused between calls, copy them if they need to be kept.
+     */
     @AutoNetworkPublisher(key = "Modules/ModuleStates")
     public SwerveModuleState[] getModuleStates() {
-        SwerveModuleState[] states = new SwerveModuleState[4];
         for (int i = 0; i < 4; i++) {
-        states[i] = modules[i].getState();
+        modules[i].updateState(moduleStates[i]);
         }
-        return states;
+        return moduleStates;
     }
 
-    @AutoNetworkPublisher(key = "Modules/ModulePositions")
+    /**
+     * The returned array and its positions are reused between calls, copy them if they need to be kept.
+     */
+    @AutoNetworkPublisher(key = "Modules/ModulePositions", rateHz = 10, priority = TelemetryPriority.NORMAL)
     public SwerveModulePosition[] getModulePositions() {
-        SwerveModulePosition[] states = new SwerveModulePosition[4];
         for (int i = 0; i < 4; i++) {
-        states[i] = modules[i].getPosition();
+        modules[i].updatePosition(modulePositions[i]);
         }
-        return states;
+        return modulePositions;
     }
 
     @AutoNetworkPublisher(key = "Modules/ChassisSpeeds")
@@ -338,6 +456,11 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
         poseEstimator.resetPosition(pose);
     }
 
+    @AutoNetworkPublisher(key = "CAN/EstimatedUtilization", rateHz = 1, priority = TelemetryPriority.LOW)
+    public double getEstimatedCANUtilization(){
+        return CANBudget.getUtilization();
+    }
+
     @AutoNetworkPublisher(key = "Odometry/BotPose2D")
     public Pose2d getEstimatedPosition() {
         return poseEstimator.getEstimatedPose();
@@ -352,13 +475,20 @@ public class NetworkSwerve extends NetworkSubsystem implements SimulatedSubsyste
         return pathFinder;
     }
 
-    @AutoNetworkPublisher(key = "Speeds/MaxLinear") 
+    /**
+     * Cameras are added with {@link VisionFusion#addSource}.
+     */
+    public VisionFusion getVisionFusion(){
+        return visionFusion;
+    }
+
+    @AutoNetworkPublisher(key = "Speeds/MaxLinear", rateHz = 1, priority = TelemetryPriority.LOW)
     /** Returns the maximum linear speed in meters per sec. */
     public double getMaxLinearSpeedMetersPerSec() {
         return MAX_LINEAR_SPEED;
     }
 
-    @AutoNetworkPublisher(key = "Speeds/MaxAngular")      
+    @AutoNetworkPublisher(key = "Speeds/MaxAngular", rateHz = 1, priority = TelemetryPriority.LOW)      
     /** Returns the maximum angular speed in radians per sec. */
     public double getMaxAngularSpeedRadPerSec() {
         return MAX_ANGULAR_SPEED;
@@ -1,6 +1,9 @@
 package frc.robot.DriveTrain;
 
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.hardware.CANcoder;
+import com.revrobotics.spark.ClosedLoopSlot;
 import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
 
 import edu.wpi.first.math.MathUtil;
@@ -9,12 +12,16 @@ import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.simulation.DCMotorSim;
 import lib.Forge.Math.Constants.ProfileGains.PIDGains;
 import lib.Forge.Math.Constants.ProfileGains.SimpleFeedForwardGains;
-import lib.Forge.Math.Controllers.Control.PIDControl;
+import lib.Forge.REV.SparkMax.CANBudget;
 import lib.Forge.REV.SparkMax.ForgeSparkMax;
+import lib.Forge.REV.SparkMax.ForgeSparkMax.EncoderConversion;
+import lib.Forge.REV.SparkMax.SparkClosedLoopSim;
+import lib.Forge.REV.SparkMax.StatusFrameProfile;
 import lib.Forge.Sim.RealDevice;
 import lib.Forge.Sim.SimulatedDevice;
 import lib.Forge.Sim.SimulatedSubsystem;
@@ -27,6 +34,17 @@ public class SwerveModule implements SimulatedSubsystem{
     public static final double WHEELRADIUS = Units.inchesToMeters(2.0);
     public static final double driveMotorReduction = 5.36;
     public static final double turnMotorReduction =  18.75;
+    public static final double ODOMETRY_FREQUENCY = 250.0;
+
+    //Native units of the onboard closed loop: turn motor rotations and drive motor RPM
+    public static final double turnNativePerRadian = turnMotorReduction / (2 * Math.PI);
+    public static final double driveNativePerRadianPerSecond = 60.0 / (2 * Math.PI);
+    //Raw Spark reads to module units, resolved once
+    public static final EncoderConversion turnPositionConversion = EncoderConversion.identity().withReduction(turnMotorReduction).toRadians();
+    public static final EncoderConversion drivePositionConversion = EncoderConversion.identity().toRadians();
+    public static final EncoderConversion driveVelocityConversion = EncoderConversion.identity().toRadiansPerSecond();
+
+    private static final int simSubsteps = (int) Math.round(0.02 / SparkClosedLoopSim.kPeriod);
 
     @RealDevice
     private ForgeSparkMax driveSparkMax;
@@ -35,6 +53,9 @@ public class SwerveModule implements SimulatedSubsystem{
     @RealDevice
     private CANcoder absoluteEncoder;
 
+    private StatusSignal<Angle> absolutePositionSignal;
+    private StatusSignal<Angle> odometryTurnSignal;
+
     @SimulatedDevice
     private DCMotorSim driveSim =
     new DCMotorSim(
@@ -47,18 +68,10 @@ public class SwerveModule implements SimulatedSubsystem{
         LinearSystemId.createDCMotorSystem(NEOGearbox, 0.004, turnMotorReduction),
         NEOGearbox);
 
-    private final PIDControl drivePID;
-    private final PIDControl turnPID;
-
     private final SimpleFeedForwardGains driveFFGains;
     private final PIDGains drivePIDGains;
     private final PIDGains turnPIDGains;
 
-    private Rotation2d angleSetpoint = null;
-    private Double speedSetpoint = null;
-
-    private double ffVolts = 0;
-
     private double driveVelocity;
 
     private double driveVoltage;
@@ -70,8 +83,40 @@ public class SwerveModule implements SimulatedSubsystem{
     private boolean isTurnMotorInverted;
 
     private Rotation2d moduleAngle = new Rotation2d();
-    
+
+    //Inputs read once per cycle, every consumer of the cycle reads these
+    private double moduleAngleRadians;
+    private double drivePositionRadians;
+    private boolean absoluteEncoderConnected;
+
+    //Sim positions after the last step, written by the main loop and read by the odometry thread
+    private volatile double simDrivePositionRadians;
+    private volatile double simTurnAngleRadians;
+
+    private final boolean onboardClosedLoop;
+
+    private boolean turnOnboard = false;
+    private boolean driveOnboard = false;
+
+    private double turnReference;
+    private double driveReference;
+    private double driveArbFF;
+
+    private SparkClosedLoopSim turnClosedLoopSim;
+    private SparkClosedLoopSim driveClosedLoopSim;
+
     public SwerveModule(int index){
+        this(index, false);
+    }
+
+    /**
+     * @param index the index of the module
+     * @param onboardClosedLoop true to configure the onboard closed loop of the Sparks so the module
+     * can receive setpoints instead of voltages
+     */
+    public SwerveModule(int index, boolean onboardClosedLoop){
+
+        this.onboardClosedLoop = onboardClosedLoop;
    
         //Use real Configuration
         if (!isInSimulation()) {
@@ -90,10 +135,9 @@ public class SwerveModule implements SimulatedSubsystem{
             
         }
 
-        drivePID = new PIDControl(drivePIDGains);
-        turnPID = new PIDControl(turnPIDGains);
-
-        turnPID.continuousInput(-Math.PI, Math.PI);
+        if (onboardClosedLoop) {
+            configureOnboardClosedLoop();
+        }
 
         initializeSubsystemDevices("NetworkSwerve/Devices/Modules");
 
@@ -102,67 +146,170 @@ public class SwerveModule implements SimulatedSubsystem{
     //Main Loop
     public void periodic(){
         handleSubsystemRealityLoop();
+    }
 
-        if (angleSetpoint != null) {
-            this.turnVoltage = turnPID.calculate(moduleAngle.getRadians()).getOutput();
+    @Override
+    public void SimulationDevicesPeriodic(){
+
+        this.moduleAngleRadians = turnSim.getAngularPositionRad();
+        this.moduleAngle = new Rotation2d(moduleAngleRadians);
+        this.driveVelocity = driveSim.getAngularVelocityRadPerSec();
+
+        if (!turnOnboard && !driveOnboard) {
+            driveSim.setInputVoltage(MathUtil.clamp(driveVoltage, -12.0, 12.0));
+            turnSim.setInputVoltage(MathUtil.clamp(turnVoltage, -12.0, 12.0));
+
+            driveSim.update(0.02);
+            turnSim.update(0.02);
 
-            if (speedSetpoint != null) {
-                this.driveVoltage = drivePID.calculate(driveVelocity).plus(()-> ffVolts).getOutput();
-            }else{
-                drivePID.reset();
-            }
         }else{
-            turnPID.reset();
+            updateOnboardSim();
         }
+
+        this.drivePositionRadians = driveSim.getAngularPositionRad();
+
+        this.simDrivePositionRadians = drivePositionRadians;
+        this.simTurnAngleRadians = turnSim.getAngularPositionRad();
     }
 
-    @Override
-    public void SimulationDevicesPeriodic(){
+    private void updateOnboardSim(){
 
-        this.moduleAngle = new Rotation2d(turnSim.getAngularPositionRad());
-        this.driveVelocity = driveSim.getAngularVelocityRadPerSec();
+        //Step at the rate of the Spark closed loop
+        turnClosedLoopSim.setReference(turnReference * turnNativePerRadian, 0);
+        driveClosedLoopSim.setReference(driveReference * driveNativePerRadianPerSecond, driveArbFF);
 
-        driveSim.setInputVoltage(MathUtil.clamp(driveVoltage, -12.0, 12.0));
-        turnSim.setInputVoltage(MathUtil.clamp(turnVoltage, -12.0, 12.0));
+        for (int i = 0; i < simSubsteps; i++) {
+            if (turnOnboard) {
+                this.turnVoltage = turnClosedLoopSim.calculate(turnSim.getAngularPositionRad() * turnNativePerRadian);
+            }
+
+            if (driveOnboard) {
+                this.driveVoltage = driveClosedLoopSim.calculate(driveSim.getAngularVelocityRadPerSec() * driveNativePerRadianPerSecond);
+            }
 
-        driveSim.update(0.02);
-        turnSim.update(0.02);
+            driveSim.setInputVoltage(MathUtil.clamp(driveVoltage, -12.0, 12.0));
+            turnSim.setInputVoltage(MathUtil.clamp(turnVoltage, -12.0, 12.0));
+
+            driveSim.update(SparkClosedLoopSim.kPeriod);
+            turnSim.update(SparkClosedLoopSim.kPeriod);
+        }
     }
 
     @Override
     public void RealDevicesPeriodic(){
 
-        this.moduleAngle = 
-        absoluteEncoder.isConnected() ? 
-            Rotation2d.fromRotations(absoluteEncoder.getAbsolutePosition().getValueAsDouble() - Offset) : 
-            Rotation2d.fromRotations(turnSparkMax.getPosition().withReduction(turnMotorReduction).getRead());
+        //The absolute position signal is refreshed for all the modules at once, see getStatusSignals()
+        this.absoluteEncoderConnected = absolutePositionSignal.getStatus().isOK();
+
+        this.moduleAngleRadians = 
+        absoluteEncoderConnected ? 
+            Units.rotationsToRadians(absolutePositionSignal.getValueAsDouble() - Offset) : 
+            turnSparkMax.getPosition(turnPositionConversion);
 
-        this.driveVelocity = driveSparkMax.getVelocity().toRadiansPerSecond().getRead();
+        this.moduleAngle = new Rotation2d(moduleAngleRadians);
 
-        driveSparkMax.setVoltage(driveVoltage);
-        turnSparkMax.setVoltage(turnVoltage);
+        this.drivePositionRadians = driveSparkMax.getPosition(drivePositionConversion);
+        this.driveVelocity = driveSparkMax.getVelocity(driveVelocityConversion);
+
+        if (driveOnboard) {
+            driveSparkMax.setVelocityReference(driveReference * driveNativePerRadianPerSecond, driveArbFF, ClosedLoopSlot.kSlot0);
+        }else{
+            driveSparkMax.setVoltage(driveVoltage);
+        }
+
+        if (turnOnboard) {
+            turnSparkMax.setPositionReference(turnReference * turnNativePerRadian, ClosedLoopSlot.kSlot0);
+        }else{
+            turnSparkMax.setVoltage(turnVoltage);
+        }
 
     }
 
-    public void setDriveVelocity(double velocity){
-        this.ffVolts = driveFFGains.kS() * Math.signum(velocity) + driveFFGains.kV() * velocity;
-        drivePID.setSetpoint(velocity);
+    /**
+     * Sends the setpoints to the onboard closed loop of the Sparks, requires the onboard closed loop mode.
+     * @param angle the module angle in radians
+     * @param velocity the wheel velocity in radians per second
+     * @param ffVolts the drive feedforward voltage
+     */
+    public void setOnboardSetpoints(double angle, double velocity, double ffVolts){
+        setOnboardTurnSetpoint(angle);
+
+        if (!driveOnboard) {
+            resetClosedLoopSim(driveClosedLoopSim);
+        }
+
+        this.driveOnboard = true;
+        this.driveReference = velocity;
+        this.driveArbFF = ffVolts;
     }
 
-    public void setTurnPos(Rotation2d rot){
-        turnPID.setSetpoint(rot.getRadians());
+    /**
+     * Sends the turn setpoint to the onboard closed loop of the turn Spark, requires the onboard closed loop mode.
+     * @param angle the module angle in radians
+     */
+    public void setOnboardTurnSetpoint(double angle){
+        if (!turnOnboard) {
+            resetClosedLoopSim(turnClosedLoopSim);
+        }
+
+        this.turnOnboard = true;
+        this.turnReference = angle;
+    }
+
+    public boolean isOnboardClosedLoop(){
+        return onboardClosedLoop;
+    }
+
+    private void resetClosedLoopSim(SparkClosedLoopSim closedLoopSim){
+        if (closedLoopSim != null) {
+            closedLoopSim.reset();
+        }
+    }
+
+    private void configureOnboardClosedLoop(){
+        PIDGains turnSparkGains = ForgeSparkMax.toSparkGains(turnPIDGains, turnNativePerRadian);
+        PIDGains driveSparkGains = ForgeSparkMax.toSparkGains(drivePIDGains, driveNativePerRadianPerSecond);
+
+        //One module turn in motor rotations, centered like the roboRIO PID input
+        double halfTurn = turnMotorReduction / 2.0;
+
+        if (isInSimulation()) {
+            turnClosedLoopSim = new SparkClosedLoopSim(turnSparkGains);
+            turnClosedLoopSim.enablePositionWrapping(-halfTurn, halfTurn);
+
+            driveClosedLoopSim = new SparkClosedLoopSim(driveSparkGains);
+            return;
+        }
+
+        turnSparkMax.configureClosedLoop(turnSparkGains, ClosedLoopSlot.kSlot0);
+        turnSparkMax.enablePositionWrapping(-halfTurn, halfTurn);
+        driveSparkMax.configureClosedLoop(driveSparkGains, ClosedLoopSlot.kSlot0);
+
+        //The relative encoder starts at zero, align it with the absolute encoder
+        turnSparkMax.setPosition(
+            (absolutePositionSignal.refresh().getValueAsDouble() - Offset) * turnMotorReduction);
     }
 
     public void setDriveOpenLoop(double voltage){
-        this.speedSetpoint = null;
+        this.driveOnboard = false;
         this.driveVoltage = voltage;
     }
 
     public void setTurnOpenLoop(double voltage){
-        this.angleSetpoint = null;
+        this.turnOnboard = false;
         this.turnVoltage = voltage;
     }
 
+    /**
+     * Drives both motors open loop, used when the setpoints are calculated outside the module.
+     * @param driveVoltage the drive voltage
+     * @param turnVoltage the turn voltage
+     */
+    public void setVoltages(double driveVoltage, double turnVoltage){
+        setDriveOpenLoop(driveVoltage);
+        setTurnOpenLoop(turnVoltage);
+    }
+
     public double getDriveModuleVoltage(){
         return driveVoltage;
     }
@@ -179,37 +326,86 @@ public class SwerveModule implements SimulatedSubsystem{
         return driveVelocity;
       }
 
-    public double getDrivePositionMeters(){
+    /**
+     * @return the wheel velocity in radians per second
+     */
+    public double getDriveVelocity(){
+        return driveVelocity;
+    }
 
-        double position = isInSimulation() ? driveSim.getAngularPositionRad() : driveSparkMax.getPosition().toRadians().getRead();
+    public PIDGains getDrivePIDGains(){
+        return drivePIDGains;
+    }
 
-        return position * WHEELRADIUS;
+    public PIDGains getTurnPIDGains(){
+        return turnPIDGains;
+    }
+
+    public SimpleFeedForwardGains getDriveFFGains(){
+        return driveFFGains;
+    }
+
+    /**
+     * @return the drive position in meters, read once per cycle
+     */
+    public double getDrivePositionMeters(){
+        return drivePositionRadians * WHEELRADIUS;
       }
 
     public Rotation2d getModuleRotation(){
         return moduleAngle;
     }
 
-    public void runSetpoint(SwerveModuleState desiredState){
-        desiredState.optimize(getModuleRotation());
+    /**
+     * @return the module angle in radians, read once per cycle
+     */
+    public double getModuleAngleRadians(){
+        return moduleAngleRadians;
+    }
 
-        desiredState.cosineScale(getModuleRotation());
+    /**
+     * @return true if the absolute encoder answered on the last cycle
+     */
+    public boolean isAbsoluteEncoderConnected(){
+        return absoluteEncoderConnected;
+    }
 
-        angleSetpoint = desiredState.angle;
-        speedSetpoint = desiredState.speedMetersPerSecond;
+    /**
+     * The signals read by the module every cycle, they must be refreshed before {@link #periodic()} with
+     * {@link BaseStatusSignal#refreshAll}, together with the ones of the other modules.
+     * @return the signals, empty in simulation
+     */
+    public BaseStatusSignal[] getStatusSignals(){
+        return isInSimulation() ? new BaseStatusSignal[0] : new BaseStatusSignal[] {absolutePositionSignal};
+    }
 
-        setTurnPos(angleSetpoint);
-        setDriveVelocity(speedSetpoint / WHEELRADIUS);
+    /**
+     * Reads the drive position directly from the device, used by the high frequency odometry thread.
+     * The Spark sends it at {@link #ODOMETRY_FREQUENCY}, in simulation it changes once per loop.
+     * @return the drive position in meters
+     */
+    public double sampleDrivePositionMeters(){
 
-    }
+        double position = isInSimulation() ? simDrivePositionRadians : driveSparkMax.getPosition(drivePositionConversion);
 
-    public void runCharacterization(double output){
-        setDriveOpenLoop(output);
-        setTurnPos(new Rotation2d(0));
+        return position * WHEELRADIUS;
     }
 
-    public void toHome(){
-        runSetpoint(new SwerveModuleState(0, new Rotation2d()));
+    /**
+     * Reads the turn angle directly from the device, used by the high frequency odometry thread.
+     * @return the module angle in radians
+     */
+    public double sampleTurnAngleRadians(){
+
+        if (isInSimulation()) {
+            return simTurnAngleRadians;
+        }
+
+        if (odometryTurnSignal.refresh().getStatus().isOK()) {
+            return Units.rotationsToRadians(odometryTurnSignal.getValueAsDouble() - Offset);
+        }
+
+        return turnSparkMax.getPosition(turnPositionConversion);
     }
 
     public SwerveModulePosition getPosition(){
@@ -220,6 +416,24 @@ public class SwerveModule implements SimulatedSubsystem{
         return new SwerveModuleState(getModuleVelocity(), getModuleRotation());
     }
 
+    /**
+     * Writes the module position into an existing object instead of allocating a new one.
+     * @param out the position to update
+     */
+    public void updatePosition(SwerveModulePosition out){
+        out.distanceMeters = getDrivePositionMeters();
+        out.angle = moduleAngle;
+    }
+
+    /**
+     * Writes the module state into an existing object instead of allocating a new one.
+     * @param out the state to update
+     */
+    public void updateState(SwerveModuleState out){
+        out.speedMetersPerSecond = getModuleVelocity();
+        out.angle = moduleAngle;
+    }
+
     public void stopModule(){   
         setTurnOpenLoop(0);
         setDriveOpenLoop(0);
@@ -280,5 +494,18 @@ public class SwerveModule implements SimulatedSubsystem{
             20,
             true);
 
+        //Only the frames read by the module, frees the bus for the CANcoders
+        //The drive position is sampled by the odometry thread, so it is sent at the sampling rate
+        driveSparkMax.setStatusFrameProfile(StatusFrameProfile.DRIVE_ODOMETRY);
+        turnSparkMax.setStatusFrameProfile(StatusFrameProfile.TURN);
+
+        //Separate signal so the odometry thread never refreshes the one used by the main loop
+        absolutePositionSignal = absoluteEncoder.getAbsolutePosition(false);
+
+        odometryTurnSignal = absoluteEncoder.getAbsolutePosition().clone();
+        odometryTurnSignal.setUpdateFrequency(ODOMETRY_FREQUENCY);
+
+        CANBudget.register("CANcoder " + absoluteEncoder.getDeviceID(), ODOMETRY_FREQUENCY);
+
     }
 }
@@ -8,6 +8,7 @@ import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import lib.Forge.NetworkTableUtils.NetworkNormalPublishers.NTString;
+import lib.Forge.NetworkTableUtils.NetworkTunnableNumber.TunableRegistry;
 import lib.Forge.RobotState.RobotLifeCycle;
 
 public class Robot extends TimedRobot {
@@ -27,6 +28,7 @@ public class Robot extends TimedRobot {
   @Override
   public void robotPeriodic() {
     CommandScheduler.getInstance().run();
+    TunableRegistry.getDefault().update();
 
   }
 
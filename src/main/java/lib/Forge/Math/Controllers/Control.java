@@ -48,7 +48,10 @@ public class Control {
         }
 
         default ControlResult withDeadband(double threshold) {
-            return () -> Math.abs(getOutput()) > threshold ? getOutput() : 0.0;
+            return () -> {
+                double output = getOutput();
+                return Math.abs(output) > threshold ? output : 0.0;
+            };
         }
 
         default ControlResult delete(){
@@ -71,6 +74,19 @@ public class Control {
 
     public static class FeedForwardControl{
 
+        public static double calculateOutput(SimpleFeedForwardGains gains, double velocity, double acceleration){
+            return Math.signum(velocity) * gains.kS() +
+            gains.kV() * velocity +
+            gains.kA() * acceleration;
+        }
+
+        public static double calculateOutput(CompleteFeedForwardGains gains, double velocity, double acceleration){
+            return Math.signum(velocity) * gains.kS() +
+            gains.kG() +
+            gains.kV() * velocity +
+            gains.kA() * acceleration;
+        }
+
         public static ControlResult calculate(SimpleFeedForwardGains gains, double velocity, double acceleration){
             return ()-> 
             Math.signum(velocity) * gains.kS() +
@@ -117,7 +133,10 @@ public class Control {
 
         @Override
         public ControlResult calculate(Double setpoint, Double measurement){
-            return ()-> controller.calculate(setpoint, measurement);
+            double target = setpoint;
+            double measured = measurement;
+
+            return ()-> calculateOutput(target, measured);
         }
 
         @Override
@@ -125,6 +144,25 @@ public class Control {
             return ()-> controller.calculate(measurement);
         }
 
+        /**
+         * Calculates the output right away, without boxing nor allocating a result.
+         * @param setpoint the new setpoint
+         * @param measurement the current measurement
+         * @return the output
+         */
+        public double calculateOutput(double setpoint, double measurement){
+            return controller.calculate(measurement, setpoint);
+        }
+
+        /**
+         * Calculates the output right away, without boxing nor allocating a result.
+         * @param measurement the current measurement
+         * @return the output
+         */
+        public double calculateOutput(double measurement){
+            return controller.calculate(measurement);
+        }
+
         @Override
         public Double getSetpoint(){
             return controller.getSetpoint();
@@ -181,6 +219,7 @@ public class Control {
         }
 
         public void setGains(MotionModelGains gains){
+            this.gains = gains;
             controller.setP(gains.kP());
             controller.setI(gains.kI());
             controller.setD(gains.kD());
@@ -201,6 +240,25 @@ public class Control {
             return ()-> controller.calculate(measurement);
         }
 
+        /**
+         * Calculates the output right away, without boxing nor allocating a result.
+         * @param goal the new goal
+         * @param measurement the current measurement
+         * @return the output
+         */
+        public double calculateOutput(TrapezoidProfile.State goal, double measurement){
+            return controller.calculate(measurement, goal);
+        }
+
+        /**
+         * Calculates the output right away, without boxing nor allocating a result.
+         * @param measurement the current measurement
+         * @return the output
+         */
+        public double calculateOutput(double measurement){
+            return controller.calculate(measurement);
+        }
+
         @Override
         public TrapezoidProfile.State getSetpoint() {
             return controller.getSetpoint();
@@ -248,16 +306,39 @@ public class Control {
         public ControlResult calculate(Double setpoint, Double measurement) {
             this.setpoint = setpoint;
 
-            var intermediateSetpoint = outerLoop.calculate(setpoint, measurement).getOutput();
-      
-            return innerLoop.calculate(intermediateSetpoint, measurement);
+            double measured = measurement;
+
+            return ()-> calculateOutput(measured);
         }
 
         @Override
         public ControlResult calculate(Double measurement) {
-            var intermediateSetpoint = outerLoop.calculate(setpoint, measurement).getOutput();
-      
-            return innerLoop.calculate(intermediateSetpoint, measurement);
+            double measured = measurement;
+
+            return ()-> calculateOutput(measured);
+        }
+
+        /**
+         * Calculates the output right away, without boxing nor allocating a result.
+         * @param setpoint the new setpoint
+         * @param measurement the current measurement
+         * @return the output
+         */
+        public double calculateOutput(double setpoint, double measurement){
+            this.setpoint = setpoint;
+
+            return calculateOutput(measurement);
+        }
+
+        /**
+         * Calculates the output right away, without boxing nor allocating a result.
+         * @param measurement the current measurement
+         * @return the output
+         */
+        public double calculateOutput(double measurement){
+            double intermediateSetpoint = outerLoop.calculateOutput(setpoint, measurement);
+
+            return innerLoop.calculateOutput(intermediateSetpoint, measurement);
         }
 
         @Override
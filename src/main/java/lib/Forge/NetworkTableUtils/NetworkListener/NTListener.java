@@ -1,7 +1,13 @@
 package lib.Forge.NetworkTableUtils.NetworkListener;
 
-import java.util.Arrays;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.EnumSet;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
@@ -18,370 +24,378 @@ import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableEvent;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableType;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.util.struct.Struct;
 import edu.wpi.first.wpilibj.util.Color;
-import lib.Forge.NetworkTableUtils.NetworkMultipleData.NTPublisher;
 
 /**
- * A generic NetworkTables listener that listens for value updates of a given type.
+ * A NetworkTables listener that keeps the latest value of an entry.
+ * <p>
+ * The value is decoded straight from the {@link NetworkTableEvent} on the NetworkTables listener
+ * thread and handed to the robot thread through a single-slot mailbox, so {@link #getValue()},
+ * {@link #hasChanged()} and {@link #poll()} never lock nor read the entry again. Updates with the
+ * same value as the last one, or with a value of another type, are ignored.
  * 
  * @param <T> The type of data being monitored.
  */
 public class NTListener<T> {
-    private final String tableName;
-    private final String key;
-    private final Class<T> type;
-    private T lastValue;
-    private boolean changed = false;
-
-    private NTListener(String tableName, String key, Class<T> type, T defaultValue) {
-        this.tableName = tableName;
-        this.key = key;
-        this.type = type;
-        this.lastValue = defaultValue;
+
+    private final Function<NetworkTableValue, T> decoder;
+    private final AtomicReference<T> latest;
+    private final AtomicBoolean changed = new AtomicBoolean(false);
+    private final int listenerHandle;
+
+    private NTListener(String tableName, String key, Function<NetworkTableValue, T> decoder, T defaultValue) {
+        this.decoder = decoder;
+        this.latest = new AtomicReference<>(defaultValue);
 
         NetworkTableInstance inst = NetworkTableInstance.getDefault();
         NetworkTable table = inst.getTable(tableName);
         NetworkTableEntry entry = table.getEntry(key);
 
+        this.listenerHandle = inst.addListener(
+            entry,
+            EnumSet.of(NetworkTableEvent.Kind.kValueAll, NetworkTableEvent.Kind.kImmediate),
+            this::onEvent);
+    }
+
+    /**
+     * Runs on the NetworkTables listener thread, the only writer of the mailbox.
+     */
+    private void onEvent(NetworkTableEvent event) {
+        if (event.valueData == null) {
+            return;
+        }
 
-        inst.addListener(entry, EnumSet.of(NetworkTableEvent.Kind.kValueAll), event-> {
-            T newValue = getValue();
-            if (!areEqual(lastValue, newValue)) {
-                lastValue = newValue;
-                changed = true;
-            }
-        });
+        T newValue;
 
+        try {
+            newValue = decoder.apply(event.valueData.value);
+        } catch (RuntimeException e) {
+            System.err.println("[NTListener] Could not decode " + event.valueData.getTopic().getName());
+            return;
+        }
+
+        if (newValue == null || Objects.deepEquals(latest.get(), newValue)) {
+            return;
+        }
+
+        latest.set(newValue);
+        changed.set(true);
     }
+
     //Factory methods for different data types
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Double> ofDouble(String tableName, String key) {
-        return new NTListener<>(tableName, key, Double.class, 0.0);
+        return new NTListener<>(tableName, key, NTListener::decodeDouble, 0.0);
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Boolean> ofBoolean(String tableName, String key) {
-        return new NTListener<>(tableName, key, Boolean.class, false);
+        return new NTListener<>(tableName, key, NTListener::decodeBoolean, false);
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<String> ofString(String tableName, String key) {
-        return new NTListener<>(tableName, key, String.class, "");
+        return new NTListener<>(tableName, key, NTListener::decodeString, "");
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<double[]> ofDoubleArray(String tableName, String key) {
-        return new NTListener<>(tableName, key, double[].class, new double[]{});
+        return new NTListener<>(tableName, key, NTListener::decodeDoubleArray, new double[]{});
     }
 
     /**
      * Creates a listener of the given data
     */
     public static NTListener<Pose2d> ofPose2d(String tableName, String key) {
-        return new NTListener<>(tableName, key, Pose2d.class, new Pose2d());
+        return ofStruct(tableName, key, Pose2d.struct, new Pose2d());
     }
 
     /**
      * Creates a listener of the given data
     */
     public static NTListener<Pose3d> ofPose3d(String tableName, String key) {
-        return new NTListener<>(tableName, key, Pose3d.class, new Pose3d());
+        return ofStruct(tableName, key, Pose3d.struct, new Pose3d());
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Translation2d> ofTranslation2d(String tableName, String key) {
-        return new NTListener<>(tableName, key, Translation2d.class, new Translation2d());
+        return ofStruct(tableName, key, Translation2d.struct, new Translation2d());
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Translation3d> ofTranslation3d(String tableName, String key) {
-        return new NTListener<>(tableName, key, Translation3d.class, new Translation3d());
+        return ofStruct(tableName, key, Translation3d.struct, new Translation3d());
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Pose2d[]> ofPose2dArray(String tableName, String key) {
-        return new NTListener<>(tableName, key, Pose2d[].class, new Pose2d[]{});
+        return ofStructArray(tableName, key, Pose2d.struct, new Pose2d[]{});
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Pose3d[]> ofPose3dArray(String tableName, String key) {
-        return new NTListener<Pose3d[]>(tableName, key, Pose3d[].class, new Pose3d[]{});
+        return ofStructArray(tableName, key, Pose3d.struct, new Pose3d[]{});
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Translation2d[]> ofTranslation2dArray(String tableName, String key) {
-        return new NTListener<>(tableName, key, Translation2d[].class, new Translation2d[]{});
+        return ofStructArray(tableName, key, Translation2d.struct, new Translation2d[]{});
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Translation3d[]> ofTranslation3dArray(String tableName, String key) {
-        return new NTListener<>(tableName, key, Translation3d[].class, new Translation3d[]{});
+        return ofStructArray(tableName, key, Translation3d.struct, new Translation3d[]{});
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Rotation2d> ofRotation2d(String tableName, String key) {
-        return new NTListener<>(tableName, key, Rotation2d.class, new Rotation2d());
+        return ofStruct(tableName, key, Rotation2d.struct, new Rotation2d());
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Rotation3d> ofRotation3d(String tableName, String key) {
-        return new NTListener<>(tableName, key, Rotation3d.class, new Rotation3d());
+        return ofStruct(tableName, key, Rotation3d.struct, new Rotation3d());
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<SwerveModuleState> ofSwerveModuleState(String tableName, String key) {
-        return new NTListener<>(tableName, key, SwerveModuleState.class, new SwerveModuleState());
+        return ofStruct(tableName, key, SwerveModuleState.struct, new SwerveModuleState());
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<SwerveModulePosition> ofSwerveModulePosition(String tableName, String key) {
-        return new NTListener<>(tableName, key, SwerveModulePosition.class, new SwerveModulePosition());
+        return ofStruct(tableName, key, SwerveModulePosition.struct, new SwerveModulePosition());
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<ChassisSpeeds> ofChassisSpeeds(String tableName, String key) {
-        return new NTListener<>(tableName, key, ChassisSpeeds.class, new ChassisSpeeds());
+        return ofStruct(tableName, key, ChassisSpeeds.struct, new ChassisSpeeds());
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Color> ofColor(String tableName, String key) {
-        return new NTListener<>(tableName, key, Color.class, new Color(0, 0, 0));
+        return new NTListener<>(tableName, key, NTListener::decodeColor, new Color(0, 0, 0));
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Transform2d> ofTransform2d(String tableName, String key) {
-        return new NTListener<>(tableName, key, Transform2d.class, new Transform2d());
+        return ofStruct(tableName, key, Transform2d.struct, new Transform2d());
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Transform3d> ofTransform3d(String tableName, String key) {
-        return new NTListener<>(tableName, key, Transform3d.class, new Transform3d());
+        return ofStruct(tableName, key, Transform3d.struct, new Transform3d());
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Rotation2d[]> ofRotation2dArray(String tableName, String key) {
-        return new NTListener<>(tableName, key, Rotation2d[].class, new Rotation2d[]{});
+        return ofStructArray(tableName, key, Rotation2d.struct, new Rotation2d[]{});
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Rotation3d[]> ofRotation3dArray(String tableName, String key) {
-        return new NTListener<>(tableName, key, Rotation3d[].class, new Rotation3d[]{});
+        return ofStructArray(tableName, key, Rotation3d.struct, new Rotation3d[]{});
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<SwerveModuleState[]> ofSwerveModuleStateArray(String tableName, String key) {
-        return new NTListener<>(tableName, key, SwerveModuleState[].class, new SwerveModuleState[]{});
+        return ofStructArray(tableName, key, SwerveModuleState.struct, new SwerveModuleState[]{});
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<SwerveModulePosition[]> ofSwerveModulePositionArray(String tableName, String key) {
-        return new NTListener<>(tableName, key, SwerveModulePosition[].class, new SwerveModulePosition[]{});
+        return ofStructArray(tableName, key, SwerveModulePosition.struct, new SwerveModulePosition[]{});
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<ChassisSpeeds[]> ofChassisSpeedsArray(String tableName, String key) {
-        return new NTListener<>(tableName, key, ChassisSpeeds[].class, new ChassisSpeeds[]{});
+        return ofStructArray(tableName, key, ChassisSpeeds.struct, new ChassisSpeeds[]{});
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Transform2d[]> ofTransform2dArray(String tableName, String key) {
-        return new NTListener<>(tableName, key, Transform2d[].class, new Transform2d[]{});
+        return ofStructArray(tableName, key, Transform2d.struct, new Transform2d[]{});
     }
 
     /**
      * Creates a listener of the given data
      */
     public static NTListener<Transform3d[]> ofTransform3dArray(String tableName, String key) {
-        return new NTListener<>(tableName, key, Transform3d[].class, new Transform3d[]{});
+        return ofStructArray(tableName, key, Transform3d.struct, new Transform3d[]{});
     }
 
     /**
-     * Checks if the value has changed since the last retrieval.
+     * Creates a listener of a struct value
+     *
+     * @param <S>          The type of the value.
+     * @param tableName    The name of the table.
+     * @param key          The key of the entry.
+     * @param struct       The struct used to deserialize the value.
+     * @param defaultValue The value until one is received.
+     * @return The listener.
+     */
+    public static <S> NTListener<S> ofStruct(String tableName, String key, Struct<S> struct, S defaultValue) {
+        return new NTListener<>(tableName, key, value -> decodeStruct(value, struct), defaultValue);
+    }
+
+    /**
+     * Creates a listener of an array of struct values
+     *
+     * @param <S>          The type of the elements.
+     * @param tableName    The name of the table.
+     * @param key          The key of the entry.
+     * @param struct       The struct used to deserialize the elements.
+     * @param defaultValue The value until one is received.
+     * @return The listener.
+     */
+    public static <S> NTListener<S[]> ofStructArray(String tableName, String key, Struct<S> struct, S[] defaultValue) {
+        return new NTListener<>(tableName, key, value -> decodeStructArray(value, struct), defaultValue);
+    }
+
+    /**
+     * Checks if the value has changed since the last check, without locking.
      * 
      * @return {@code true} if the value has changed, otherwise {@code false}.
      */
     public boolean hasChanged() {
-        if (changed) {
-            changed = false;
-            return true;
-        }
-        return false;
-    }
-
-    private synchronized boolean areEqual(T a, T b) {
-    if (a == b) {
-        return true;
-    }
-    if (a == null || b == null) {
-        return false;
-    }
-    if (a.getClass().isArray() && b.getClass().isArray()) {
-        //Handle different array types
-            if (a instanceof double[] && b instanceof double[]) {
-                return Arrays.equals((double[]) a, (double[]) b);
-            }
-            if (a instanceof Pose2d[] && b instanceof Pose2d[]) {
-                return Arrays.equals((Pose2d[]) a, (Pose2d[]) b);
-            }
-            if (a instanceof Pose3d[] && b instanceof Pose3d[]) {
-                return Arrays.equals((Pose3d[]) a, (Pose3d[]) b);
-            }
-            if (a instanceof Translation2d[] && b instanceof Translation2d[]) {
-                return Arrays.equals((Translation2d[]) a, (Translation2d[]) b);
-            }
-            if (a instanceof Translation3d[] && b instanceof Translation3d[]) {
-                return Arrays.equals((Translation3d[]) a, (Translation3d[]) b);
-            }
-            if (a instanceof Rotation2d[] && b instanceof Rotation2d[]) {
-                return Arrays.equals((Rotation2d[]) a, (Rotation2d[]) b);
-            }
-            if (a instanceof Rotation3d[] && b instanceof Rotation3d[]) {
-                return Arrays.equals((Rotation3d[]) a, (Rotation3d[]) b);
-            }
-            if (a instanceof SwerveModuleState[] && b instanceof SwerveModuleState[]) {
-                return Arrays.equals((SwerveModuleState[]) a, (SwerveModuleState[]) b);
-            }
-            if (a instanceof SwerveModulePosition[] && b instanceof SwerveModulePosition[]) {
-                return Arrays.equals((SwerveModulePosition[]) a, (SwerveModulePosition[]) b);
-            }
-            if (a instanceof ChassisSpeeds[] && b instanceof ChassisSpeeds[]) {
-                return Arrays.equals((ChassisSpeeds[]) a, (ChassisSpeeds[]) b);
-            }
-            if (a instanceof Transform2d[] && b instanceof Transform2d[]) {
-                return Arrays.equals((Transform2d[]) a, (Transform2d[]) b);
-            }
-            if (a instanceof Transform3d[] && b instanceof Transform3d[]) {
-                return Arrays.equals((Transform3d[]) a, (Transform3d[]) b);
-            }
-            return false; //Unsupported array type
-        }
-    
-        //Default object equality check
-        return a.equals(b);
+        return changed.getAndSet(false);
+    }
+
+    /**
+     * Takes the value if it changed since the last check, without locking.
+     *
+     * @return The latest value, or {@code null} if it did not change.
+     */
+    public T poll() {
+        return changed.getAndSet(false) ? latest.get() : null;
     }
 
     /**
-     * Retrieves the latest value from NetworkTables, ensuring proper type safety.
+     * Gets the latest value received, without locking.
      * 
-     * @return The latest value from the NetworkTable, or the last known value if retrieval fails.
-     */
-    public synchronized T getValue() {
-        Object retrievedValue = null;
-
-        if (type == Double.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Double) lastValue);
-        } else if (type == Boolean.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Boolean) lastValue);
-        } else if (type == String.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (String) lastValue);
-        } else if (type == double[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (double[]) lastValue);
-        } else if (type == Pose2d.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Pose2d) lastValue);
-        } else if (type == Pose3d.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Pose3d) lastValue);
-        } else if (type == Translation2d.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Translation2d) lastValue);
-        } else if (type == Pose2d[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Pose2d[]) lastValue);
-        } else if (type == Pose3d[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Pose3d[]) lastValue);
-        } else if (type == Translation2d[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Translation2d[]) lastValue);
-        } else if (type == Translation3d.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Translation3d) lastValue);
-        } else if (type == Translation3d[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Translation3d[]) lastValue);
-        } else if (type == Rotation2d.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Rotation2d) lastValue);
-        } else if (type == Rotation3d.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Rotation3d) lastValue);
-        } else if (type == Rotation2d[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Rotation2d[]) lastValue);
-        } else if (type == Rotation3d[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Rotation3d[]) lastValue);
-        } else if (type == SwerveModuleState.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (SwerveModuleState) lastValue);
-        } else if (type == SwerveModulePosition.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (SwerveModulePosition) lastValue);
-        } else if (type == ChassisSpeeds.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (ChassisSpeeds) lastValue);
-        } else if (type == Transform2d.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Transform2d) lastValue);
-        } else if (type == Transform3d.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Transform3d) lastValue);
-        } else if (type == Color.class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Color) lastValue);
-        } else if (type == Rotation2d[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Rotation2d[]) lastValue);
-        } else if (type == Rotation3d[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Rotation3d[]) lastValue);
-        } else if (type == SwerveModuleState[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (SwerveModuleState[]) lastValue);
-        } else if (type == SwerveModulePosition[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (SwerveModulePosition[]) lastValue);
-        } else if (type == ChassisSpeeds[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (ChassisSpeeds[]) lastValue);
-        } else if (type == Transform2d[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Transform2d[]) lastValue);
-        } else if (type == Transform3d[].class) {
-            retrievedValue = NTPublisher.retrieve(tableName, key, (Transform3d[]) lastValue);
+     * @return The latest value, or the default value if none was received.
+     */
+    public T getValue() {
+        return latest.get();
+    }
+
+    /**
+     * Stops listening for updates.
+     */
+    public void close() {
+        NetworkTableInstance.getDefault().removeListener(listenerHandle);
+    }
+
+    private static Double decodeDouble(NetworkTableValue value) {
+        switch (value.getType()) {
+            case kDouble:
+                return value.getDouble();
+            case kFloat:
+                return (double) value.getFloat();
+            case kInteger:
+                return (double) value.getInteger();
+            default:
+                return null;
         }
+    }
+
+    private static Boolean decodeBoolean(NetworkTableValue value) {
+        return value.getType() == NetworkTableType.kBoolean ? value.getBoolean() : null;
+    }
+
+    private static String decodeString(NetworkTableValue value) {
+        return value.getType() == NetworkTableType.kString ? value.getString() : null;
+    }
+
+    private static double[] decodeDoubleArray(NetworkTableValue value) {
+        return value.getType() == NetworkTableType.kDoubleArray ? value.getDoubleArray() : null;
+    }
+
+    private static Color decodeColor(NetworkTableValue value) {
+        return value.getType() == NetworkTableType.kString ? new Color(value.getString()) : null;
+    }
+
+    private static <S> S decodeStruct(NetworkTableValue value, Struct<S> struct) {
+        if (value.getType() != NetworkTableType.kRaw || value.getRaw().length != struct.getSize()) {
+            return null;
+        }
+
+        return struct.unpack(ByteBuffer.wrap(value.getRaw()).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> S[] decodeStructArray(NetworkTableValue value, Struct<S> struct) {
+        if (value.getType() != NetworkTableType.kRaw) {
+            return null;
+        }
+
+        byte[] raw = value.getRaw();
+        int size = struct.getSize();
+
+        if (size == 0 || raw.length % size != 0) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN);
+        S[] values = (S[]) Array.newInstance(struct.getTypeClass(), raw.length / size);
 
-        if (retrievedValue != null && type.isInstance(retrievedValue)) {
-            return type.cast(retrievedValue);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = struct.unpack(buffer);
         }
 
-        return lastValue;  //Fallback to the last known value if retrieval fails
+        return values;
     }
 
 }
@@ -0,0 +1,99 @@
+package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background thread writing the values staged with the {@code publishAsync} methods of the handles.
+ * <p>
+ * The robot thread only copies a snapshot of every value into a preallocated buffer, this thread
+ * does the rate limiting, change detection and NetworkTables writes. It runs at the lowest priority
+ * and wakes up on {@link #signal()}, or every {@link #kMaxFlushPeriod} seconds if nobody signals it.
+ * <p>
+ * Once a handle published asynchronously, its synchronous publishes are staged as well so only this
+ * thread writes it.
+ */
+public final class NTAsyncPublisher {
+
+    /**
+     * The longest time in seconds a staged value waits when {@link #signal()} is not called.
+     */
+    public static final double kMaxFlushPeriod = 0.02;
+
+    private static final CopyOnWriteArrayList<NTHandle> stagedHandles = new CopyOnWriteArrayList<>();
+
+    private static volatile Thread thread = null;
+
+    private NTAsyncPublisher() {
+        throw new UnsupportedOperationException("This is an utility class");
+    }
+
+    /**
+     * Adds a handle to the ones flushed by the thread, called once per handle.
+     *
+     * @param handle The handle.
+     */
+    static void register(NTHandle handle) {
+        stagedHandles.addIfAbsent(handle);
+        start();
+    }
+
+    /**
+     * Wakes the thread up to publish the values staged so far. Called by the robot thread at the
+     * end of every loop.
+     */
+    public static void signal() {
+        Thread current = thread;
+
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    /**
+     * Publishes every staged value on the calling thread.
+     */
+    public static void flush() {
+        // A handle owns the snapshot it took until its next take, only one thread can flush at a time
+        synchronized (stagedHandles) {
+            for (int i = 0; i < stagedHandles.size(); i++) {
+                try {
+                    stagedHandles.get(i).flush();
+                } catch (Exception e) {
+                    System.err.println("[NTAsyncPublisher] Error publishing " + stagedHandles.get(i).getPath());
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The amount of handles publishing asynchronously.
+     */
+    public static int getHandleCount() {
+        return stagedHandles.size();
+    }
+
+    private static synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+
+        Thread publisherThread = new Thread(NTAsyncPublisher::run, "ForgeNTAsyncPublisher");
+        publisherThread.setDaemon(true);
+        publisherThread.setPriority(Thread.MIN_PRIORITY);
+        publisherThread.start();
+
+        thread = publisherThread;
+    }
+
+    private static void run() {
+        long maxPeriodNanos = TimeUnit.MICROSECONDS.toNanos((long) (kMaxFlushPeriod * 1e6));
+
+        while (!Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(maxPeriodNanos);
+            flush();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+
+import java.util.Arrays;
+
+import edu.wpi.first.networktables.BooleanArrayPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+
+/**
+ * Pre-resolved handle for publishing an array of booleans, obtained with
+ * {@link NTPublisher#booleanArrayHandle(String, String)}.
+ */
+public final class NTBooleanArrayHandle extends NTHandle {
+
+    private final BooleanArrayPublisher publisher;
+    private final TripleBuffer<boolean[]> staged = new TripleBuffer<>(new boolean[0], new boolean[0], new boolean[0]);
+
+    private boolean[] lastValue = null;
+
+    NTBooleanArrayHandle(NetworkTable table, String key, String path) {
+        super(path);
+        this.publisher = table.getBooleanArrayTopic(key).publish();
+    }
+
+    /**
+     * Publishes a value.
+     *
+     * @param value The value to publish.
+     */
+    public void publish(boolean[] value) {
+        // Inside the rate limit window the value is staged, so the latest one is sent when it ends
+        if (isAsync() || isRateLimited()) {
+            publishAsync(value);
+            return;
+        }
+
+        write(value);
+    }
+
+    /**
+     * Copies a value to be published by {@link NTAsyncPublisher}. The array can be reused by the
+     * caller right after.
+     *
+     * @param value The value to publish.
+     */
+    public void publishAsync(boolean[] value) {
+        boolean[] snapshot = staged.getWriting();
+
+        if (snapshot.length != value.length) {
+            snapshot = new boolean[value.length];
+            staged.setWriting(snapshot);
+        }
+
+        System.arraycopy(value, 0, snapshot, 0, value.length);
+        staged.commit();
+        registerAsync();
+    }
+
+    @Override
+    void flush() {
+        if (!staged.isFresh() || isRateLimited()) {
+            return;
+        }
+
+        boolean[] snapshot = staged.take();
+
+        if (snapshot != null) {
+            write(snapshot);
+        }
+    }
+
+    private void write(boolean[] value) {
+        if (lastValue != null && detectsChanges() && Arrays.equals(value, lastValue)) {
+            return;
+        }
+
+        publisher.set(value);
+
+        if (lastValue == null || lastValue.length != value.length) {
+            lastValue = new boolean[value.length];
+        }
+
+        System.arraycopy(value, 0, lastValue, 0, value.length);
+    }
+
+    @Override
+    boolean publishes(Class<?> type, Object format) {
+        return type == NTBooleanArrayHandle.class;
+    }
+}
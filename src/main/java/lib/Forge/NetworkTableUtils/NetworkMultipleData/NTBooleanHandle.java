@@ -0,0 +1,75 @@
+package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+
+/**
+ * Pre-resolved handle for publishing a boolean value, obtained with
+ * {@link NTPublisher#booleanHandle(String, String)}.
+ */
+public final class NTBooleanHandle extends NTHandle {
+
+    private final BooleanPublisher publisher;
+
+    private volatile boolean stagedValue;
+    private volatile boolean staged = false;
+
+    private boolean published = false;
+    private boolean lastValue;
+
+    NTBooleanHandle(NetworkTable table, String key, String path) {
+        super(path);
+        this.publisher = table.getBooleanTopic(key).publish();
+    }
+
+    /**
+     * Publishes a value.
+     *
+     * @param value The value to publish.
+     */
+    public void publish(boolean value) {
+        // Inside the rate limit window the value is staged, so the latest one is sent when it ends
+        if (isAsync() || isRateLimited()) {
+            publishAsync(value);
+            return;
+        }
+
+        write(value);
+    }
+
+    /**
+     * Stages a value to be published by {@link NTAsyncPublisher}.
+     *
+     * @param value The value to publish.
+     */
+    public void publishAsync(boolean value) {
+        stagedValue = value;
+        staged = true;
+        registerAsync();
+    }
+
+    @Override
+    void flush() {
+        if (!staged || isRateLimited()) {
+            return;
+        }
+
+        staged = false;
+        write(stagedValue);
+    }
+
+    private void write(boolean value) {
+        if (published && detectsChanges() && value == lastValue) {
+            return;
+        }
+
+        publisher.set(value);
+        lastValue = value;
+        published = true;
+    }
+
+    @Override
+    boolean publishes(Class<?> type, Object format) {
+        return type == NTBooleanHandle.class;
+    }
+}
@@ -0,0 +1,112 @@
+package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+
+/**
+ * Pre-resolved handle for publishing an array of doubles, obtained with
+ * {@link NTPublisher#doubleArrayHandle(String, String)}.
+ */
+public final class NTDoubleArrayHandle extends NTHandle {
+
+    private final DoubleArrayPublisher publisher;
+    private final TripleBuffer<double[]> staged = new TripleBuffer<>(new double[0], new double[0], new double[0]);
+
+    private double[] lastValue = null;
+    private double epsilon = NTPublisher.getDefaultEpsilon();
+
+    NTDoubleArrayHandle(NetworkTable table, String key, String path) {
+        super(path);
+        this.publisher = table.getDoubleArrayTopic(key).publish();
+    }
+
+    /**
+     * Publishes a value. With change detection, arrays whose elements are all within the epsilon
+     * of the last published ones are skipped.
+     *
+     * @param value The value to publish.
+     */
+    public void publish(double[] value) {
+        // Inside the rate limit window the value is staged, so the latest one is sent when it ends
+        if (isAsync() || isRateLimited()) {
+            publishAsync(value);
+            return;
+        }
+
+        write(value);
+    }
+
+    /**
+     * Copies a value to be published by {@link NTAsyncPublisher}. The array can be reused by the
+     * caller right after.
+     *
+     * @param value The value to publish.
+     */
+    public void publishAsync(double[] value) {
+        double[] snapshot = staged.getWriting();
+
+        if (snapshot.length != value.length) {
+            snapshot = new double[value.length];
+            staged.setWriting(snapshot);
+        }
+
+        System.arraycopy(value, 0, snapshot, 0, value.length);
+        staged.commit();
+        registerAsync();
+    }
+
+    @Override
+    void flush() {
+        if (!staged.isFresh() || isRateLimited()) {
+            return;
+        }
+
+        double[] snapshot = staged.take();
+
+        if (snapshot != null) {
+            write(snapshot);
+        }
+    }
+
+    private void write(double[] value) {
+        if (lastValue != null && detectsChanges() && isUnchanged(value)) {
+            return;
+        }
+
+        publisher.set(value);
+
+        if (lastValue == null || lastValue.length != value.length) {
+            lastValue = new double[value.length];
+        }
+
+        System.arraycopy(value, 0, lastValue, 0, value.length);
+    }
+
+    private boolean isUnchanged(double[] value) {
+        if (value.length != lastValue.length) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length; i++) {
+            if (Math.abs(value[i] - lastValue[i]) > epsilon) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param epsilon The maximum difference from the last published elements considered unchanged.
+     * @return This handle for chaining.
+     */
+    public NTDoubleArrayHandle setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+        return this;
+    }
+
+    @Override
+    boolean publishes(Class<?> type, Object format) {
+        return type == NTDoubleArrayHandle.class;
+    }
+}
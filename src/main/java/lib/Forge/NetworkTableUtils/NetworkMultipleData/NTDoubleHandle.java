@@ -0,0 +1,86 @@
+package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+
+/**
+ * Pre-resolved handle for publishing a double value, obtained with
+ * {@link NTPublisher#doubleHandle(String, String)}.
+ */
+public final class NTDoubleHandle extends NTHandle {
+
+    private final DoublePublisher publisher;
+
+    private volatile double stagedValue;
+    private volatile boolean staged = false;
+
+    private boolean published = false;
+    private double lastValue;
+    private double epsilon = NTPublisher.getDefaultEpsilon();
+
+    NTDoubleHandle(NetworkTable table, String key, String path) {
+        super(path);
+        this.publisher = table.getDoubleTopic(key).publish();
+    }
+
+    /**
+     * Publishes a value. With change detection, values within the epsilon of the last published
+     * one are skipped.
+     *
+     * @param value The value to publish.
+     */
+    public void publish(double value) {
+        // Inside the rate limit window the value is staged, so the latest one is sent when it ends
+        if (isAsync() || isRateLimited()) {
+            publishAsync(value);
+            return;
+        }
+
+        write(value);
+    }
+
+    /**
+     * Stages a value to be published by {@link NTAsyncPublisher}.
+     *
+     * @param value The value to publish.
+     */
+    public void publishAsync(double value) {
+        stagedValue = value;
+        staged = true;
+        registerAsync();
+    }
+
+    @Override
+    void flush() {
+        if (!staged || isRateLimited()) {
+            return;
+        }
+
+        staged = false;
+        write(stagedValue);
+    }
+
+    private void write(double value) {
+        if (published && detectsChanges() && Math.abs(value - lastValue) <= epsilon) {
+            return;
+        }
+
+        publisher.set(value);
+        lastValue = value;
+        published = true;
+    }
+
+    /**
+     * @param epsilon The maximum difference from the last published value considered unchanged.
+     * @return This handle for chaining.
+     */
+    public NTDoubleHandle setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+        return this;
+    }
+
+    @Override
+    boolean publishes(Class<?> type, Object format) {
+        return type == NTDoubleHandle.class;
+    }
+}
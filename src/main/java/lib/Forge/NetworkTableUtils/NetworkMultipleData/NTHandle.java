@@ -0,0 +1,133 @@
+package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Base class of the pre-resolved publishing handles handed out by {@link NTPublisher}.
+ * <p>
+ * A handle is created once per NetworkTables path and already holds its typed publisher, so
+ * publishing through it does not build strings nor look anything up.
+ * <p>
+ * Handles can skip the network write when the value did not change since the last one they
+ * published. This is off by default, enabled for every handle with
+ * {@link NTPublisher#setChangeDetection(boolean)} or per handle with {@link #setChangeDetection(boolean)}.
+ * They can also be limited to a maximum publish rate with {@link #setRateLimit(double)}, values
+ * published faster than that are staged and {@link NTAsyncPublisher} sends the latest one once the
+ * limit allows it, so the last value is never lost.
+ * <p>
+ * Every handle can also publish asynchronously: {@code publishAsync} only copies the value into a
+ * preallocated buffer and {@link NTAsyncPublisher} writes it to the network from its own thread.
+ * Once a handle published asynchronously its {@code publish} calls are staged too, so the writes
+ * of a handle never race between the robot thread and the publisher thread.
+ */
+public abstract class NTHandle {
+
+    private final String path;
+
+    private volatile Boolean changeDetection = null;
+
+    private volatile long minIntervalNanos = 0;
+    private long nextPublishNanos = Long.MIN_VALUE;
+
+    private final AtomicBoolean asyncRegistered = new AtomicBoolean(false);
+
+    NTHandle(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return The full NetworkTables path of the handle, as table/key.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Overrides the global change detection mode for this handle.
+     *
+     * @param enabled Whether unchanged values should be skipped.
+     * @return This handle for chaining.
+     */
+    public NTHandle setChangeDetection(boolean enabled) {
+        this.changeDetection = enabled;
+        return this;
+    }
+
+    /**
+     * Makes this handle follow the global change detection mode again.
+     */
+    public void clearChangeDetection() {
+        this.changeDetection = null;
+    }
+
+    /**
+     * @return Whether unchanged values are currently skipped by this handle.
+     */
+    public boolean detectsChanges() {
+        Boolean override = changeDetection;
+        return override != null ? override : NTPublisher.isChangeDetectionEnabled();
+    }
+
+    /**
+     * Limits how often this handle writes to the network.
+     *
+     * @param rateHz The maximum rate in Hz, 0 removes the limit.
+     * @return This handle for chaining.
+     */
+    public NTHandle setRateLimit(double rateHz) {
+        this.minIntervalNanos = rateHz > 0 ? (long) (1e9 / rateHz) : 0;
+        return this;
+    }
+
+    /**
+     * Checks the rate limit, consuming the publish slot if the value can be published.
+     *
+     * @return true if the value must wait for the next slot.
+     */
+    final boolean isRateLimited() {
+        long interval = minIntervalNanos;
+
+        if (interval == 0) {
+            return false;
+        }
+
+        long now = System.nanoTime();
+
+        if (now < nextPublishNanos) {
+            return true;
+        }
+
+        nextPublishNanos = now + interval;
+        return false;
+    }
+
+    /**
+     * @return true if a value was ever staged, from then on only {@link NTAsyncPublisher} writes.
+     */
+    final boolean isAsync() {
+        return asyncRegistered.get();
+    }
+
+    /**
+     * Registers the handle with {@link NTAsyncPublisher} the first time a value is staged.
+     */
+    final void registerAsync() {
+        if (!asyncRegistered.get() && asyncRegistered.compareAndSet(false, true)) {
+            NTAsyncPublisher.register(this);
+        }
+    }
+
+    /**
+     * Publishes the last staged value, if any. Called by {@link NTAsyncPublisher}.
+     */
+    abstract void flush();
+
+    /**
+     * Checks that this handle can be reused for another request of the same path.
+     *
+     * @param type   The handle class requested.
+     * @param format The struct or value type requested.
+     * @return true if this handle publishes the same type.
+     */
+    abstract boolean publishes(Class<?> type, Object format);
+}
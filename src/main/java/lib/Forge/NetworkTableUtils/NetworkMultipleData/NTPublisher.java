@@ -3,6 +3,7 @@ package lib.Forge.NetworkTableUtils.NetworkMultipleData;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
@@ -15,14 +16,20 @@ import edu.wpi.first.math.geometry.Translation3d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.networktables.BooleanArraySubscriber;
+import edu.wpi.first.networktables.BooleanSubscriber;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoubleSubscriber;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.networktables.StructArrayPublisher;
+import edu.wpi.first.networktables.StringArraySubscriber;
+import edu.wpi.first.networktables.StringSubscriber;
 import edu.wpi.first.networktables.StructArraySubscriber;
-import edu.wpi.first.networktables.StructPublisher;
 import edu.wpi.first.networktables.StructSubscriber;
+import edu.wpi.first.networktables.Subscriber;
 import edu.wpi.first.util.sendable.Sendable;
 import edu.wpi.first.util.sendable.SendableRegistry;
+import edu.wpi.first.util.struct.Struct;
 import edu.wpi.first.wpilibj.smartdashboard.SendableBuilderImpl;
 import edu.wpi.first.wpilibj.util.Color;
 
@@ -63,6 +70,10 @@ import edu.wpi.first.wpilibj.util.Color;
  *   <li>{@code Color}</li>
  *   <li>{@code Sendable}</li>
  * </ul>
+ *
+ * <p>Every path is resolved once into an {@link NTHandle}. Code publishing the same key every loop
+ * should keep the handle returned by {@link #handle} or {@link #arrayHandle} instead of calling
+ * {@code publish}, which has to build the path and look the handle up on every call.</p>
  */
 public class NTPublisher{
 
@@ -70,81 +81,217 @@ public class NTPublisher{
    
     private static final Map<String, Sendable> sendables = new HashMap<>();
 
+    private static final ConcurrentHashMap<String, NTHandle> handles = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<SubscriberKey, Subscriber> subscribers = new ConcurrentHashMap<>();
 
-    //Publishers
-    private static final ConcurrentHashMap<String, StructPublisher<Translation2d>> t2 = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String,StructArrayPublisher<Translation2d>> at2 = new ConcurrentHashMap<>();
+    // A path can be read as different types, every type gets its own subscriber
+    private record SubscriberKey(String path, Class<?> type, Object format) {}
 
-    private static final ConcurrentHashMap<String, StructPublisher<Translation3d>> t3 = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String,StructArrayPublisher<Translation3d>> at3 = new ConcurrentHashMap<>();
+    private static volatile boolean changeDetection = false;
+    private static volatile double defaultEpsilon = 0.0;
 
-    private static final ConcurrentHashMap<String, StructPublisher<Transform2d>> tf2 = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String,StructArrayPublisher<Transform2d>> atf2 = new ConcurrentHashMap<>();
+    private NTPublisher(){
+        throw new UnsupportedOperationException("This is an Utility class");
+    }
 
-    private static final ConcurrentHashMap<String, StructPublisher<Transform3d>> tf3 = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String,StructArrayPublisher<Transform3d>> atf3 = new ConcurrentHashMap<>();
+    public static String fullPathOf(String table, String key){
+        return table + "/" + key;
+    }
 
-    private static final ConcurrentHashMap<String, StructPublisher<Pose2d>> p2 = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArrayPublisher<Pose2d>> ap2 = new ConcurrentHashMap<>();
+    /**
+     * Enables or disables change detection for every handle that does not override it. While
+     * enabled, values equal to the last one published at a path are not written to the network:
+     * primitives are compared directly, doubles within their epsilon and structs field by field.
+     *
+     * @param enabled Whether unchanged values should be skipped.
+     */
+    public static void setChangeDetection(boolean enabled){
+        changeDetection = enabled;
+    }
 
-    private static final ConcurrentHashMap<String, StructPublisher<Pose3d>> p3 = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArrayPublisher<Pose3d>> ap3 = new ConcurrentHashMap<>();
+    /**
+     * @return Whether change detection is enabled globally.
+     */
+    public static boolean isChangeDetectionEnabled(){
+        return changeDetection;
+    }
 
-    private static final ConcurrentHashMap<String, StructPublisher<Rotation2d>> r2 = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String,StructArrayPublisher<Rotation2d>> ar2 = new ConcurrentHashMap<>();
+    /**
+     * Sets the epsilon used by double handles created after this call to decide if a value changed.
+     *
+     * @param epsilon The maximum difference considered unchanged.
+     */
+    public static void setDefaultEpsilon(double epsilon){
+        defaultEpsilon = epsilon;
+    }
 
-    private static final ConcurrentHashMap<String, StructPublisher<Rotation3d>> r3 = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String,StructArrayPublisher<Rotation3d>> ar3 = new ConcurrentHashMap<>();
+    /**
+     * @return The epsilon given to new double handles.
+     */
+    public static double getDefaultEpsilon(){
+        return defaultEpsilon;
+    }
 
-    private static final ConcurrentHashMap<String, StructPublisher<ChassisSpeeds>> cS = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String,StructArrayPublisher<ChassisSpeeds>> acS = new ConcurrentHashMap<>();
+    /**
+     * Limits how often the value at a path is written to the network, see {@link NTHandle#setRateLimit(double)}.
+     *
+     * @param tableName The name of the table.
+     * @param key       The key for the entry.
+     * @param rateHz    The maximum rate in Hz, 0 removes the limit.
+     * @return false if nothing has been published at the path yet.
+     */
+    public static boolean setRateLimit(String tableName, String key, double rateHz){
+        NTHandle handle = handles.get(fullPathOf(tableName, key));
 
-    private static final ConcurrentHashMap<String, StructPublisher<SwerveModuleState>> State = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String,StructArrayPublisher<SwerveModuleState>> aState = new ConcurrentHashMap<>();
+        if (handle == null) {
+            return false;
+        }
 
-    private static final ConcurrentHashMap<String, StructPublisher<SwerveModulePosition>> Pos = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String,StructArrayPublisher<SwerveModulePosition>> aPos = new ConcurrentHashMap<>();
+        handle.setRateLimit(rateHz);
+        return true;
+    }
 
-    //Subscribers
-    private static final ConcurrentHashMap<String, StructSubscriber<Translation2d>> t2P = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArraySubscriber<Translation2d>> at2P = new ConcurrentHashMap<>();
+    /**
+     * Gets the handle for publishing a struct value at a path, creating it the first time.
+     * Meant to be called once and kept, publishing through the handle does not build strings
+     * nor look anything up.
+     *
+     * @param <T>       The type of the value.
+     * @param tableName The name of the table.
+     * @param key       The key for the entry.
+     * @param struct    The struct used to serialize the value.
+     * @return The handle of the path.
+     * @throws IllegalArgumentException If the path is already published with another type.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> NTStructHandle<T> handle(String tableName, String key, Struct<T> struct){
+        return (NTStructHandle<T>) resolve(tableName, key, NTStructHandle.class, struct,
+            path -> new NTStructHandle<>(ntInstance.getTable(tableName), key, struct, path));
+    }
 
-    private static final ConcurrentHashMap<String, StructSubscriber<Translation3d>> t3P = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArraySubscriber<Translation3d>> at3P = new ConcurrentHashMap<>();
+    /**
+     * Gets the handle for publishing an array of struct values at a path, creating it the first time.
+     * Meant to be called once and kept, publishing through the handle does not build strings
+     * nor look anything up.
+     *
+     * @param <T>       The type of the elements.
+     * @param tableName The name of the table.
+     * @param key       The key for the entry.
+     * @param struct    The struct used to serialize the elements.
+     * @return The handle of the path.
+     * @throws IllegalArgumentException If the path is already published with another type.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> NTStructArrayHandle<T> arrayHandle(String tableName, String key, Struct<T> struct){
+        return (NTStructArrayHandle<T>) resolve(tableName, key, NTStructArrayHandle.class, struct,
+            path -> new NTStructArrayHandle<>(ntInstance.getTable(tableName), key, struct, path));
+    }
 
-    private static final ConcurrentHashMap<String, StructSubscriber<Transform2d>> tf2P = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArraySubscriber<Transform2d>> atf2P = new ConcurrentHashMap<>();
+    /**
+     * Gets the handle for publishing a double value at a path, creating it the first time.
+     *
+     * @param tableName The name of the table.
+     * @param key       The key for the entry.
+     * @return The handle of the path.
+     * @throws IllegalArgumentException If the path is already published with another type.
+     */
+    public static NTDoubleHandle doubleHandle(String tableName, String key){
+        return (NTDoubleHandle) resolve(tableName, key, NTDoubleHandle.class, null,
+            path -> new NTDoubleHandle(ntInstance.getTable(tableName), key, path));
+    }
 
-    private static final ConcurrentHashMap<String, StructSubscriber<Transform3d>> tf3P = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArraySubscriber<Transform3d>> atf3P = new ConcurrentHashMap<>();
+    /**
+     * Gets the handle for publishing a boolean value at a path, creating it the first time.
+     *
+     * @param tableName The name of the table.
+     * @param key       The key for the entry.
+     * @return The handle of the path.
+     * @throws IllegalArgumentException If the path is already published with another type.
+     */
+    public static NTBooleanHandle booleanHandle(String tableName, String key){
+        return (NTBooleanHandle) resolve(tableName, key, NTBooleanHandle.class, null,
+            path -> new NTBooleanHandle(ntInstance.getTable(tableName), key, path));
+    }
 
-    private static final ConcurrentHashMap<String, StructSubscriber<Pose2d>> p2P = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArraySubscriber<Pose2d>> ap2P = new ConcurrentHashMap<>();
+    /**
+     * Gets the handle for publishing a String value at a path, creating it the first time.
+     *
+     * @param tableName The name of the table.
+     * @param key       The key for the entry.
+     * @return The handle of the path.
+     * @throws IllegalArgumentException If the path is already published with another type.
+     */
+    public static NTStringHandle stringHandle(String tableName, String key){
+        return (NTStringHandle) resolve(tableName, key, NTStringHandle.class, null,
+            path -> new NTStringHandle(ntInstance.getTable(tableName), key, path));
+    }
 
-    private static final ConcurrentHashMap<String, StructSubscriber<Pose3d>> p3P = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArraySubscriber<Pose3d>> ap3P = new ConcurrentHashMap<>();
+    /**
+     * Gets the handle for publishing an array of doubles at a path, creating it the first time.
+     *
+     * @param tableName The name of the table.
+     * @param key       The key for the entry.
+     * @return The handle of the path.
+     * @throws IllegalArgumentException If the path is already published with another type.
+     */
+    public static NTDoubleArrayHandle doubleArrayHandle(String tableName, String key){
+        return (NTDoubleArrayHandle) resolve(tableName, key, NTDoubleArrayHandle.class, null,
+            path -> new NTDoubleArrayHandle(ntInstance.getTable(tableName), key, path));
+    }
 
-    private static final ConcurrentHashMap<String, StructSubscriber<Rotation2d>> r2P = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArraySubscriber<Rotation2d>> ar2P = new ConcurrentHashMap<>();
+    /**
+     * Gets the handle for publishing an array of booleans at a path, creating it the first time.
+     *
+     * @param tableName The name of the table.
+     * @param key       The key for the entry.
+     * @return The handle of the path.
+     * @throws IllegalArgumentException If the path is already published with another type.
+     */
+    public static NTBooleanArrayHandle booleanArrayHandle(String tableName, String key){
+        return (NTBooleanArrayHandle) resolve(tableName, key, NTBooleanArrayHandle.class, null,
+            path -> new NTBooleanArrayHandle(ntInstance.getTable(tableName), key, path));
+    }
 
-    private static final ConcurrentHashMap<String, StructSubscriber<Rotation3d>> r3P = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArraySubscriber<Rotation3d>> ar3P = new ConcurrentHashMap<>();
+    /**
+     * Gets the handle for publishing an array of Strings at a path, creating it the first time.
+     *
+     * @param tableName The name of the table.
+     * @param key       The key for the entry.
+     * @return The handle of the path.
+     * @throws IllegalArgumentException If the path is already published with another type.
+     */
+    public static NTStringArrayHandle stringArrayHandle(String tableName, String key){
+        return (NTStringArrayHandle) resolve(tableName, key, NTStringArrayHandle.class, null,
+            path -> new NTStringArrayHandle(ntInstance.getTable(tableName), key, path));
+    }
 
-    private static final ConcurrentHashMap<String, StructSubscriber<ChassisSpeeds>> cSP = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArraySubscriber<ChassisSpeeds>> acSP = new ConcurrentHashMap<>();
+    private static NTHandle resolve(String tableName, String key, Class<?> type, Object format, Function<String, NTHandle> factory){
 
-    private static final ConcurrentHashMap<String, StructSubscriber<SwerveModuleState>> StateP = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArraySubscriber<SwerveModuleState>> aStateP = new ConcurrentHashMap<>();
+        NTHandle handle = handles.computeIfAbsent(fullPathOf(tableName, key), factory);
 
-    private static final ConcurrentHashMap<String, StructSubscriber<SwerveModulePosition>> PosP = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, StructArraySubscriber<SwerveModulePosition>> aPosP = new ConcurrentHashMap<>();
+        if (!handle.publishes(type, format)) {
+            throw new IllegalArgumentException("[NTPublisher] " + handle.getPath() + " is already published with another type");
+        }
 
-    private NTPublisher(){
-        throw new UnsupportedOperationException("This is an Utility class");
+        return handle;
     }
 
-    public static String fullPathOf(String table, String key){
-        return table + "/" + key;
+    private static <S extends Subscriber> S typedSubscriber(String tableName, String key, Class<S> type, Function<NetworkTable, S> factory){
+        return type.cast(subscribers.computeIfAbsent(new SubscriberKey(fullPathOf(tableName, key), type, null), k -> factory.apply(ntInstance.getTable(tableName))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> StructSubscriber<T> subscriber(String tableName, String key, Struct<T> struct, T defaultValue){
+        return (StructSubscriber<T>) subscribers.computeIfAbsent(new SubscriberKey(fullPathOf(tableName, key), StructSubscriber.class, struct), k ->
+            ntInstance.getTable(tableName).getStructTopic(key, struct).subscribe(defaultValue)
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> StructArraySubscriber<T> arraySubscriber(String tableName, String key, Struct<T> struct, T[] defaultValue){
+        return (StructArraySubscriber<T>) subscribers.computeIfAbsent(new SubscriberKey(fullPathOf(tableName, key), StructArraySubscriber.class, struct), k ->
+            ntInstance.getTable(tableName).getStructArrayTopic(key, struct).subscribe(defaultValue)
+        );
     }
 
     /**
@@ -155,7 +302,7 @@ public class NTPublisher{
      * @param value     The double value to publish.
      */
     public static void publish(String tableName, String key, double value){
-        ntInstance.getTable(tableName).getEntry(key).setDouble(value);
+        doubleHandle(tableName, key).publish(value);
     }
 
     /**
@@ -166,7 +313,7 @@ public class NTPublisher{
      * @param value     The boolean value to publish.
      */
     public static void publish(String tableName, String key, boolean value){
-        ntInstance.getTable(tableName).getEntry(key).setBoolean(value);
+        booleanHandle(tableName, key).publish(value);
     }
 
     /**
@@ -177,7 +324,7 @@ public class NTPublisher{
      * @param value     The String value to publish.
      */
     public static void publish(String tableName, String key, String value){
-        ntInstance.getTable(tableName).getEntry(key).setString(value);
+        stringHandle(tableName, key).publish(value);
     }
 
     /**
@@ -188,7 +335,7 @@ public class NTPublisher{
      * @param value     The double array to publish.
      */
     public static void publish(String tableName, String key, double[] value){
-        ntInstance.getTable(tableName).getEntry(key).setDoubleArray(value);
+        doubleArrayHandle(tableName, key).publish(value);
     }
 
     /**
@@ -199,7 +346,7 @@ public class NTPublisher{
      * @param value     The boolean array to publish.
      */
     public static void publish(String tableName, String key, boolean[] value){
-        ntInstance.getTable(tableName).getEntry(key).setBooleanArray(value);
+        booleanArrayHandle(tableName, key).publish(value);
     }
 
     /**
@@ -210,7 +357,7 @@ public class NTPublisher{
      * @param value     The String array to publish.
      */
     public static void publish(String tableName, String key, String[] value){
-        ntInstance.getTable(tableName).getEntry(key).setStringArray(value);
+        stringArrayHandle(tableName, key).publish(value);
     }
 
     /**
@@ -222,11 +369,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, ChassisSpeeds value){
         
-        StructPublisher<ChassisSpeeds> subscriber = cS.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructTopic(key, ChassisSpeeds.struct).publish()
-        );
-
-        subscriber.set(value);
+        handle(tableName, key, ChassisSpeeds.struct).publish(value);
 
     }
 
@@ -239,11 +382,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, ChassisSpeeds[] value){
         
-        StructArrayPublisher<ChassisSpeeds> subscriber = acS.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructArrayTopic(key, ChassisSpeeds.struct).publish()
-        );
-
-        subscriber.set(value);
+        arrayHandle(tableName, key, ChassisSpeeds.struct).publish(value);
 
     }
 
@@ -256,11 +395,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Pose2d value){
         
-        StructPublisher<Pose2d> subscriber = p2.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructTopic(key, Pose2d.struct).publish()
-        );
-
-        subscriber.set(value);
+        handle(tableName, key, Pose2d.struct).publish(value);
 
     }
 
@@ -273,11 +408,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Pose2d[] value){
 
-        StructArrayPublisher<Pose2d> subscriber = ap2.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructArrayTopic(key, Pose2d.struct).publish()
-        );
-
-        subscriber.set(value);
+        arrayHandle(tableName, key, Pose2d.struct).publish(value);
     }
 
 
@@ -290,11 +421,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Pose3d value){
         
-        StructPublisher<Pose3d> subscriber = p3.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructTopic(key, Pose3d.struct).publish()
-        );
-
-        subscriber.set(value);
+        handle(tableName, key, Pose3d.struct).publish(value);
     }
 
     /**
@@ -306,11 +433,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Pose3d[] value){
         
-        StructArrayPublisher<Pose3d> subscriber = ap3.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructArrayTopic(key, Pose3d.struct).publish()
-        );
-
-        subscriber.set(value);
+        arrayHandle(tableName, key, Pose3d.struct).publish(value);
 
     }
 
@@ -323,11 +446,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Rotation2d value){
 
-        StructPublisher<Rotation2d> subscriber = r2.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructTopic(key, Rotation2d.struct).publish()
-        );
-
-        subscriber.set(value);
+        handle(tableName, key, Rotation2d.struct).publish(value);
     }
 
     /**
@@ -339,11 +458,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Rotation2d[] value){
 
-        StructArrayPublisher<Rotation2d> subscriber = ar2.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructArrayTopic(key, Rotation2d.struct).publish()
-        );
-
-        subscriber.set(value);
+        arrayHandle(tableName, key, Rotation2d.struct).publish(value);
     }
 
     /**
@@ -355,11 +470,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Rotation3d value){
         
-        StructPublisher<Rotation3d> subscriber = r3.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructTopic(key, Rotation3d.struct).publish()
-        );
-
-        subscriber.set(value);
+        handle(tableName, key, Rotation3d.struct).publish(value);
 
     }
 
@@ -372,11 +483,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Rotation3d[] value){
         
-        StructArrayPublisher<Rotation3d> subscriber = ar3.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructArrayTopic(key, Rotation3d.struct).publish()
-        );
-
-        subscriber.set(value);
+        arrayHandle(tableName, key, Rotation3d.struct).publish(value);
 
     }
 
@@ -389,11 +496,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Transform2d value){
         
-        StructPublisher<Transform2d> subscriber = tf2.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructTopic(key, Transform2d.struct).publish()
-        );
-
-        subscriber.set(value);
+        handle(tableName, key, Transform2d.struct).publish(value);
     }
 
     /**
@@ -405,11 +508,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Transform2d[] value){
         
-        StructArrayPublisher<Transform2d> subscriber = atf2.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructArrayTopic(key, Transform2d.struct).publish()
-        );
-
-        subscriber.set(value);
+        arrayHandle(tableName, key, Transform2d.struct).publish(value);
     }
 
     /**
@@ -421,11 +520,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Transform3d value){
         
-        StructPublisher<Transform3d> subscriber = tf3.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructTopic(key, Transform3d.struct).publish()
-        );
-
-        subscriber.set(value);
+        handle(tableName, key, Transform3d.struct).publish(value);
 
     }
 
@@ -438,11 +533,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Transform3d[] value){
         
-        StructArrayPublisher<Transform3d> subscriber = atf3.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructArrayTopic(key, Transform3d.struct).publish()
-        );
-
-        subscriber.set(value);
+        arrayHandle(tableName, key, Transform3d.struct).publish(value);
 
     }
 
@@ -455,11 +546,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Translation2d value){
         
-        StructPublisher<Translation2d> subscriber = t2.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructTopic(key, Translation2d.struct).publish()
-        );
-
-        subscriber.set(value);
+        handle(tableName, key, Translation2d.struct).publish(value);
     }
 
     /**
@@ -471,11 +558,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Translation2d[] value){
         
-        StructArrayPublisher<Translation2d> subscriber = at2.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructArrayTopic(key, Translation2d.struct).publish()
-        );
-
-        subscriber.set(value);
+        arrayHandle(tableName, key, Translation2d.struct).publish(value);
 
     }
 
@@ -488,11 +571,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Translation3d value){
         
-        StructPublisher<Translation3d> subscriber = t3.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructTopic(key, Translation3d.struct).publish()
-        );
-
-        subscriber.set(value);
+        handle(tableName, key, Translation3d.struct).publish(value);
 
     }
 
@@ -505,11 +584,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, Translation3d[] value){
         
-        StructArrayPublisher<Translation3d> subscriber = at3.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructArrayTopic(key, Translation3d.struct).publish()
-        );
-
-        subscriber.set(value);
+        arrayHandle(tableName, key, Translation3d.struct).publish(value);
 
     }
 
@@ -522,11 +597,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, SwerveModuleState value){
         
-        StructPublisher<SwerveModuleState> subscriber = State.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructTopic(key, SwerveModuleState.struct).publish()
-        );
-
-        subscriber.set(value);
+        handle(tableName, key, SwerveModuleState.struct).publish(value);
 
     }
 
@@ -539,11 +610,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, SwerveModuleState[] value){
 
-        StructArrayPublisher<SwerveModuleState> subscriber = aState.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructArrayTopic(key, SwerveModuleState.struct).publish()
-        );
-
-        subscriber.set(value);       
+        arrayHandle(tableName, key, SwerveModuleState.struct).publish(value);
     }
 
     /**
@@ -555,11 +622,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, SwerveModulePosition value){
         
-        StructPublisher<SwerveModulePosition> subscriber = Pos.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructTopic(key, SwerveModulePosition.struct).publish()
-        );
-
-        subscriber.set(value);
+        handle(tableName, key, SwerveModulePosition.struct).publish(value);
 
     }
 
@@ -572,11 +635,7 @@ public class NTPublisher{
      */
     public static void publish(String tableName, String key, SwerveModulePosition[] value){
         
-        StructArrayPublisher<SwerveModulePosition> subscriber = aPos.computeIfAbsent(fullPathOf(tableName, key), k ->
-            ntInstance.getTable(tableName).getStructArrayTopic(key, SwerveModulePosition.struct).publish()
-        );
-
-        subscriber.set(value); 
+        arrayHandle(tableName, key, SwerveModulePosition.struct).publish(value);
 
     }
 
@@ -609,7 +668,7 @@ public class NTPublisher{
      * @param value     The {@link Color} object to publish.
      */
     public static void publish(String tableName, String key, Color value){
-        ntInstance.getTable(tableName).getEntry(key).setString(value.toHexString());
+        stringHandle(tableName, key).publish(value.toHexString());
     }
 
     /**
@@ -631,7 +690,7 @@ public class NTPublisher{
      */
     public static double retrieve(String TableName, String key, double defaultValue){
 
-        return ntInstance.getTable(TableName).getEntry(key).getDouble(defaultValue);
+        return typedSubscriber(TableName, key, DoubleSubscriber.class, table -> table.getDoubleTopic(key).subscribe(defaultValue)).get(defaultValue);
     }
 
     /**
@@ -643,7 +702,7 @@ public class NTPublisher{
      * @return The retrieved boolean value.
      */
     public static boolean retrieve(String TableName, String key, boolean defaultValue){
-        return ntInstance.getTable(TableName).getEntry(key).getBoolean(defaultValue);
+        return typedSubscriber(TableName, key, BooleanSubscriber.class, table -> table.getBooleanTopic(key).subscribe(defaultValue)).get(defaultValue);
     }
 
     /**
@@ -655,7 +714,7 @@ public class NTPublisher{
      * @return The retrieved array of double values.
      */
     public static double[] retrieve(String TableName, String key, double[] defaultValue){
-        return ntInstance.getTable(TableName).getEntry(key).getDoubleArray(defaultValue);
+        return typedSubscriber(TableName, key, DoubleArraySubscriber.class, table -> table.getDoubleArrayTopic(key).subscribe(defaultValue)).get(defaultValue);
     }
 
     /**
@@ -667,7 +726,7 @@ public class NTPublisher{
      * @return The retrieved array of boolean values.
      */
     public static boolean[] retrieve(String TableName, String key, boolean[] defaultValue){
-        return ntInstance.getTable(TableName).getEntry(key).getBooleanArray(defaultValue);
+        return typedSubscriber(TableName, key, BooleanArraySubscriber.class, table -> table.getBooleanArrayTopic(key).subscribe(defaultValue)).get(defaultValue);
     }
 
     /**
@@ -679,7 +738,7 @@ public class NTPublisher{
      * @return The retrieved String value.
      */
     public static String retrieve(String TableName, String key, String defaultValue){
-        return ntInstance.getTable(TableName).getEntry(key).getString(defaultValue);
+        return typedSubscriber(TableName, key, StringSubscriber.class, table -> table.getStringTopic(key).subscribe(defaultValue)).get(defaultValue);
     }
 
     /**
@@ -691,7 +750,7 @@ public class NTPublisher{
      * @return The retrieved array of String values.
      */
     public static String[] retrieve(String TableName, String key, String[] defaultValue){
-        return ntInstance.getTable(TableName).getEntry(key).getStringArray(defaultValue);
+        return typedSubscriber(TableName, key, StringArraySubscriber.class, table -> table.getStringArrayTopic(key).subscribe(defaultValue)).get(defaultValue);
     }
 
     /**
@@ -704,11 +763,7 @@ public class NTPublisher{
      */
     public static Pose2d retrieve(String TableName, String key, Pose2d defaultValue){
 
-        StructSubscriber<Pose2d> subscriber = p2P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructTopic(key, Pose2d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return subscriber(TableName, key, Pose2d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -721,11 +776,7 @@ public class NTPublisher{
      */
     public static Pose2d[] retrieve(String TableName, String key, Pose2d[] defaultValue){
 
-        StructArraySubscriber<Pose2d> subscriber = ap2P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructArrayTopic(key, Pose2d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return arraySubscriber(TableName, key, Pose2d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -738,11 +789,7 @@ public class NTPublisher{
      */
     public static Pose3d retrieve(String TableName, String key, Pose3d defaultValue){
     
-        StructSubscriber<Pose3d> subscriber = p3P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructTopic(key, Pose3d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return subscriber(TableName, key, Pose3d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -755,11 +802,7 @@ public class NTPublisher{
      */
     public static Pose3d[] retrieve(String TableName, String key, Pose3d[] defaultValue){
 
-        StructArraySubscriber<Pose3d> subscriber = ap3P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructArrayTopic(key, Pose3d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return arraySubscriber(TableName, key, Pose3d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -772,11 +815,7 @@ public class NTPublisher{
      */
     public static Translation2d retrieve(String TableName, String key, Translation2d defaultValue){
 
-        StructSubscriber<Translation2d> subscriber = t2P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructTopic(key, Translation2d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return subscriber(TableName, key, Translation2d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -789,11 +828,7 @@ public class NTPublisher{
      */
     public static Translation2d[] retrieve(String TableName, String key, Translation2d[] defaultValue){
         
-        StructArraySubscriber<Translation2d> subscriber = at2P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructArrayTopic(key, Translation2d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return arraySubscriber(TableName, key, Translation2d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -806,11 +841,7 @@ public class NTPublisher{
      */
     public static Translation3d retrieve(String TableName, String key, Translation3d defaultValue){
 
-        StructSubscriber<Translation3d> subscriber = t3P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructTopic(key, Translation3d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return subscriber(TableName, key, Translation3d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -823,11 +854,7 @@ public class NTPublisher{
      */
     public static Translation3d[] retrieve(String TableName, String key, Translation3d[] defaultValue){
 
-        StructArraySubscriber<Translation3d> subscriber = at3P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructArrayTopic(key, Translation3d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return arraySubscriber(TableName, key, Translation3d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -840,11 +867,7 @@ public class NTPublisher{
      */
     public static Transform2d retrieve(String TableName, String key, Transform2d defaultValue){
 
-        StructSubscriber<Transform2d> subscriber = tf2P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructTopic(key, Transform2d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return subscriber(TableName, key, Transform2d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -857,11 +880,7 @@ public class NTPublisher{
      */
     public static Transform2d[] retrieve(String TableName, String key, Transform2d[] defaultValue){
         
-        StructArraySubscriber<Transform2d> subscriber = atf2P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructArrayTopic(key, Transform2d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return arraySubscriber(TableName, key, Transform2d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -874,11 +893,7 @@ public class NTPublisher{
      */
     public static Transform3d retrieve(String TableName, String key, Transform3d defaultValue){
         
-        StructSubscriber<Transform3d> subscriber = tf3P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructTopic(key, Transform3d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return subscriber(TableName, key, Transform3d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -891,11 +906,7 @@ public class NTPublisher{
      */
     public static Transform3d[] retrieve(String TableName, String key, Transform3d[] defaultValue){
         
-        StructArraySubscriber<Transform3d> subscriber = atf3P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructArrayTopic(key, Transform3d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return arraySubscriber(TableName, key, Transform3d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -908,11 +919,7 @@ public class NTPublisher{
      */
     public static Rotation2d retrieve(String TableName, String key, Rotation2d defaultValue){
 
-        StructSubscriber<Rotation2d> subscriber = r2P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructTopic(key, Rotation2d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return subscriber(TableName, key, Rotation2d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -925,11 +932,7 @@ public class NTPublisher{
      */
     public static Rotation2d[] retrieve(String TableName, String key, Rotation2d[] defaultValue){
 
-        StructArraySubscriber<Rotation2d> subscriber = ar2P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructArrayTopic(key, Rotation2d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return arraySubscriber(TableName, key, Rotation2d.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -942,11 +945,7 @@ public class NTPublisher{
      */
     public static Rotation3d retrieve(String TableName, String key, Rotation3d defaultValue){
         
-        StructSubscriber<Rotation3d> subscriber = r3P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructTopic(key, Rotation3d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return subscriber(TableName, key, Rotation3d.struct, defaultValue).get(defaultValue);
 
     }
 
@@ -960,11 +959,7 @@ public class NTPublisher{
      */
     public static Rotation3d[] retrieve(String TableName, String key, Rotation3d[] defaultValue){
         
-        StructArraySubscriber<Rotation3d> subscriber = ar3P.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructArrayTopic(key, Rotation3d.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return arraySubscriber(TableName, key, Rotation3d.struct, defaultValue).get(defaultValue);
 
     }
 
@@ -978,11 +973,7 @@ public class NTPublisher{
      */
     public static ChassisSpeeds retrieve(String TableName, String key, ChassisSpeeds defaultValue){
 
-        StructSubscriber<ChassisSpeeds> subscriber = cSP.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructTopic(key, ChassisSpeeds.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return subscriber(TableName, key, ChassisSpeeds.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -995,11 +986,7 @@ public class NTPublisher{
      */
     public static ChassisSpeeds[] retrieve(String TableName, String key, ChassisSpeeds[] defaultValue){
 
-        StructArraySubscriber<ChassisSpeeds> subscriber = acSP.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructArrayTopic(key, ChassisSpeeds.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return arraySubscriber(TableName, key, ChassisSpeeds.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -1012,11 +999,7 @@ public class NTPublisher{
      */
     public static SwerveModuleState retrieve(String TableName, String key, SwerveModuleState defaultValue){
 
-        StructSubscriber<SwerveModuleState> subscriber = StateP.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructTopic(key, SwerveModuleState.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return subscriber(TableName, key, SwerveModuleState.struct, defaultValue).get(defaultValue);
 
     }
 
@@ -1030,11 +1013,7 @@ public class NTPublisher{
      */
     public static SwerveModuleState[] retrieve(String TableName, String key, SwerveModuleState[] defaultValue){
         
-        StructArraySubscriber<SwerveModuleState> subscriber = aStateP.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructArrayTopic(key, SwerveModuleState.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return arraySubscriber(TableName, key, SwerveModuleState.struct, defaultValue).get(defaultValue);
 
     }
 
@@ -1048,11 +1027,7 @@ public class NTPublisher{
      */
     public static SwerveModulePosition retrieve(String TableName, String key, SwerveModulePosition defaultValue){
 
-        StructSubscriber<SwerveModulePosition> subscriber = PosP.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructTopic(key, SwerveModulePosition.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return subscriber(TableName, key, SwerveModulePosition.struct, defaultValue).get(defaultValue);
     }
 
     /**
@@ -1065,11 +1040,7 @@ public class NTPublisher{
      */
     public static SwerveModulePosition[] retrieve(String TableName, String key, SwerveModulePosition[] defaultValue){
         
-        StructArraySubscriber<SwerveModulePosition> subscriber = aPosP.computeIfAbsent(fullPathOf(TableName, key), k ->
-            ntInstance.getTable(TableName).getStructArrayTopic(key, SwerveModulePosition.struct).subscribe(defaultValue)
-        );
-
-        return subscriber.get();
+        return arraySubscriber(TableName, key, SwerveModulePosition.struct, defaultValue).get(defaultValue);
 
     }
 
@@ -1082,7 +1053,7 @@ public class NTPublisher{
      * @return The retrieved {@link Color} object.
      */
     public static Color retrieve(String TableName, String key, Color defaultValue){
-        return new Color(ntInstance.getTable(TableName).getEntry(key).getString(defaultValue.toHexString()));
+        return new Color(retrieve(TableName, key, defaultValue.toHexString()));
     } 
 
 }
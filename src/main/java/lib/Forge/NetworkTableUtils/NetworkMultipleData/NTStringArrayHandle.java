@@ -0,0 +1,84 @@
+package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+
+import java.util.Arrays;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.StringArrayPublisher;
+
+/**
+ * Pre-resolved handle for publishing an array of Strings, obtained with
+ * {@link NTPublisher#stringArrayHandle(String, String)}.
+ */
+public final class NTStringArrayHandle extends NTHandle {
+
+    private final StringArrayPublisher publisher;
+    private final TripleBuffer<String[]> staged = new TripleBuffer<>(new String[0], new String[0], new String[0]);
+
+    private String[] lastValue = null;
+
+    NTStringArrayHandle(NetworkTable table, String key, String path) {
+        super(path);
+        this.publisher = table.getStringArrayTopic(key).publish();
+    }
+
+    /**
+     * Publishes a value.
+     *
+     * @param value The value to publish.
+     */
+    public void publish(String[] value) {
+        // Inside the rate limit window the value is staged, so the latest one is sent when it ends
+        if (isAsync() || isRateLimited()) {
+            publishAsync(value);
+            return;
+        }
+
+        write(value);
+    }
+
+    /**
+     * Copies a value to be published by {@link NTAsyncPublisher}. The array can be reused by the
+     * caller right after.
+     *
+     * @param value The value to publish.
+     */
+    public void publishAsync(String[] value) {
+        String[] snapshot = staged.getWriting();
+
+        if (snapshot.length != value.length) {
+            snapshot = new String[value.length];
+            staged.setWriting(snapshot);
+        }
+
+        System.arraycopy(value, 0, snapshot, 0, value.length);
+        staged.commit();
+        registerAsync();
+    }
+
+    @Override
+    void flush() {
+        if (!staged.isFresh() || isRateLimited()) {
+            return;
+        }
+
+        String[] snapshot = staged.take();
+
+        if (snapshot != null) {
+            write(snapshot);
+        }
+    }
+
+    private void write(String[] value) {
+        if (lastValue != null && detectsChanges() && Arrays.equals(value, lastValue)) {
+            return;
+        }
+
+        publisher.set(value);
+        lastValue = value.clone();
+    }
+
+    @Override
+    boolean publishes(Class<?> type, Object format) {
+        return type == NTStringArrayHandle.class;
+    }
+}
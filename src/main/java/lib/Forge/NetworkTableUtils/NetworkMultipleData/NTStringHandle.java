@@ -0,0 +1,77 @@
+package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+
+import java.util.Objects;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.StringPublisher;
+
+/**
+ * Pre-resolved handle for publishing a String value, obtained with
+ * {@link NTPublisher#stringHandle(String, String)}.
+ */
+public final class NTStringHandle extends NTHandle {
+
+    private final StringPublisher publisher;
+
+    private volatile String stagedValue;
+    private volatile boolean staged = false;
+
+    private boolean published = false;
+    private String lastValue;
+
+    NTStringHandle(NetworkTable table, String key, String path) {
+        super(path);
+        this.publisher = table.getStringTopic(key).publish();
+    }
+
+    /**
+     * Publishes a value.
+     *
+     * @param value The value to publish.
+     */
+    public void publish(String value) {
+        // Inside the rate limit window the value is staged, so the latest one is sent when it ends
+        if (isAsync() || isRateLimited()) {
+            publishAsync(value);
+            return;
+        }
+
+        write(value);
+    }
+
+    /**
+     * Stages a value to be published by {@link NTAsyncPublisher}.
+     *
+     * @param value The value to publish.
+     */
+    public void publishAsync(String value) {
+        stagedValue = value;
+        staged = true;
+        registerAsync();
+    }
+
+    @Override
+    void flush() {
+        if (!staged || isRateLimited()) {
+            return;
+        }
+
+        staged = false;
+        write(stagedValue);
+    }
+
+    private void write(String value) {
+        if (published && detectsChanges() && Objects.equals(value, lastValue)) {
+            return;
+        }
+
+        publisher.set(value);
+        lastValue = value;
+        published = true;
+    }
+
+    @Override
+    boolean publishes(Class<?> type, Object format) {
+        return type == NTStringHandle.class;
+    }
+}
@@ -0,0 +1,108 @@
+package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+
+import java.nio.ByteBuffer;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.RawPublisher;
+import edu.wpi.first.util.struct.Struct;
+
+/**
+ * Pre-resolved handle for publishing an array of struct values, obtained with
+ * {@link NTPublisher#arrayHandle(String, String, Struct)}.
+ *
+ * @param <T> The type of the elements.
+ */
+public final class NTStructArrayHandle<T> extends NTHandle {
+
+    private final Struct<T> struct;
+    private final StructChangeDetector<T> changeDetector;
+    private final RawPublisher publisher;
+    // Only the element references are staged, the values are packed by the publisher thread
+    private final TripleBuffer<Object[]> staged = new TripleBuffer<>(new Object[0], new Object[0], new Object[0]);
+
+    NTStructArrayHandle(NetworkTable table, String key, Struct<T> struct, String path) {
+        super(path);
+        this.struct = struct;
+        this.changeDetector = new StructChangeDetector<>(struct);
+        // Published raw so the bytes packed for change detection are the ones sent
+        table.getInstance().addSchema(struct);
+        this.publisher = table.getRawTopic(key).publish(struct.getTypeString() + "[]");
+    }
+
+    /**
+     * Publishes an array of values. With change detection, arrays whose packed fields are
+     * identical to the last published ones are skipped.
+     *
+     * @param value The values to publish.
+     */
+    public void publish(T[] value) {
+        // Inside the rate limit window the value is staged, so the latest one is sent when it ends
+        if (isAsync() || isRateLimited()) {
+            publishAsync(value);
+            return;
+        }
+
+        write(changeDetector.pack(value));
+    }
+
+    /**
+     * Stages an array of values to be packed and published by {@link NTAsyncPublisher}, nothing is
+     * serialized on the calling thread. The element references are copied, so the array can be
+     * reused by the caller right after, but the elements must not be mutated.
+     *
+     * @param value The values to publish.
+     */
+    public void publishAsync(T[] value) {
+        Object[] snapshot = staged.getWriting();
+
+        if (snapshot.length != value.length) {
+            snapshot = new Object[value.length];
+            staged.setWriting(snapshot);
+        }
+
+        System.arraycopy(value, 0, snapshot, 0, value.length);
+        staged.commit();
+        registerAsync();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void flush() {
+        if (!staged.isFresh() || isRateLimited()) {
+            return;
+        }
+
+        Object[] snapshot = staged.take();
+
+        if (snapshot != null) {
+            // T[] erases to Object[], the elements are only read
+            write(changeDetector.pack((T[]) snapshot));
+        }
+    }
+
+    private void write(ByteBuffer packed) {
+        if (detectsChanges()) {
+            if (!changeDetector.changed()) {
+                return;
+            }
+
+            changeDetector.commit();
+        } else {
+            changeDetector.invalidate();
+        }
+
+        publisher.set(packed, 0, packed.limit());
+    }
+
+    /**
+     * @return The struct used to serialize the elements.
+     */
+    public Struct<T> getStruct() {
+        return struct;
+    }
+
+    @Override
+    boolean publishes(Class<?> type, Object format) {
+        return type == NTStructArrayHandle.class && format == struct;
+    }
+}
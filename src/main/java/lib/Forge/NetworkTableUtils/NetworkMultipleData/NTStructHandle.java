@@ -0,0 +1,100 @@
+package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+
+import java.nio.ByteBuffer;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.RawPublisher;
+import edu.wpi.first.util.struct.Struct;
+
+/**
+ * Pre-resolved handle for publishing a struct value, obtained with
+ * {@link NTPublisher#handle(String, String, Struct)}.
+ *
+ * @param <T> The type of the value.
+ */
+public final class NTStructHandle<T> extends NTHandle {
+
+    private final Struct<T> struct;
+    private final StructChangeDetector<T> changeDetector;
+    private final RawPublisher publisher;
+    // Only the reference is staged, the value is packed by the publisher thread
+    private final TripleBuffer<Object[]> staged = new TripleBuffer<>(new Object[1], new Object[1], new Object[1]);
+
+    NTStructHandle(NetworkTable table, String key, Struct<T> struct, String path) {
+        super(path);
+        this.struct = struct;
+        this.changeDetector = new StructChangeDetector<>(struct);
+        // Published raw so the bytes packed for change detection are the ones sent
+        table.getInstance().addSchema(struct);
+        this.publisher = table.getRawTopic(key).publish(struct.getTypeString());
+    }
+
+    /**
+     * Publishes a value. With change detection, values whose packed fields are identical to the
+     * last published ones are skipped.
+     *
+     * @param value The value to publish.
+     */
+    public void publish(T value) {
+        // Inside the rate limit window the value is staged, so the latest one is sent when it ends
+        if (isAsync() || isRateLimited()) {
+            publishAsync(value);
+            return;
+        }
+
+        write(changeDetector.pack(value));
+    }
+
+    /**
+     * Stages a value to be packed and published by {@link NTAsyncPublisher}, nothing is serialized
+     * on the calling thread. The value must not be mutated afterwards, like the immutable geometry
+     * classes.
+     *
+     * @param value The value to publish.
+     */
+    public void publishAsync(T value) {
+        staged.getWriting()[0] = value;
+        staged.commit();
+        registerAsync();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void flush() {
+        if (!staged.isFresh() || isRateLimited()) {
+            return;
+        }
+
+        Object[] snapshot = staged.take();
+
+        if (snapshot != null) {
+            write(changeDetector.pack((T) snapshot[0]));
+        }
+    }
+
+    private void write(ByteBuffer packed) {
+        if (detectsChanges()) {
+            if (!changeDetector.changed()) {
+                return;
+            }
+
+            changeDetector.commit();
+        } else {
+            changeDetector.invalidate();
+        }
+
+        publisher.set(packed, 0, packed.limit());
+    }
+
+    /**
+     * @return The struct used to serialize the value.
+     */
+    public Struct<T> getStruct() {
+        return struct;
+    }
+
+    @Override
+    boolean publishes(Class<?> type, Object format) {
+        return type == NTStructHandle.class && format == struct;
+    }
+}
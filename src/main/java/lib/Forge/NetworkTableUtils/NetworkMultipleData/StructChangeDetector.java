@@ -0,0 +1,99 @@
+package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import edu.wpi.first.util.struct.Struct;
+
+/**
+ * Packs struct values and detects if they changed by comparing the packed bytes against the last
+ * published ones, which compares every field without knowing the type. Both buffers are reused,
+ * and the packed bytes are the ones written to the network.
+ *
+ * @param <T> The type of the value.
+ */
+final class StructChangeDetector<T> {
+
+    private final Struct<T> struct;
+
+    private ByteBuffer current = ByteBuffer.allocate(0);
+    private ByteBuffer previous = ByteBuffer.allocate(0);
+    private boolean hasPrevious = false;
+
+    StructChangeDetector(Struct<T> struct) {
+        this.struct = struct;
+    }
+
+    /**
+     * Packs a value as the current one.
+     *
+     * @param value The value.
+     * @return The packed bytes, valid until the next pack.
+     */
+    ByteBuffer pack(T value) {
+        current = ensureCapacity(current, struct.getSize());
+        struct.pack(current, value);
+        current.flip();
+        return current;
+    }
+
+    /**
+     * Packs an array of values as the current one.
+     *
+     * @param values The values.
+     * @return The packed bytes, valid until the next pack.
+     */
+    ByteBuffer pack(T[] values) {
+        current = ensureCapacity(current, struct.getSize() * values.length);
+
+        for (T value : values) {
+            struct.pack(current, value);
+        }
+
+        current.flip();
+        return current;
+    }
+
+    /**
+     * @return true if the current value differs from the last committed one or there is nothing
+     *         to compare with.
+     */
+    boolean changed() {
+        return !hasPrevious || current.mismatch(previous) != -1;
+    }
+
+    /**
+     * Keeps the current value as the one published.
+     */
+    void commit() {
+        ByteBuffer swap = previous;
+        previous = current;
+        current = swap;
+        hasPrevious = true;
+    }
+
+    /**
+     * Forgets the last published value, used when a value is published without comparing it.
+     */
+    void invalidate() {
+        hasPrevious = false;
+    }
+
+    /**
+     * Makes a little endian buffer of at least the given size ready to be written from position 0
+     * up to the size.
+     *
+     * @param buffer The buffer to reuse if big enough.
+     * @param size   The amount of bytes to write.
+     * @return The buffer, or a new one if it was too small.
+     */
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int size) {
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+}
@@ -0,0 +1,76 @@
+package lib.Forge.NetworkTableUtils.NetworkMultipleData;
+
+/**
+ * Hands the latest snapshot written by one thread to another thread without copying it.
+ * <p>
+ * The writer fills {@link #getWriting()} and calls {@link #commit()}, the reader calls
+ * {@link #take()} and owns the returned buffer until its next take. Neither side ever waits on the
+ * other for longer than swapping two references, and unread snapshots are replaced by newer ones.
+ *
+ * @param <B> The type of the buffers.
+ */
+final class TripleBuffer<B> {
+
+    private B writing;
+    private B pending;
+    private B reading;
+
+    private boolean fresh = false;
+
+    TripleBuffer(B first, B second, B third) {
+        this.writing = first;
+        this.pending = second;
+        this.reading = third;
+    }
+
+    /**
+     * @return The buffer to fill, owned by the writer until {@link #commit()}.
+     */
+    B getWriting() {
+        return writing;
+    }
+
+    /**
+     * Replaces the buffer to fill, used by the writer when it needs a bigger one.
+     *
+     * @param buffer The new buffer.
+     */
+    void setWriting(B buffer) {
+        this.writing = buffer;
+    }
+
+    /**
+     * Makes the filled buffer the latest snapshot.
+     */
+    synchronized void commit() {
+        B swap = pending;
+        pending = writing;
+        writing = swap;
+        fresh = true;
+    }
+
+    /**
+     * @return true if a snapshot was committed since the last take.
+     */
+    synchronized boolean isFresh() {
+        return fresh;
+    }
+
+    /**
+     * Takes the latest snapshot.
+     *
+     * @return The snapshot, or null if nothing was committed since the last take.
+     */
+    synchronized B take() {
+        if (!fresh) {
+            return null;
+        }
+
+        B swap = reading;
+        reading = pending;
+        pending = swap;
+        fresh = false;
+
+        return reading;
+    }
+}
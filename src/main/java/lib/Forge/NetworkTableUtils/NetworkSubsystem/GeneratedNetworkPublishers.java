@@ -0,0 +1,35 @@
+package lib.Forge.NetworkTableUtils.NetworkSubsystem;
+
+import lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.TelemetryPriority;
+
+/**
+ * Implemented by the classes generated at compile time for every subsystem with
+ * {@code @AutoNetworkPublisher} methods. The generated class is named
+ * {@code <Subsystem>_NetworkPublishers}, lives in the package of the subsystem and calls every
+ * annotated method directly, so {@link NetworkSubsystem} does not need reflection to publish them.
+ *
+ * @param <S> The subsystem type.
+ */
+public interface GeneratedNetworkPublishers<S extends NetworkSubsystem> {
+
+    /**
+     * Receives the publishers created by the generated class.
+     */
+    @FunctionalInterface
+    interface Registrar {
+        void register(Runnable publisher, double rateHz, TelemetryPriority priority);
+    }
+
+    /**
+     * Creates the publisher of every annotated method of the subsystem.
+     *
+     * @param subsystem The subsystem.
+     * @param registrar Receives every publisher.
+     */
+    void register(S subsystem, Registrar registrar);
+
+    /**
+     * The suffix of the generated class names.
+     */
+    String kSuffix = "_NetworkPublishers";
+}
@@ -12,6 +12,10 @@ import java.lang.annotation.Target;
  * <p>This annotation can be applied to methods that are intended to automatically publish their return values to
  * a specific NetworkTables entry. The {@code key} provides the name of the entry in NetworkTables where the data
  * will be published.</p>
+ *
+ * <p>By default the value is published every loop. {@code rateHz} lowers how often it is published and
+ * {@code priority} decides if it can be postponed when the loop is short on time, e.g.
+ * {@code @AutoNetworkPublisher(key = "Info", rateHz = 1, priority = TelemetryPriority.LOW)}.</p>
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
@@ -22,4 +26,18 @@ public @interface AutoNetworkPublisher{
      * @return The key for the NetworkTables entry.
      */
     String key();
+
+    /**
+     * The target rate in Hz at which the value is published, 0 publishes every loop.
+     *
+     * @return The publish rate.
+     */
+    double rateHz() default 0;
+
+    /**
+     * The priority of the publisher.
+     *
+     * @return The priority.
+     */
+    TelemetryPriority priority() default TelemetryPriority.HIGH;
 }
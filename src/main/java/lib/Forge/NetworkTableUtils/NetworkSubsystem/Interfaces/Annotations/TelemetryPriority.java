@@ -0,0 +1,14 @@
+package lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations;
+
+/**
+ * Priority of a telemetry publisher, used by the {@code TelemetryScheduler} to decide what runs
+ * first and what can wait for a later loop.
+ */
+public enum TelemetryPriority {
+    /** Runs first, every time it is due. */
+    HIGH,
+    /** Runs after the high priority publishers, every time it is due. */
+    NORMAL,
+    /** Runs last and only while the loop has time left, otherwise waits for the next loop. */
+    LOW
+}
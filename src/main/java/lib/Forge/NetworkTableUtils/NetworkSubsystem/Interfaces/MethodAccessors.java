@@ -0,0 +1,131 @@
+package lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Turns reflected methods into suppliers that can be called every loop.
+ * <p>
+ * The suppliers are built once with {@link LambdaMetafactory}, so calling them costs the same as a
+ * lambda calling the method directly and the JIT can inline them. If the lambda cannot be created
+ * the supplier falls back to a bound {@link MethodHandle}, which is still faster than
+ * {@link Method#invoke} and does not box primitive results.
+ */
+public final class MethodAccessors {
+
+    private MethodAccessors() {
+        throw new UnsupportedOperationException("This is an utility class");
+    }
+
+    /**
+     * Creates a supplier calling a no-arg method returning an object.
+     *
+     * @param <T>      The return type of the method.
+     * @param instance The instance to call the method on.
+     * @param method   The method.
+     * @return The supplier.
+     * @throws ReflectiveOperationException If the method cannot be accessed.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Supplier<T> supplier(Object instance, Method method) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = lookup(method.getDeclaringClass());
+        MethodHandle handle = lookup.unreflect(method);
+
+        try {
+            return (Supplier<T>) bind(lookup, handle, instance, Supplier.class, "get",
+                MethodType.methodType(Object.class), MethodType.methodType(method.getReturnType()));
+        } catch (Throwable e) {
+            MethodHandle bound = handle.bindTo(instance).asType(MethodType.methodType(Object.class));
+
+            return () -> {
+                try {
+                    return (T) bound.invokeExact();
+                } catch (Throwable t) {
+                    throw new RuntimeException(t);
+                }
+            };
+        }
+    }
+
+    /**
+     * Creates a supplier calling a no-arg method returning a double.
+     *
+     * @param instance The instance to call the method on.
+     * @param method   The method.
+     * @return The supplier.
+     * @throws ReflectiveOperationException If the method cannot be accessed.
+     */
+    public static DoubleSupplier doubleSupplier(Object instance, Method method) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = lookup(method.getDeclaringClass());
+        MethodHandle handle = lookup.unreflect(method);
+
+        try {
+            return (DoubleSupplier) bind(lookup, handle, instance, DoubleSupplier.class, "getAsDouble",
+                MethodType.methodType(double.class), MethodType.methodType(double.class));
+        } catch (Throwable e) {
+            MethodHandle bound = handle.bindTo(instance).asType(MethodType.methodType(double.class));
+
+            return () -> {
+                try {
+                    return (double) bound.invokeExact();
+                } catch (Throwable t) {
+                    throw new RuntimeException(t);
+                }
+            };
+        }
+    }
+
+    /**
+     * Creates a supplier calling a no-arg method returning a boolean.
+     *
+     * @param instance The instance to call the method on.
+     * @param method   The method.
+     * @return The supplier.
+     * @throws ReflectiveOperationException If the method cannot be accessed.
+     */
+    public static BooleanSupplier booleanSupplier(Object instance, Method method) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = lookup(method.getDeclaringClass());
+        MethodHandle handle = lookup.unreflect(method);
+
+        try {
+            return (BooleanSupplier) bind(lookup, handle, instance, BooleanSupplier.class, "getAsBoolean",
+                MethodType.methodType(boolean.class), MethodType.methodType(boolean.class));
+        } catch (Throwable e) {
+            MethodHandle bound = handle.bindTo(instance).asType(MethodType.methodType(boolean.class));
+
+            return () -> {
+                try {
+                    return (boolean) bound.invokeExact();
+                } catch (Throwable t) {
+                    throw new RuntimeException(t);
+                }
+            };
+        }
+    }
+
+    private static MethodHandles.Lookup lookup(Class<?> owner) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+    }
+
+    private static Object bind(MethodHandles.Lookup lookup, MethodHandle handle, Object instance,
+                               Class<?> functionalInterface, String methodName,
+                               MethodType erasedType, MethodType instantiatedType) throws Throwable {
+
+        CallSite site = LambdaMetafactory.metafactory(
+            lookup,
+            methodName,
+            MethodType.methodType(functionalInterface, handle.type().parameterType(0)),
+            erasedType,
+            handle,
+            instantiatedType);
+
+        return site.getTarget().invoke(instance);
+    }
+}
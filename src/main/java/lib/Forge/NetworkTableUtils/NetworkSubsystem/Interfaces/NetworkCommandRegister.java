@@ -26,7 +26,7 @@ public final class NetworkCommandRegister{
                         String path = annotation.value().isEmpty() ? "NetworkCommands/" + field.getName() : annotation.value();
                         NTPublisher.publish(table, path, command);
                     }
-                } catch (IllegalAccessException e) {
+                } catch (Exception e) {
                     e.printStackTrace();
                 }
             }
@@ -1,27 +1,43 @@
 package lib.Forge.NetworkTableUtils.NetworkSubsystem;
 
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import lib.Forge.NetworkTableUtils.NetworkMultipleData.NTAsyncPublisher;
+import lib.Forge.NetworkTableUtils.NetworkMultipleData.NTBooleanArrayHandle;
+import lib.Forge.NetworkTableUtils.NetworkMultipleData.NTBooleanHandle;
+import lib.Forge.NetworkTableUtils.NetworkMultipleData.NTDoubleArrayHandle;
+import lib.Forge.NetworkTableUtils.NetworkMultipleData.NTDoubleHandle;
 import lib.Forge.NetworkTableUtils.NetworkMultipleData.NTPublisher;
+import lib.Forge.NetworkTableUtils.NetworkMultipleData.NTStringArrayHandle;
+import lib.Forge.NetworkTableUtils.NetworkMultipleData.NTStringHandle;
+import lib.Forge.NetworkTableUtils.NetworkMultipleData.NTStructArrayHandle;
+import lib.Forge.NetworkTableUtils.NetworkMultipleData.NTStructHandle;
 import lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.*;
 import lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.AutoNetworkPublisher;
 import edu.wpi.first.math.geometry.*;
 import edu.wpi.first.math.kinematics.*;
 import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.struct.Struct;
 import edu.wpi.first.wpilibj.util.Color;
 
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 public abstract class NetworkSubsystem extends SubsystemBase{
 
-    private static final Set<Runnable> registeredPublishers = new HashSet<>();
+    private static final List<NetworkSubsystem> instances = new CopyOnWriteArrayList<>();
+
+    private final TelemetryScheduler registeredPublishers = new TelemetryScheduler(NetworkSubsystem.kDefaultPeriod);
     private final String tableName;
 
     public static final double kDefaultPeriod = 0.02;
 
     public NetworkSubsystem(String tableName, boolean subsystemInfo) {
         this.tableName = tableName;
+        instances.add(this);
         registerAnnotatedPublishers();
         NetworkCommandRegister.registerNetworkCommands(tableName, this);
         NTPublisher.publish(tableName, "TableKey", getTableKey());
@@ -40,92 +56,133 @@ public abstract class NetworkSubsystem extends SubsystemBase{
         return tableName;
     }
 
+    /**
+     * Gets every NetworkSubsystem created, in creation order.
+     * @return an unmodifiable view of the subsystems
+     */
+    public static List<NetworkSubsystem> getInstances(){
+        return Collections.unmodifiableList(instances);
+    }
+
+    /**
+     * Gets the amount of publishers registered by this subsystem
+     * @return the amount of publishers
+     */
+    public int getPublisherCount(){
+        return registeredPublishers.size();
+    }
+
+    /**
+     * Gets the scheduler running the publishers of this subsystem on its periodic()
+     * @return the scheduler
+     */
+    public TelemetryScheduler getTelemetryScheduler(){
+        return registeredPublishers;
+    }
+
     private void registerAnnotatedPublishers() {
 
-        clearPublishers();
-        
-        if (!registeredPublishers.isEmpty()) {
-            System.err.println("[NetworkSubsystem] WARNING: registerAnnotatedPublishers() Overloop!");
+        if (registerGeneratedPublishers()) {
             return;
         }
-    
+
         for (Method method : this.getClass().getDeclaredMethods()) {
             if (!method.isAnnotationPresent(AutoNetworkPublisher.class)) continue;
     
-            String key = method.getAnnotation(AutoNetworkPublisher.class).key();
+            AutoNetworkPublisher annotation = method.getAnnotation(AutoNetworkPublisher.class);
+            String key = annotation.key();
             
-            method.setAccessible(true);
-    
-            Supplier<?> supplier = () -> {
-                try { return method.invoke(this); }
-                catch (Exception e) { e.printStackTrace(); return null; }
-            };
-    
             Class<?> returnType = method.getReturnType();
     
             try {
                 if (returnType == Pose2d.class) {
-            
-                   registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (Pose2d) supplier.get()));
+                    registerStructPublisher(method, annotation, Pose2d.struct);
 
                 } else if (returnType == Pose2d[].class) {
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (Pose2d[]) supplier.get()));
+                    registerStructArrayPublisher(method, annotation, Pose2d.struct);
 
                 } else if (returnType == Pose3d.class) {
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (Pose3d) supplier.get()));
+                    registerStructPublisher(method, annotation, Pose3d.struct);
 
                 } else if (returnType == Pose3d[].class) {
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (Pose3d[]) supplier.get()));
+                    registerStructArrayPublisher(method, annotation, Pose3d.struct);
 
                 } else if (returnType == Rotation2d.class) {
-                    
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (Rotation2d) supplier.get()));
+                    registerStructPublisher(method, annotation, Rotation2d.struct);
 
                 } else if (returnType == Rotation2d[].class) {
-    
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (Rotation2d[]) supplier.get()));
-                
+                    registerStructArrayPublisher(method, annotation, Rotation2d.struct);
+
                 } else if (returnType == Rotation3d.class) {
-           
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (Rotation3d) supplier.get()));
+                    registerStructPublisher(method, annotation, Rotation3d.struct);
 
                 } else if (returnType == Translation2d.class) {
+                    registerStructPublisher(method, annotation, Translation2d.struct);
 
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (Translation2d) supplier.get()));
+                } else if (returnType == Translation2d[].class) {
+                    registerStructArrayPublisher(method, annotation, Translation2d.struct);
 
-                }else if(returnType == Translation2d[].class){
-                    
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (Translation2d[]) supplier.get()));
-                }
-                else if (returnType == Translation3d.class) {
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (Translation3d) supplier.get()));
+                } else if (returnType == Translation3d.class) {
+                    registerStructPublisher(method, annotation, Translation3d.struct);
 
-                }
-                else if(returnType == Translation3d[].class){
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (Translation3d[]) supplier.get()));
+                } else if (returnType == Translation3d[].class) {
+                    registerStructArrayPublisher(method, annotation, Translation3d.struct);
 
-                }
-                else if (returnType == ChassisSpeeds.class) {
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (ChassisSpeeds) supplier.get()));
+                } else if (returnType == ChassisSpeeds.class) {
+                    registerStructPublisher(method, annotation, ChassisSpeeds.struct);
 
                 } else if (returnType == SwerveModuleState[].class) {
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (SwerveModuleState[]) supplier.get()));
+                    registerStructArrayPublisher(method, annotation, SwerveModuleState.struct);
 
                 } else if (returnType == SwerveModulePosition[].class) {
+                    registerStructArrayPublisher(method, annotation, SwerveModulePosition.struct);
+
+                } else if (returnType == double[].class) {
+                    NTDoubleArrayHandle handle = NTPublisher.doubleArrayHandle(getTableKey(), key);
+                    Supplier<double[]> supplier = MethodAccessors.supplier(this, method);
+                    registerPublisher(()-> handle.publishAsync(supplier.get()), annotation);
+
+                } else if (returnType == double.class) {
+                    NTDoubleHandle handle = NTPublisher.doubleHandle(getTableKey(), key);
+                    DoubleSupplier supplier = MethodAccessors.doubleSupplier(this, method);
+                    registerPublisher(()-> handle.publishAsync(supplier.getAsDouble()), annotation);
+
+                } else if (returnType == Double.class) {
+                    NTDoubleHandle handle = NTPublisher.doubleHandle(getTableKey(), key);
+                    Supplier<Double> supplier = MethodAccessors.supplier(this, method);
+                    registerPublisher(()-> {
+                        Double value = supplier.get();
+                        if (value != null) handle.publishAsync(value);
+                    }, annotation);
+
+                } else if (returnType == boolean.class) {
+                    NTBooleanHandle handle = NTPublisher.booleanHandle(getTableKey(), key);
+                    BooleanSupplier supplier = MethodAccessors.booleanSupplier(this, method);
+                    registerPublisher(()-> handle.publishAsync(supplier.getAsBoolean()), annotation);
+
+                } else if (returnType == Boolean.class) {
+                    NTBooleanHandle handle = NTPublisher.booleanHandle(getTableKey(), key);
+                    Supplier<Boolean> supplier = MethodAccessors.supplier(this, method);
+                    registerPublisher(()-> {
+                        Boolean value = supplier.get();
+                        if (value != null) handle.publishAsync(value);
+                    }, annotation);
+
+                } else if (returnType == boolean[].class) {
+                    NTBooleanArrayHandle handle = NTPublisher.booleanArrayHandle(getTableKey(), key);
+                    Supplier<boolean[]> supplier = MethodAccessors.supplier(this, method);
+                    registerPublisher(()-> handle.publishAsync(supplier.get()), annotation);
+
+                } else if (returnType == String.class) {
+                    NTStringHandle handle = NTPublisher.stringHandle(getTableKey(), key);
+                    Supplier<String> supplier = MethodAccessors.supplier(this, method);
+                    registerPublisher(()-> handle.publishAsync(supplier.get()), annotation);
+
+                } else if (returnType == String[].class) {
+                    NTStringArrayHandle handle = NTPublisher.stringArrayHandle(getTableKey(), key);
+                    Supplier<String[]> supplier = MethodAccessors.supplier(this, method);
+                    registerPublisher(()-> handle.publishAsync(supplier.get()), annotation);
 
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (SwerveModulePosition[]) supplier.get()));
-
-                } else if (returnType == double[].class || returnType == Double[].class) {
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (double[]) supplier.get()));
-
-                } else if (returnType == double.class || returnType == Double.class) {
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (double) supplier.get()));
-                    
-                } else if (returnType == boolean.class || returnType == Boolean.class) {
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (boolean) supplier.get()));
-
-                } else if (returnType == Boolean[].class || returnType == boolean[].class) {
-                    registerPublisher(()-> NTPublisher.publish(getTableKey(), key, (double[]) supplier.get()));
                 } else {
                     System.err.println("[AutoNetworkPublisher] Not Supported Data type! " + returnType.getSimpleName());
                 }
@@ -137,8 +194,49 @@ public abstract class NetworkSubsystem extends SubsystemBase{
         }
     }
     
-    private void registerPublisher(Runnable publisher) {
-        registeredPublishers.add(publisher);
+    /**
+     * Registers the publishers generated at compile time for this subsystem, if they exist.
+     * @return true if the generated publishers were found and registered
+     */
+    @SuppressWarnings("unchecked")
+    private boolean registerGeneratedPublishers() {
+
+        String packageName = getClass().getPackageName();
+        String flatName = getClass().getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_');
+        String generatedName = (packageName.isEmpty() ? "" : packageName + ".") + flatName + GeneratedNetworkPublishers.kSuffix;
+
+        try {
+            Class<?> generatedClass = Class.forName(generatedName, true, getClass().getClassLoader());
+
+            GeneratedNetworkPublishers<NetworkSubsystem> generated =
+                (GeneratedNetworkPublishers<NetworkSubsystem>) generatedClass.getDeclaredConstructor().newInstance();
+
+            generated.register(this, registeredPublishers::register);
+            return true;
+
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (Exception e) {
+            System.err.println("[AutoNetworkPublisher] Error loading generated publishers: " + generatedName);
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private <T> void registerStructPublisher(Method method, AutoNetworkPublisher annotation, Struct<T> struct) throws ReflectiveOperationException {
+        NTStructHandle<T> handle = NTPublisher.handle(getTableKey(), annotation.key(), struct);
+        Supplier<T> supplier = MethodAccessors.supplier(this, method);
+        registerPublisher(()-> handle.publishAsync(supplier.get()), annotation);
+    }
+
+    private <T> void registerStructArrayPublisher(Method method, AutoNetworkPublisher annotation, Struct<T> struct) throws ReflectiveOperationException {
+        NTStructArrayHandle<T> handle = NTPublisher.arrayHandle(getTableKey(), annotation.key(), struct);
+        Supplier<T[]> supplier = MethodAccessors.supplier(this, method);
+        registerPublisher(()-> handle.publishAsync(supplier.get()), annotation);
+    }
+
+    private void registerPublisher(Runnable publisher, AutoNetworkPublisher annotation) {
+        registeredPublishers.register(publisher, annotation.rateHz(), annotation.priority());
     }
 
     /**
@@ -147,7 +245,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, double value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.doubleHandle(getTableKey(), key).publishAsync(value);
     }
 
     /**
@@ -156,7 +254,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, double[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.doubleArrayHandle(getTableKey(), key).publishAsync(value);
     }
 
     /**
@@ -165,7 +263,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, boolean value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.booleanHandle(getTableKey(), key).publishAsync(value);
     }
 
     /**
@@ -174,7 +272,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, boolean[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.booleanArrayHandle(getTableKey(), key).publishAsync(value);
     }
 
     /**
@@ -183,7 +281,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, String value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.stringHandle(getTableKey(), key).publishAsync(value);
     }
 
     /**
@@ -192,7 +290,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, String[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.stringArrayHandle(getTableKey(), key).publishAsync(value);
     }
 
     /**
@@ -201,7 +299,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Color value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.stringHandle(getTableKey(), key).publishAsync(value.toHexString());
     }
 
     /**
@@ -210,7 +308,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Pose2d value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.handle(getTableKey(), key, Pose2d.struct).publishAsync(value);
     }
 
     /**
@@ -219,7 +317,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Pose2d[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.arrayHandle(getTableKey(), key, Pose2d.struct).publishAsync(value);
     }
 
     /**
@@ -228,7 +326,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Pose3d value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.handle(getTableKey(), key, Pose3d.struct).publishAsync(value);
     }
 
     /**
@@ -237,7 +335,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Pose3d[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.arrayHandle(getTableKey(), key, Pose3d.struct).publishAsync(value);
     }
 
     /**
@@ -246,7 +344,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Rotation2d value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.handle(getTableKey(), key, Rotation2d.struct).publishAsync(value);
     }
 
     /**
@@ -255,7 +353,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Rotation2d[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.arrayHandle(getTableKey(), key, Rotation2d.struct).publishAsync(value);
     }
 
     /**
@@ -264,7 +362,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Rotation3d value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.handle(getTableKey(), key, Rotation3d.struct).publishAsync(value);
     }
 
     /**
@@ -273,7 +371,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Rotation3d[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.arrayHandle(getTableKey(), key, Rotation3d.struct).publishAsync(value);
     }
 
     /**
@@ -282,7 +380,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Translation2d value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.handle(getTableKey(), key, Translation2d.struct).publishAsync(value);
     }
 
     /**
@@ -291,7 +389,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Translation2d[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.arrayHandle(getTableKey(), key, Translation2d.struct).publishAsync(value);
     }
 
     /**
@@ -300,7 +398,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Translation3d value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.handle(getTableKey(), key, Translation3d.struct).publishAsync(value);
     }
 
     /**
@@ -309,7 +407,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Translation3d[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.arrayHandle(getTableKey(), key, Translation3d.struct).publishAsync(value);
     }
 
     /**
@@ -318,7 +416,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Transform2d value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.handle(getTableKey(), key, Transform2d.struct).publishAsync(value);
     }
 
     /**
@@ -327,7 +425,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
     * @param value the object to publish
     */
     public final void publishOutput(String key, Transform2d[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.arrayHandle(getTableKey(), key, Transform2d.struct).publishAsync(value);
     }
 
     /**
@@ -336,7 +434,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Transform3d value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.handle(getTableKey(), key, Transform3d.struct).publishAsync(value);
     }
 
     /**
@@ -345,7 +443,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, Transform3d[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.arrayHandle(getTableKey(), key, Transform3d.struct).publishAsync(value);
     }
 
     /**
@@ -354,7 +452,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, SwerveModulePosition value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.handle(getTableKey(), key, SwerveModulePosition.struct).publishAsync(value);
     }
 
     /**
@@ -363,7 +461,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, SwerveModulePosition[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.arrayHandle(getTableKey(), key, SwerveModulePosition.struct).publishAsync(value);
     }
 
     /**
@@ -372,7 +470,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, SwerveModuleState value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.handle(getTableKey(), key, SwerveModuleState.struct).publishAsync(value);
     }
 
     /**
@@ -381,7 +479,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, SwerveModuleState[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.arrayHandle(getTableKey(), key, SwerveModuleState.struct).publishAsync(value);
     }
 
     /**
@@ -390,7 +488,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, ChassisSpeeds value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.handle(getTableKey(), key, ChassisSpeeds.struct).publishAsync(value);
     }
 
     /**
@@ -399,7 +497,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
      * @param value the object to publish
      */
     public final void publishOutput(String key, ChassisSpeeds[] value){
-        NTPublisher.publish(getTableKey(), key, value);
+        NTPublisher.arrayHandle(getTableKey(), key, ChassisSpeeds.struct).publishAsync(value);
     }
 
     /**
@@ -702,7 +800,7 @@ public abstract class NetworkSubsystem extends SubsystemBase{
     }
 
     /**
-     * Clears all publishers
+     * Clears all publishers of this subsystem
      */
     public void clearPublishers(){
         registeredPublishers.clear();
@@ -710,9 +808,12 @@ public abstract class NetworkSubsystem extends SubsystemBase{
 
     @Override
     public final void periodic() {
-        for (Runnable publisher : registeredPublishers) publisher.run();
+        registeredPublishers.run();
 
         NetworkPeriodic();
+
+        // Publishers and publishOutput only staged their values, the NetworkTables writes run on the publisher thread
+        NTAsyncPublisher.signal();
     }
 
     /**
@@ -0,0 +1,177 @@
+package lib.Forge.NetworkTableUtils.NetworkSubsystem;
+
+import java.util.ArrayList;
+
+import edu.wpi.first.wpilibj.Timer;
+import lib.Forge.NetworkTableUtils.NetworkSubsystem.Interfaces.Annotations.TelemetryPriority;
+
+/**
+ * Runs telemetry publishers at their own rate instead of every loop.
+ * <p>
+ * Publishers with the same rate are given different phases, so a group of 1 Hz publishers is
+ * spread across the 50 loops of a second instead of all running in the same one. High and normal
+ * priority publishers run whenever they are due. Low priority publishers run last and only while
+ * the time spent on them is under the low priority budget, with at least one due publisher per
+ * loop so they are never starved; the rest stay due and run first on the next loop.
+ */
+public class TelemetryScheduler {
+
+    private static final class Task {
+        final Runnable publisher;
+        final double period;
+        double nextDue;
+
+        Task(Runnable publisher, double period, double nextDue) {
+            this.publisher = publisher;
+            this.period = period;
+            this.nextDue = nextDue;
+        }
+    }
+
+    private final double loopPeriod;
+
+    private final ArrayList<Task> highPriority = new ArrayList<>();
+    private final ArrayList<Task> normalPriority = new ArrayList<>();
+    private final ArrayList<Task> lowPriority = new ArrayList<>();
+
+    private int lowPriorityCursor = 0;
+    private long lowPriorityBudgetNanos = 1_000_000;
+
+    /**
+     * Creates a new {@link TelemetryScheduler}.
+     *
+     * @param loopPeriod The period in seconds at which {@link #run()} is called.
+     */
+    public TelemetryScheduler(double loopPeriod) {
+        this.loopPeriod = loopPeriod;
+    }
+
+    /**
+     * Registers a publisher.
+     *
+     * @param publisher The publisher.
+     * @param rateHz    The rate in Hz to run it, 0 or higher than the loop rate runs it every loop.
+     * @param priority  The priority of the publisher.
+     */
+    public void register(Runnable publisher, double rateHz, TelemetryPriority priority) {
+
+        ArrayList<Task> tasks = getTasks(priority);
+
+        double period = rateHz > 0 ? 1.0 / rateHz : 0.0;
+        double nextDue = Timer.getFPGATimestamp();
+
+        if (period > loopPeriod) {
+            int loopsPerRun = (int) Math.round(period / loopPeriod);
+            int phase = countWithPeriod(tasks, period) % loopsPerRun;
+
+            nextDue += phase * loopPeriod;
+        }
+
+        tasks.add(new Task(publisher, period, nextDue));
+    }
+
+    /**
+     * Runs every due publisher. Must be called once per loop.
+     */
+    public void run() {
+
+        double now = Timer.getFPGATimestamp();
+
+        runDue(highPriority, now);
+        runDue(normalPriority, now);
+
+        long start = System.nanoTime();
+        boolean ranLowPriority = false;
+
+        int size = lowPriority.size();
+
+        for (int i = 0; i < size; i++) {
+            if (ranLowPriority && System.nanoTime() - start > lowPriorityBudgetNanos) {
+                return;
+            }
+
+            Task task = lowPriority.get(lowPriorityCursor);
+            lowPriorityCursor = (lowPriorityCursor + 1) % size;
+
+            if (now >= task.nextDue) {
+                runTask(task, now);
+                ranLowPriority = true;
+            }
+        }
+    }
+
+    private void runDue(ArrayList<Task> tasks, double now) {
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+
+            if (now >= task.nextDue) {
+                runTask(task, now);
+            }
+        }
+    }
+
+    private void runTask(Task task, double now) {
+        task.publisher.run();
+
+        task.nextDue += task.period;
+
+        // Do not try to catch up after a long pause, keep the rate from now on
+        if (task.nextDue <= now) {
+            task.nextDue = now + task.period;
+        }
+    }
+
+    private ArrayList<Task> getTasks(TelemetryPriority priority) {
+        switch (priority) {
+            case LOW:
+                return lowPriority;
+            case NORMAL:
+                return normalPriority;
+            default:
+                return highPriority;
+        }
+    }
+
+    private static int countWithPeriod(ArrayList<Task> tasks, double period) {
+        int count = 0;
+
+        for (Task task : tasks) {
+            if (task.period == period) count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Sets the time the low priority publishers can take in a loop before the rest are postponed.
+     *
+     * @param seconds The budget in seconds.
+     */
+    public void setLowPriorityBudget(double seconds) {
+        this.lowPriorityBudgetNanos = (long) (seconds * 1e9);
+    }
+
+    /**
+     * @return The amount of registered publishers.
+     */
+    public int size() {
+        return highPriority.size() + normalPriority.size() + lowPriority.size();
+    }
+
+    /**
+     * @return true if there are no registered publishers.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes every publisher.
+     */
+    public void clear() {
+        highPriority.clear();
+        normalPriority.clear();
+        lowPriority.clear();
+        lowPriorityCursor = 0;
+    }
+}
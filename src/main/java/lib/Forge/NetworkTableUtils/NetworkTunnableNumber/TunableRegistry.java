@@ -0,0 +1,417 @@
+package lib.Forge.NetworkTableUtils.NetworkTunnableNumber;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableValue;
+import lib.Forge.Math.Constants.ProfileGains.MotionModelGains;
+import lib.Forge.Math.Constants.ProfileGains.PIDGains;
+import lib.Forge.Math.Controllers.Control.MotionModelControl;
+import lib.Forge.Math.Controllers.Control.PIDControl;
+
+/**
+ * Holds many tunable numbers under one NetworkTables prefix.
+ * <p>
+ * Unlike {@link NTTunnableNumber}, the tunables are not polled: a single listener on the prefix
+ * writes dashboard changes into a primitive array and bumps a version counter. Reading a tunable
+ * is an array read, and code that derives something from tunables (like controller gains) only has
+ * to compare the version to know if it must re-read them, see {@link #bind}.
+ * <p>
+ * {@link #update()} must be called periodically to apply the bindings, checking them costs one
+ * volatile read while nothing changes.
+ */
+public final class TunableRegistry {
+
+    /**
+     * A tunable number of the registry.
+     */
+    public static final class Tunable {
+
+        private final TunableRegistry registry;
+        private final String name;
+        private final int index;
+
+        private Tunable(TunableRegistry registry, String name, int index) {
+            this.registry = registry;
+            this.name = name;
+            this.index = index;
+        }
+
+        /**
+         * @return The current value.
+         */
+        public double get() {
+            return registry.get(index);
+        }
+
+        /**
+         * Sets the value from the robot code and publishes it.
+         *
+         * @param value The new value.
+         */
+        public void set(double value) {
+            registry.set(index, value);
+        }
+
+        /**
+         * @return The name of the tunable, relative to the prefix of the registry.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The index of the tunable in the registry.
+         */
+        public int getIndex() {
+            return index;
+        }
+    }
+
+    /**
+     * Applies a group of tunables to something when any of them changes.
+     */
+    public static final class TunableBinding {
+
+        private final TunableRegistry registry;
+        private final int[] indices;
+        private final double[] values;
+        private final Consumer<double[]> apply;
+
+        private long version;
+
+        private TunableBinding(TunableRegistry registry, int[] indices, double[] values, Consumer<double[]> apply) {
+            this.registry = registry;
+            this.indices = indices;
+            this.values = values;
+            this.apply = apply;
+            this.version = registry.getVersion();
+        }
+
+        /**
+         * Re-reads the tunables if the registry version moved, and applies them if any changed.
+         *
+         * @return true if the values were applied.
+         */
+        public boolean update() {
+            long current = registry.getVersion();
+
+            if (current == version) {
+                return false;
+            }
+
+            version = current;
+            boolean changed = false;
+
+            for (int i = 0; i < indices.length; i++) {
+                double value = registry.get(indices[i]);
+
+                if (value != values[i]) {
+                    values[i] = value;
+                    changed = true;
+                }
+            }
+
+            if (changed) {
+                apply.accept(values);
+            }
+
+            return changed;
+        }
+    }
+
+    private static TunableRegistry defaultRegistry = null;
+
+    private final NetworkTableInstance instance;
+    private final String prefix;
+
+    private final StampedLock lock = new StampedLock();
+    private final ConcurrentHashMap<String, Integer> indexByPath = new ConcurrentHashMap<>();
+    private final ArrayList<DoublePublisher> publishers = new ArrayList<>();
+    private final CopyOnWriteArrayList<TunableBinding> bindings = new CopyOnWriteArrayList<>();
+
+    private double[] values = new double[32];
+    private int size = 0;
+    private volatile long version = 0;
+
+    private long appliedVersion = 0;
+
+    /**
+     * Creates a new {@link TunableRegistry}.
+     *
+     * @param prefix The NetworkTables path holding the tunables, like "/Tuning".
+     */
+    public TunableRegistry(String prefix) {
+        this.instance = NetworkTableInstance.getDefault();
+        this.prefix = prefix.endsWith("/") ? prefix : prefix + "/";
+
+        instance.addListener(
+            new String[] {this.prefix},
+            EnumSet.of(NetworkTableEvent.Kind.kValueRemote, NetworkTableEvent.Kind.kImmediate),
+            this::onEvent);
+    }
+
+    /**
+     * @return The registry under "/Tuning", created the first time.
+     */
+    public static synchronized TunableRegistry getDefault() {
+        if (defaultRegistry == null) {
+            defaultRegistry = new TunableRegistry("/Tuning");
+        }
+
+        return defaultRegistry;
+    }
+
+    /**
+     * Runs on the NetworkTables listener thread.
+     */
+    private void onEvent(NetworkTableEvent event) {
+        if (event.valueData == null) {
+            return;
+        }
+
+        Integer index = indexByPath.get(event.valueData.getTopic().getName());
+        Double value = decodeDouble(event.valueData.value);
+
+        if (index != null && value != null) {
+            write(index, value);
+        }
+    }
+
+    /**
+     * Reads a number the dashboard may have sent as an integer or a float.
+     *
+     * @return The value, or null if it is not a number.
+     */
+    private static Double decodeDouble(NetworkTableValue value) {
+        switch (value.getType()) {
+            case kDouble:
+                return value.getDouble();
+            case kFloat:
+                return (double) value.getFloat();
+            case kInteger:
+                return (double) value.getInteger();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Registers a tunable, or gets it if the name is already registered.
+     *
+     * @param name         The name relative to the prefix, like "Drive/kP".
+     * @param defaultValue The value if NetworkTables does not have one already.
+     * @return The tunable.
+     */
+    public synchronized Tunable register(String name, double defaultValue) {
+        String path = prefix + name;
+        Integer existing = indexByPath.get(path);
+
+        if (existing != null) {
+            return new Tunable(this, name, existing);
+        }
+
+        long stamp = lock.writeLock();
+        int index;
+        double initialValue;
+        try {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            index = size++;
+
+            // Indexed before reading the value, a dashboard change in between waits for the lock
+            // and is written after it instead of being lost
+            indexByPath.put(path, index);
+
+            Double current = decodeDouble(instance.getEntry(path).getValue());
+            initialValue = current != null ? current : defaultValue;
+            values[index] = initialValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        DoublePublisher publisher = instance.getDoubleTopic(path).publish();
+        // Only if the topic has no value, to not overwrite a dashboard change since the read
+        publisher.setDefault(initialValue);
+        publishers.add(publisher);
+
+        return new Tunable(this, name, index);
+    }
+
+    /**
+     * Gets the value of a tunable without locking, unless it is being written at the same time.
+     *
+     * @param index The index of the tunable.
+     * @return The value.
+     */
+    public double get(int index) {
+        long stamp = lock.tryOptimisticRead();
+        double[] current = values;
+        double value = index < current.length ? current[index] : 0.0;
+
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = values[index];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Sets the value of a tunable from the robot code and publishes it.
+     *
+     * @param index The index of the tunable.
+     * @param value The new value.
+     */
+    public void set(int index, double value) {
+        if (write(index, value)) {
+            synchronized (this) {
+                publishers.get(index).set(value);
+            }
+        }
+    }
+
+    private boolean write(int index, double value) {
+        long stamp = lock.writeLock();
+        try {
+            if (values[index] == value) {
+                return false;
+            }
+
+            values[index] = value;
+            version++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Creates a binding calling {@code apply} with the current values of the tunables every time
+     * {@link #update()} sees one of them change.
+     *
+     * @param tunables The tunables, in the order they are passed to {@code apply}.
+     * @param apply    Receives the values, the array is reused.
+     * @return The binding.
+     */
+    public TunableBinding bind(Tunable[] tunables, Consumer<double[]> apply) {
+        int[] indices = new int[tunables.length];
+        double[] initialValues = new double[tunables.length];
+
+        for (int i = 0; i < tunables.length; i++) {
+            indices[i] = tunables[i].getIndex();
+            initialValues[i] = tunables[i].get();
+        }
+
+        TunableBinding binding = new TunableBinding(this, indices, initialValues, apply);
+        bindings.add(binding);
+
+        return binding;
+    }
+
+    /**
+     * Registers name/kP, name/kI and name/kD with the current gains of the controller as defaults,
+     * and sets the gains of the controller when they change.
+     *
+     * @param name       The name of the controller relative to the prefix.
+     * @param controller The controller.
+     * @return The binding.
+     */
+    public TunableBinding bind(String name, PIDControl controller) {
+        PIDGains gains = controller.getGains();
+
+        TunableBinding binding = bind(
+            new Tunable[] {
+                register(name + "/kP", gains.kP()),
+                register(name + "/kI", gains.kI()),
+                register(name + "/kD", gains.kD())
+            },
+            values -> controller.setGains(new PIDGains(values[0], values[1], values[2])));
+
+        binding.apply.accept(binding.values);
+        return binding;
+    }
+
+    /**
+     * Registers name/kP, name/kI, name/kD, name/maxAcceleration and name/maxVelocity with the
+     * current gains of the controller as defaults, and sets the gains of the controller when they
+     * change.
+     *
+     * @param name       The name of the controller relative to the prefix.
+     * @param controller The controller.
+     * @return The binding.
+     */
+    public TunableBinding bind(String name, MotionModelControl controller) {
+        MotionModelGains gains = controller.getGains();
+
+        TunableBinding binding = bind(
+            new Tunable[] {
+                register(name + "/kP", gains.kP()),
+                register(name + "/kI", gains.kI()),
+                register(name + "/kD", gains.kD()),
+                register(name + "/maxAcceleration", gains.maxAcceleration()),
+                register(name + "/maxVelocity", gains.maxVelocity())
+            },
+            values -> controller.setGains(new MotionModelGains(values[0], values[1], values[2], values[3], values[4])));
+
+        binding.apply.accept(binding.values);
+        return binding;
+    }
+
+    /**
+     * Applies every binding if any tunable changed since the last call. Must be called periodically.
+     */
+    public void update() {
+        long current = version;
+
+        if (current == appliedVersion) {
+            return;
+        }
+
+        appliedVersion = current;
+
+        for (int i = 0; i < bindings.size(); i++) {
+            bindings.get(i).update();
+        }
+    }
+
+    /**
+     * @return A counter increased every time a tunable changes.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The amount of registered tunables.
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return The NetworkTables prefix of the registry.
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+}
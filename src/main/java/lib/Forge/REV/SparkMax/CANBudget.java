@@ -0,0 +1,91 @@
+package lib.Forge.REV.SparkMax;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the load of the CAN bus from the frames every registered device sends per second.
+ * <p>
+ * Every {@link ForgeSparkMax} registers itself with the frames of its {@link StatusFrameProfile},
+ * other devices (CANcoders, gyros, other motor controllers) are registered with
+ * {@link #register(String, double)}. The estimate uses full frames (extended id, 8 data bytes),
+ * so it is an upper bound of the periodic traffic and does not count the control frames.
+ */
+public final class CANBudget {
+
+    /** The bit rate of the roboRIO CAN bus. */
+    public static final double kBitsPerSecond = 1_000_000;
+
+    /** The bits of an extended frame with 8 data bytes, including the worst case bit stuffing. */
+    public static final int kBitsPerFrame = 155;
+
+    /** The utilization above which frames start to be delayed or dropped. */
+    public static final double kRecommendedMaxUtilization = 0.8;
+
+    private static final Map<String, Double> framesPerSecond = new ConcurrentHashMap<>();
+
+    private CANBudget(){}
+
+    /**
+     * Registers a device, or updates it if already registered
+     * @param device a unique name of the device, like "CANcoder 5"
+     * @param frames the frames the device sends per second
+     */
+    public static void register(String device, double frames){
+        framesPerSecond.put(device, frames);
+    }
+
+    /**
+     * Removes a device from the estimate
+     * @param device the name of the device
+     */
+    public static void unregister(String device){
+        framesPerSecond.remove(device);
+    }
+
+    /**
+     * @return the frames per second of every registered device
+     */
+    public static double getFramesPerSecond(){
+        double total = 0;
+
+        for (double frames : framesPerSecond.values()) {
+            total += frames;
+        }
+
+        return total;
+    }
+
+    /**
+     * @return the estimated fraction of the bus used, from 0 to 1 or more if saturated
+     */
+    public static double getUtilization(){
+        return getFramesPerSecond() * kBitsPerFrame / kBitsPerSecond;
+    }
+
+    /**
+     * @return true if the estimate is above {@link #kRecommendedMaxUtilization}
+     */
+    public static boolean isOverBudget(){
+        return getUtilization() > kRecommendedMaxUtilization;
+    }
+
+    /**
+     * @return the frames per second and bus share of every device, sorted by name
+     */
+    public static String getReport(){
+        StringBuilder report = new StringBuilder();
+
+        for (Map.Entry<String, Double> entry : new TreeMap<>(framesPerSecond).entrySet()) {
+            report.append(String.format("%s: %.1f frames/s (%.1f%%)%n",
+                entry.getKey(),
+                entry.getValue(),
+                entry.getValue() * kBitsPerFrame / kBitsPerSecond * 100.0));
+        }
+
+        report.append(String.format("Total: %.1f frames/s (%.1f%%)", getFramesPerSecond(), getUtilization() * 100.0));
+
+        return report.toString();
+    }
+}
@@ -1,8 +1,14 @@
 package lib.Forge.REV.SparkMax;
 
+import java.util.concurrent.CompletableFuture;
+
 import com.revrobotics.REVLibError;
 import com.revrobotics.RelativeEncoder;
+import com.revrobotics.spark.ClosedLoopSlot;
+import com.revrobotics.spark.SparkClosedLoopController;
+import com.revrobotics.spark.SparkClosedLoopController.ArbFFUnits;
 import com.revrobotics.spark.SparkMax;
+import com.revrobotics.spark.config.ClosedLoopConfig.FeedbackSensor;
 import com.revrobotics.spark.config.SparkBaseConfig;
 import com.revrobotics.spark.config.SparkMaxConfig;
 import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
@@ -13,6 +19,7 @@ import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.Subsystem;
+import lib.Forge.Math.Constants.ProfileGains.PIDGains;
 
 /**
  * The ForgeSparkMax class is a wrapper for the REV SparkMax motor controller.
@@ -59,10 +66,97 @@ public class ForgeSparkMax extends SparkMax implements Sendable{
       
     }
 
+    /**
+     * A conversion of raw encoder reads resolved into a single scale and offset, so applying it is one
+     * multiply-add. Build it once with the same steps as {@link EncoderValue} and keep it, the steps
+     * create a new conversion.
+     * <pre>
+     * static final EncoderConversion turnRadians = EncoderConversion.identity().withReduction(18.75).toRadians();
+     * </pre>
+     */
+    public static final class EncoderConversion{
+
+        private static final EncoderConversion kIdentity = new EncoderConversion(1.0, 0.0);
+
+        private final double scale;
+        private final double offset;
+
+        private EncoderConversion(double scale, double offset){
+            this.scale = scale;
+            this.offset = offset;
+        }
+
+        /**
+         * @return the conversion that leaves the reads as they are
+         */
+        public static EncoderConversion identity(){
+            return kIdentity;
+        }
+
+        /**
+         * Converts a raw read
+         * @param raw the raw encoder read
+         * @return the converted value
+         */
+        public double apply(double raw){
+            return raw * scale + offset;
+        }
+
+        public EncoderConversion withReduction(double reduction){
+            return new EncoderConversion(scale / reduction, offset / reduction);
+        }
+
+        public EncoderConversion toRadians(){
+            return withConversion(2 * Math.PI);
+        }
+
+        public EncoderConversion toDegrees(){
+            return withConversion(360.0);
+        }
+
+        public EncoderConversion toRadiansPerSecond(){
+            return withConversion(2 * Math.PI / 60.0);
+        }
+
+        public EncoderConversion withConversion(double conversion){
+            return new EncoderConversion(scale * conversion, offset * conversion);
+        }
+
+        public EncoderConversion withOffset(double offset){
+            return new EncoderConversion(scale, this.offset + offset);
+        }
+
+        public EncoderConversion invert(){
+            return new EncoderConversion(-scale, -offset);
+        }
+
+        public double getScale(){
+            return scale;
+        }
+
+        public double getOffset(){
+            return offset;
+        }
+    }
+
+    /** The voltage the closed loop duty cycle is relative to, matches the voltage compensation. */
+    public static final double kNominalVoltage = 12.0;
+
     private SparkBaseConfig config;
 
     private RelativeEncoder encoder;
 
+    private SparkClosedLoopController closedLoopController;
+
+    private CompletableFuture<Void> configurationQueue = CompletableFuture.completedFuture(null);
+
+    // Last configuration written by this class, null if unknown
+    private Boolean appliedInverted = null;
+    private IdleMode appliedIdleMode = null;
+    private Integer appliedSmartCurrentLimit = null;
+    private Double appliedVoltageCompensation = null;
+    private StatusFrameProfile appliedStatusFrameProfile = null;
+
     /**
      * Constructor for the ForgeSparkMax class with default motor type (kBrushless)
      * @param deviceID the device ID of the motor controller
@@ -72,6 +166,8 @@ public class ForgeSparkMax extends SparkMax implements Sendable{
         super(deviceID, MotorType.kBrushless);
         config = new SparkMaxConfig();
         this.encoder = super.getAlternateEncoder();
+        this.closedLoopController = super.getClosedLoopController();
+        CANBudget.register(getBudgetName(), StatusFrameProfile.DEFAULT.getFramesPerSecond());
     }
 
     /**
@@ -84,6 +180,8 @@ public class ForgeSparkMax extends SparkMax implements Sendable{
         super(deviceID, motorType);
         config = new SparkMaxConfig();
         this.encoder = super.getAlternateEncoder();
+        this.closedLoopController = super.getClosedLoopController();
+        CANBudget.register(getBudgetName(), StatusFrameProfile.DEFAULT.getFramesPerSecond());
     }
 
     @Override
@@ -101,83 +199,269 @@ public class ForgeSparkMax extends SparkMax implements Sendable{
     }
 
     /**
-     * Flash the configuration of the motor controller
+     * Flash the configuration of the motor controller in the background
      * @param motorInverted true to invert the motor direction, false to not invert
      * @param idleMode the idle mode to set
      * @param currentLimit the current limit to set
      * @param voltageCompensation true to enable voltage compensation, false to disable
+     * @return a future completed when the configuration is applied
      * 
      */
-    public void flashConfiguration(boolean motorInverted, IdleMode idleMode, int currentLimit, boolean voltageCompensation){
-        super.setCANTimeout(250);
-
+    public CompletableFuture<Void> flashConfiguration(boolean motorInverted, IdleMode idleMode, int currentLimit, boolean voltageCompensation){
         encoder.setPosition(0);
 
-        config.inverted(motorInverted).
-        idleMode(idleMode).
-        smartCurrentLimit(currentLimit);
-
-        if (voltageCompensation) {
-            config.voltageCompensation(12);
-        }
-
-        config.encoder.
-        uvwAverageDepth(2).
-        uvwMeasurementPeriod(10);
-
-        super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-
-        super.setCANTimeout(0);
-
+        return reportFailure(new SparkConfigTransaction().
+        flash(this, motorInverted, idleMode, currentLimit, voltageCompensation).
+        apply());
     }
 
     /**
-     * Set the voltage compensation of the motor controller
+     * Set the voltage compensation of the motor controller in the background, does nothing if it is already set
      * @param voltage the voltage to set
+     * @return a future completed when the configuration is applied
      * 
      */
-    public void setVoltageCompensation(double voltage){
-        super.setCANTimeout(250);
-        config.voltageCompensation(voltage);
-        super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-        super.setCANTimeout(0);
+    public CompletableFuture<Void> setVoltageCompensation(double voltage){
+        return reportFailure(new SparkConfigTransaction().voltageCompensation(this, voltage).apply());
     }
 
     /**
-     * Set the smart current limit of the motor controller
+     * Set the smart current limit of the motor controller in the background, does nothing if it is already set
      * @param currentLimit the current limit to set
+     * @return a future completed when the configuration is applied
      * 
      */
-    public void setSmartCurrentLimit(int currentLimit){
-        super.setCANTimeout(250);
-        config.smartCurrentLimit(currentLimit);
-        super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-        super.setCANTimeout(0);
+    public CompletableFuture<Void> setSmartCurrentLimit(int currentLimit){
+        return reportFailure(new SparkConfigTransaction().smartCurrentLimit(this, currentLimit).apply());
     }
 
     /**
-     * Set the idle mode of the motor controller
+     * Set the idle mode of the motor controller in the background, does nothing if it is already set
      * @param idleMode the idle mode to set
+     * @return a future completed when the configuration is applied
      * 
      */
-    public void setIdleMode(IdleMode idleMode){
-        super.setCANTimeout(250);
-        config.idleMode(idleMode);
-        super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-        super.setCANTimeout(0);
+    public CompletableFuture<Void> setIdleMode(IdleMode idleMode){
+        return reportFailure(new SparkConfigTransaction().idleMode(this, idleMode).apply());
     }
 
     /**
-     * Invert the motor direction
+     * Invert the motor direction in the background, does nothing if it is already set
      * @param inverted true to invert the motor direction, false to not invert
      * 
      */
     @Override
     public void setInverted(boolean inverted){
+        reportFailure(new SparkConfigTransaction().inverted(this, inverted).apply());
+    }
+
+    /**
+     * Set the status frame periods of the motor controller in the background, does nothing if it is already set
+     * @param profile the status frame profile to set
+     * @return a future completed when the configuration is applied
+     * 
+     */
+    public CompletableFuture<Void> setStatusFrameProfile(StatusFrameProfile profile){
+        return reportFailure(new SparkConfigTransaction().statusFrames(this, profile).apply());
+    }
+
+    /**
+     * Gets the last status frame profile applied
+     * @return the profile, or null if the factory periods were never changed
+     */
+    public StatusFrameProfile getStatusFrameProfile(){
+        return appliedStatusFrameProfile;
+    }
+
+    /**
+     * Configures the onboard closed loop controller on the encoder of the motor controller in the background
+     * @param sparkGains the gains in duty cycle per native unit, see {@link #toSparkGains}
+     * @param slot the slot to store the gains
+     * @return a future completed when the configuration is applied
+     * 
+     */
+    public CompletableFuture<Void> configureClosedLoop(PIDGains sparkGains, ClosedLoopSlot slot){
+        return reportFailure(enqueueConfiguration(()-> {
+            SparkMaxConfig changes = new SparkMaxConfig();
+
+            changes.closedLoop.
+            feedbackSensor(FeedbackSensor.kAlternateOrExternalEncoder).
+            pid(sparkGains.kP(), sparkGains.kI(), sparkGains.kD(), slot).
+            outputRange(-1, 1, slot);
+
+            config.apply(changes);
+            configureChanges(changes, PersistMode.kPersistParameters);
+        }));
+    }
+
+    /**
+     * Wraps the position of the onboard closed loop controller in the background, used for mechanisms that turn freely
+     * @param minInput the minimum input in native units
+     * @param maxInput the maximum input in native units
+     * @return a future completed when the configuration is applied
+     * 
+     */
+    public CompletableFuture<Void> enablePositionWrapping(double minInput, double maxInput){
+        return reportFailure(enqueueConfiguration(()-> {
+            SparkMaxConfig changes = new SparkMaxConfig();
+
+            changes.closedLoop.
+            positionWrappingEnabled(true).
+            positionWrappingInputRange(minInput, maxInput);
+
+            config.apply(changes);
+            configureChanges(changes, PersistMode.kPersistParameters);
+        }));
+    }
+
+    /**
+     * Runs a configuration task after the ones already submitted for this motor controller
+     * @param task the task, runs on the configuration executor
+     * @return a future completed when the task finishes
+     */
+    synchronized CompletableFuture<Void> enqueueConfiguration(Runnable task){
+        // A failed task must not stop the ones after it
+        configurationQueue = configurationQueue.
+        handle((result, error)-> null).
+        thenRunAsync(task, SparkConfigTransaction.getExecutor());
+
+        return configurationQueue;
+    }
+
+    /**
+     * Applies the changes that differ from the last applied configuration, runs on the configuration executor
+     * @param changes the changes
+     * @param persistMode whether the parameters are persisted
+     */
+    void applyChanges(SparkConfigTransaction.Changes changes, PersistMode persistMode){
+        SparkMaxConfig delta = new SparkMaxConfig();
+        boolean changed = changes.flash;
+
+        if (changes.inverted != null && (changes.flash || !changes.inverted.equals(appliedInverted))) {
+            delta.inverted(changes.inverted);
+            changed = true;
+        }
+
+        if (changes.idleMode != null && (changes.flash || changes.idleMode != appliedIdleMode)) {
+            delta.idleMode(changes.idleMode);
+            changed = true;
+        }
+
+        if (changes.smartCurrentLimit != null && (changes.flash || !changes.smartCurrentLimit.equals(appliedSmartCurrentLimit))) {
+            delta.smartCurrentLimit(changes.smartCurrentLimit);
+            changed = true;
+        }
+
+        if (changes.voltageCompensation != null && (changes.flash || !changes.voltageCompensation.equals(appliedVoltageCompensation))) {
+            delta.voltageCompensation(changes.voltageCompensation);
+            changed = true;
+        }
+
+        if (changes.statusFrameProfile != null && (changes.flash || changes.statusFrameProfile != appliedStatusFrameProfile)) {
+            changes.statusFrameProfile.apply(delta.signals);
+            changed = true;
+        }
+
+        if (!changed) {
+            return;
+        }
+
+        config.apply(delta);
+
+        if (changes.flash) {
+            config.encoder.
+            uvwAverageDepth(2).
+            uvwMeasurementPeriod(10);
+
+            super.setCANTimeout(250);
+            REVLibError result = super.configure(config, ResetMode.kResetSafeParameters, persistMode);
+            super.setCANTimeout(0);
+
+            checkResult(result);
+
+            // Everything else went back to its default
+            appliedInverted = null;
+            appliedIdleMode = null;
+            appliedSmartCurrentLimit = null;
+            appliedVoltageCompensation = null;
+
+        }else{
+            configureChanges(delta, persistMode);
+        }
+
+        if (changes.inverted != null) appliedInverted = changes.inverted;
+        if (changes.idleMode != null) appliedIdleMode = changes.idleMode;
+        if (changes.smartCurrentLimit != null) appliedSmartCurrentLimit = changes.smartCurrentLimit;
+        if (changes.voltageCompensation != null) appliedVoltageCompensation = changes.voltageCompensation;
+
+        if (changes.statusFrameProfile != null) {
+            appliedStatusFrameProfile = changes.statusFrameProfile;
+            CANBudget.register(getBudgetName(), changes.statusFrameProfile.getFramesPerSecond());
+        }
+    }
+
+    private String getBudgetName(){
+        return "SparkMax " + super.getDeviceId();
+    }
+
+    private void configureChanges(SparkBaseConfig changes, PersistMode persistMode){
         super.setCANTimeout(250);
-        config.inverted(inverted);
-        super.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+        REVLibError result = super.configure(changes, ResetMode.kNoResetSafeParameters, persistMode);
         super.setCANTimeout(0);
+
+        checkResult(result);
+    }
+
+    private void checkResult(REVLibError result){
+        if (result != REVLibError.kOk) {
+            throw new IllegalStateException("SparkMax " + super.getDeviceId() + " configuration failed: " + result);
+        }
+    }
+
+    private static CompletableFuture<Void> reportFailure(CompletableFuture<Void> future){
+        return future.whenComplete((result, error)-> {
+            if (error != null) {
+                System.err.println(error.getCause() != null ? error.getCause().getMessage() : error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Sets a position reference for the onboard closed loop controller
+     * @param position the position in rotations of the encoder
+     * @param slot the slot of the gains
+     * 
+     */
+    public void setPositionReference(double position, ClosedLoopSlot slot){
+        closedLoopController.setReference(position, ControlType.kPosition, slot);
+    }
+
+    /**
+     * Sets a velocity reference for the onboard closed loop controller
+     * @param velocity the velocity in RPM of the encoder
+     * @param arbFeedforward the feedforward voltage added to the output
+     * @param slot the slot of the gains
+     * 
+     */
+    public void setVelocityReference(double velocity, double arbFeedforward, ClosedLoopSlot slot){
+        closedLoopController.setReference(velocity, ControlType.kVelocity, slot, arbFeedforward, ArbFFUnits.kVoltage);
+    }
+
+    /**
+     * Converts gains that output volts and run every loop of the roboRIO into the onboard closed loop
+     * gains, which output duty cycle (with the voltage compensation at {@link #kNominalVoltage})
+     * and run every millisecond.
+     * @param gains the gains in volts per unit of the measurement
+     * @param nativePerUnit the native units (rotations or RPM) per unit of the measurement
+     * @return the gains in duty cycle per native unit
+     */
+    public static PIDGains toSparkGains(PIDGains gains, double nativePerUnit){
+        double scale = 1.0 / (kNominalVoltage * nativePerUnit);
+
+        return new PIDGains(
+            gains.kP() * scale,
+            gains.kI() * SparkClosedLoopSim.kPeriod * scale,
+            gains.kD() / SparkClosedLoopSim.kPeriod * scale);
     }
 
     /**
@@ -223,6 +507,15 @@ public class ForgeSparkMax extends SparkMax implements Sendable{
         return ()-> encoder.getPosition();
     }
 
+    /**
+     * Gets the current position of the motor without allocating
+     * @param conversion the conversion of the raw position in rotations
+     * @return the converted position
+     */
+    public double getPosition(EncoderConversion conversion){
+        return conversion.apply(encoder.getPosition());
+    }
+
     /**
      * Sets the position of the motor
      * @param position the position to set
@@ -241,6 +534,15 @@ public class ForgeSparkMax extends SparkMax implements Sendable{
         return ()-> encoder.getVelocity();
     }
 
+    /**
+     * Gets the current velocity of the motor without allocating
+     * @param conversion the conversion of the raw velocity in RPM
+     * @return the converted velocity
+     */
+    public double getVelocity(EncoderConversion conversion){
+        return conversion.apply(encoder.getVelocity());
+    }
+
     /**
      * Gets the current encoder of the motor
      * @return the current encoder of the motor
@@ -0,0 +1,103 @@
+package lib.Forge.REV.SparkMax;
+
+import edu.wpi.first.math.MathUtil;
+import lib.Forge.Math.Constants.ProfileGains.PIDGains;
+
+/**
+ * Simulation stand-in for the onboard closed loop controller of a Spark.
+ * <p>
+ * Works like the real one: native units, gains in duty cycle per native unit
+ * (see {@link ForgeSparkMax#toSparkGains}), an integrator accumulated every 1 ms iteration and an
+ * arbitrary feedforward in volts. The simulation should be stepped {@link #kPeriod} at a time,
+ * calling {@link #calculate} on every step.
+ */
+public class SparkClosedLoopSim {
+
+    /** The period of the Spark closed loop in seconds. */
+    public static final double kPeriod = 0.001;
+
+    private double kP;
+    private double kI;
+    private double kD;
+
+    private boolean positionWrapping = false;
+    private double minInput;
+    private double maxInput;
+
+    private double reference = 0;
+    private double arbFeedforward = 0;
+
+    private double iAccumulator = 0;
+    private double prevError = 0;
+
+    /**
+     * Creates a new {@link SparkClosedLoopSim}.
+     * @param sparkGains the gains in duty cycle per native unit
+     */
+    public SparkClosedLoopSim(PIDGains sparkGains){
+        setGains(sparkGains);
+    }
+
+    /**
+     * Sets the gains
+     * @param sparkGains the gains in duty cycle per native unit
+     */
+    public void setGains(PIDGains sparkGains){
+        this.kP = sparkGains.kP();
+        this.kI = sparkGains.kI();
+        this.kD = sparkGains.kD();
+    }
+
+    /**
+     * Wraps the position error like the Spark position wrapping
+     * @param minInput the minimum input in native units
+     * @param maxInput the maximum input in native units
+     */
+    public void enablePositionWrapping(double minInput, double maxInput){
+        this.positionWrapping = true;
+        this.minInput = minInput;
+        this.maxInput = maxInput;
+    }
+
+    /**
+     * Sets the reference of the controller
+     * @param reference the reference in native units
+     * @param arbFeedforward the arbitrary feedforward in volts
+     */
+    public void setReference(double reference, double arbFeedforward){
+        this.reference = reference;
+        this.arbFeedforward = arbFeedforward;
+    }
+
+    /**
+     * Runs one iteration of the controller
+     * @param measurement the measurement in native units
+     * @return the output voltage
+     */
+    public double calculate(double measurement){
+        double error = reference - measurement;
+
+        if (positionWrapping) {
+            double errorBound = (maxInput - minInput) / 2.0;
+            error = MathUtil.inputModulus(error, -errorBound, errorBound);
+        }
+
+        iAccumulator += error;
+
+        double dutyCycle = kP * error + kI * iAccumulator + kD * (error - prevError);
+        prevError = error;
+
+        double volts = MathUtil.clamp(dutyCycle, -1.0, 1.0) * ForgeSparkMax.kNominalVoltage + arbFeedforward;
+
+        return MathUtil.clamp(volts, -ForgeSparkMax.kNominalVoltage, ForgeSparkMax.kNominalVoltage);
+    }
+
+    /**
+     * Clears the integrator and the previous error
+     */
+    public void reset(){
+        iAccumulator = 0;
+        prevError = 0;
+    }
+
+}
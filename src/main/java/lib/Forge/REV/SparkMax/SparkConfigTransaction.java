@@ -0,0 +1,183 @@
+package lib.Forge.REV.SparkMax;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.revrobotics.spark.SparkBase.PersistMode;
+import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
+
+/**
+ * Collects configuration changes for many {@link ForgeSparkMax} and applies them in the background.
+ * <p>
+ * Each motor controller compares the changes against the configuration it last applied and only
+ * writes the ones that differ, so applying the same configuration twice does not touch the CAN bus.
+ * Different motor controllers are configured in parallel, while the changes of the same motor
+ * controller are applied in the order they were submitted.
+ *
+ * <pre>
+ * new SparkConfigTransaction()
+ *     .idleMode(driveSpark, IdleMode.kCoast)
+ *     .idleMode(turnSpark, IdleMode.kCoast)
+ *     .apply();
+ * </pre>
+ */
+public class SparkConfigTransaction {
+
+    /**
+     * The changes for one motor controller, null fields are left as they are.
+     */
+    static final class Changes {
+        Boolean inverted;
+        IdleMode idleMode;
+        Integer smartCurrentLimit;
+        Double voltageCompensation;
+        StatusFrameProfile statusFrameProfile;
+
+        // Resets the safe parameters and writes the whole configuration
+        boolean flash;
+    }
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ForgeSparkConfig");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final PersistMode persistMode;
+    private final Map<ForgeSparkMax, Changes> changes = new LinkedHashMap<>();
+
+    /**
+     * Creates a new transaction that persists the parameters.
+     */
+    public SparkConfigTransaction() {
+        this(PersistMode.kPersistParameters);
+    }
+
+    /**
+     * Creates a new transaction
+     * @param persistMode whether the parameters are persisted, not persisting them is faster
+     */
+    public SparkConfigTransaction(PersistMode persistMode) {
+        this.persistMode = persistMode;
+    }
+
+    /**
+     * Inverts the motor direction
+     * @param spark the motor controller
+     * @param inverted true to invert the motor direction, false to not invert
+     * @return this transaction
+     */
+    public SparkConfigTransaction inverted(ForgeSparkMax spark, boolean inverted) {
+        changesOf(spark).inverted = inverted;
+        return this;
+    }
+
+    /**
+     * Sets the idle mode
+     * @param spark the motor controller
+     * @param idleMode the idle mode to set
+     * @return this transaction
+     */
+    public SparkConfigTransaction idleMode(ForgeSparkMax spark, IdleMode idleMode) {
+        changesOf(spark).idleMode = idleMode;
+        return this;
+    }
+
+    /**
+     * Sets the smart current limit
+     * @param spark the motor controller
+     * @param currentLimit the current limit to set
+     * @return this transaction
+     */
+    public SparkConfigTransaction smartCurrentLimit(ForgeSparkMax spark, int currentLimit) {
+        changesOf(spark).smartCurrentLimit = currentLimit;
+        return this;
+    }
+
+    /**
+     * Sets the voltage compensation
+     * @param spark the motor controller
+     * @param voltage the voltage to set
+     * @return this transaction
+     */
+    public SparkConfigTransaction voltageCompensation(ForgeSparkMax spark, double voltage) {
+        changesOf(spark).voltageCompensation = voltage;
+        return this;
+    }
+
+    /**
+     * Sets the status frame periods
+     * @param spark the motor controller
+     * @param profile the status frame profile to set
+     * @return this transaction
+     */
+    public SparkConfigTransaction statusFrames(ForgeSparkMax spark, StatusFrameProfile profile) {
+        changesOf(spark).statusFrameProfile = profile;
+        return this;
+    }
+
+    /**
+     * Resets the safe parameters and writes the whole configuration, like
+     * {@link ForgeSparkMax#flashConfiguration}
+     * @param spark the motor controller
+     * @param motorInverted true to invert the motor direction, false to not invert
+     * @param idleMode the idle mode to set
+     * @param currentLimit the current limit to set
+     * @param voltageCompensation true to enable voltage compensation at 12 volts, false to disable
+     * @return this transaction
+     */
+    public SparkConfigTransaction flash(
+        ForgeSparkMax spark, boolean motorInverted, IdleMode idleMode, int currentLimit, boolean voltageCompensation) {
+
+        Changes sparkChanges = changesOf(spark);
+        sparkChanges.flash = true;
+        sparkChanges.inverted = motorInverted;
+        sparkChanges.idleMode = idleMode;
+        sparkChanges.smartCurrentLimit = currentLimit;
+
+        if (voltageCompensation) {
+            sparkChanges.voltageCompensation = ForgeSparkMax.kNominalVoltage;
+        }
+
+        return this;
+    }
+
+    /**
+     * Applies the changes in the background
+     * @return a future completed when every motor controller is configured, or completed
+     * exceptionally if any of them failed
+     */
+    public CompletableFuture<Void> apply() {
+        ArrayList<CompletableFuture<Void>> futures = new ArrayList<>(changes.size());
+
+        for (Map.Entry<ForgeSparkMax, Changes> entry : changes.entrySet()) {
+            ForgeSparkMax spark = entry.getKey();
+            Changes sparkChanges = entry.getValue();
+
+            futures.add(spark.enqueueConfiguration(() -> spark.applyChanges(sparkChanges, persistMode)));
+        }
+
+        changes.clear();
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * @return the amount of motor controllers with changes
+     */
+    public int size() {
+        return changes.size();
+    }
+
+    static ExecutorService getExecutor() {
+        return executor;
+    }
+
+    private Changes changesOf(ForgeSparkMax spark) {
+        return changes.computeIfAbsent(spark, key -> new Changes());
+    }
+}
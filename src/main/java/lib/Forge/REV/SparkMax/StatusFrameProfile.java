@@ -0,0 +1,104 @@
+package lib.Forge.REV.SparkMax;
+
+import com.revrobotics.spark.config.SignalsConfig;
+
+/**
+ * Status frame periods of a Spark MAX for a given use, applied with
+ * {@link ForgeSparkMax#setStatusFrameProfile}.
+ * <p>
+ * Every period is in milliseconds and covers one status frame, frames a profile does not use are
+ * sent every {@link #kDisabledPeriodMs}.
+ */
+public enum StatusFrameProfile {
+
+    /** The factory periods, also the estimate for controllers without a profile. */
+    DEFAULT(10, 20, 20, 50, 20, 200, 200, 20),
+
+    /** Closed loop or telemetry on velocity and position of the alternate encoder, fast for odometry. */
+    DRIVE(10, 250, 20, 32767, 10, 32767, 32767, 32767),
+
+    /** Like {@link #DRIVE}, with the alternate encoder at 250 Hz for high frequency odometry. */
+    DRIVE_ODOMETRY(10, 250, 20, 32767, 4, 32767, 32767, 32767),
+
+    /** Position of the alternate encoder as a backup of an absolute encoder. */
+    TURN(20, 250, 20, 32767, 20, 32767, 32767, 32767),
+
+    /** Follows another controller, only faults and output are of interest. */
+    FOLLOWER(100, 250, 500, 32767, 32767, 32767, 32767, 32767),
+
+    /** Not used by the code, stays alive on the bus. */
+    IDLE(250, 500, 500, 32767, 32767, 32767, 32767, 32767);
+
+    /** The longest period of a status frame, used above for the frames a profile does not use. */
+    public static final int kDisabledPeriodMs = 32767;
+
+    /** Applied output, bus voltage, current and temperature. */
+    public final int status0PeriodMs;
+    /** Faults and warnings. */
+    public final int status1PeriodMs;
+    /** Primary encoder position and velocity. */
+    public final int status2PeriodMs;
+    /** Analog sensor. */
+    public final int status3PeriodMs;
+    /** Alternate or external encoder position and velocity. */
+    public final int status4PeriodMs;
+    /** Absolute encoder position. */
+    public final int status5PeriodMs;
+    /** Absolute encoder velocity. */
+    public final int status6PeriodMs;
+    /** Integral accumulator. */
+    public final int status7PeriodMs;
+
+    StatusFrameProfile(int status0, int status1, int status2, int status3, int status4, int status5, int status6, int status7){
+        this.status0PeriodMs = status0;
+        this.status1PeriodMs = status1;
+        this.status2PeriodMs = status2;
+        this.status3PeriodMs = status3;
+        this.status4PeriodMs = status4;
+        this.status5PeriodMs = status5;
+        this.status6PeriodMs = status6;
+        this.status7PeriodMs = status7;
+    }
+
+    /**
+     * Writes the periods into the signals configuration of a Spark
+     * @param signals the signals configuration
+     */
+    public void apply(SignalsConfig signals){
+        signals.
+        appliedOutputPeriodMs(status0PeriodMs).
+        busVoltagePeriodMs(status0PeriodMs).
+        outputCurrentPeriodMs(status0PeriodMs).
+        motorTemperaturePeriodMs(status0PeriodMs).
+        faultsPeriodMs(status1PeriodMs).
+        warningsPeriodMs(status1PeriodMs).
+        primaryEncoderPositionPeriodMs(status2PeriodMs).
+        primaryEncoderVelocityPeriodMs(status2PeriodMs).
+        analogVoltagePeriodMs(status3PeriodMs).
+        analogPositionPeriodMs(status3PeriodMs).
+        analogVelocityPeriodMs(status3PeriodMs).
+        externalOrAltEncoderPosition(status4PeriodMs).
+        externalOrAltEncoderVelocity(status4PeriodMs).
+        absoluteEncoderPositionPeriodMs(status5PeriodMs).
+        absoluteEncoderVelocityPeriodMs(status6PeriodMs).
+        iAccumulationPeriodMs(status7PeriodMs);
+    }
+
+    /**
+     * @return the status frames sent per second
+     */
+    public double getFramesPerSecond(){
+        return framesPerSecond(status0PeriodMs)
+            + framesPerSecond(status1PeriodMs)
+            + framesPerSecond(status2PeriodMs)
+            + framesPerSecond(status3PeriodMs)
+            + framesPerSecond(status4PeriodMs)
+            + framesPerSecond(status5PeriodMs)
+            + framesPerSecond(status6PeriodMs)
+            + framesPerSecond(status7PeriodMs);
+    }
+
+    private static double framesPerSecond(int periodMs){
+        return 1000.0 / periodMs;
+    }
+}
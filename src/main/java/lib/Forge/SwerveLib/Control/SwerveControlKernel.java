@@ -0,0 +1,468 @@
+package lib.Forge.SwerveLib.Control;
+
+import java.util.Arrays;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Translation2d;
+import lib.Forge.Math.Constants.ProfileGains.PIDGains;
+import lib.Forge.Math.Constants.ProfileGains.SimpleFeedForwardGains;
+
+/**
+ * Closed loop control of every swerve module on primitive arrays.
+ * <p>
+ * Does the same math as {@code ChassisSpeeds.discretize}, {@code SwerveDriveKinematics.toSwerveModuleStates},
+ * {@code desaturateWheelSpeeds}, {@code SwerveModuleState.optimize}/{@code cosineScale} and one drive and
+ * one turn {@code PIDController} per module, in the same order, but without creating a single object:
+ * setpoints go in as doubles and the voltages of every module come out in preallocated arrays.
+ * <p>
+ * Like the module PIDs it replaces, turning is closed loop once a setpoint is given and stays
+ * closed loop until the module is set to open loop; the drive PID only runs while the turn PID does.
+ */
+public class SwerveControlKernel {
+
+    /**
+     * The state of one {@code PIDController} per module, following its exact update order.
+     */
+    private static final class PIDArrays {
+
+        private double kP;
+        private double kI;
+        private double kD;
+
+        private final double period;
+        private final boolean continuous;
+        private final double errorBound;
+
+        private final double[] setpoint;
+        private final double[] measurement;
+        private final double[] error;
+        private final double[] prevError;
+        private final double[] totalError;
+        private final double[] errorDerivative;
+
+        PIDArrays(int modules, PIDGains gains, double period, boolean continuous, double errorBound) {
+            setGains(gains);
+
+            this.period = period;
+            this.continuous = continuous;
+            this.errorBound = errorBound;
+
+            this.setpoint = new double[modules];
+            this.measurement = new double[modules];
+            this.error = new double[modules];
+            this.prevError = new double[modules];
+            this.totalError = new double[modules];
+            this.errorDerivative = new double[modules];
+        }
+
+        void setGains(PIDGains gains) {
+            this.kP = gains.kP();
+            this.kI = gains.kI();
+            this.kD = gains.kD();
+        }
+
+        void setSetpoint(int i, double value) {
+            setpoint[i] = value;
+            error[i] = computeError(i);
+            errorDerivative[i] = (error[i] - prevError[i]) / period;
+        }
+
+        double calculate(int i, double value) {
+            measurement[i] = value;
+            prevError[i] = error[i];
+            error[i] = computeError(i);
+            errorDerivative[i] = (error[i] - prevError[i]) / period;
+
+            if (kI != 0) {
+                totalError[i] = MathUtil.clamp(totalError[i] + error[i] * period, -1.0 / kI, 1.0 / kI);
+            }
+
+            return kP * error[i] + kI * totalError[i] + kD * errorDerivative[i];
+        }
+
+        void reset(int i) {
+            error[i] = 0;
+            prevError[i] = 0;
+            totalError[i] = 0;
+            errorDerivative[i] = 0;
+        }
+
+        private double computeError(int i) {
+            return continuous
+                ? MathUtil.inputModulus(setpoint[i] - measurement[i], -errorBound, errorBound)
+                : setpoint[i] - measurement[i];
+        }
+    }
+
+    private static final double kSinPi = Math.sin(Math.PI);
+
+    private final int moduleCount;
+    private final double[] moduleX;
+    private final double[] moduleY;
+
+    private final double maxSpeed;
+    private final double period;
+    private final double wheelRadius;
+
+    private final PIDArrays drivePID;
+    private final PIDArrays turnPID;
+
+    private double kS;
+    private double kV;
+
+    // Last heading of every module, kept while the robot is not moving like SwerveDriveKinematics
+    private final double[] headingCos;
+    private final double[] headingSin;
+
+    private final double[] targetSpeed;
+    private final double[] targetCos;
+    private final double[] targetSin;
+
+    private final double[] feedforwardVolts;
+    private final boolean[] turnClosedLoop;
+    private final boolean[] driveClosedLoop;
+    private final double[] driveOpenLoopVolts;
+    private final double[] turnOpenLoopVolts;
+
+    // Result of the last normalize() call, avoids creating Rotation2d objects
+    private double normalizedCos;
+    private double normalizedSin;
+
+    /**
+     * Creates a new {@link SwerveControlKernel}.
+     *
+     * @param moduleLocations The location of every module relative to the robot center.
+     * @param maxSpeed        The maximum module speed in meters per second, used to desaturate.
+     * @param period          The loop period in seconds.
+     * @param wheelRadius     The wheel radius in meters, the drive PID works in wheel radians per second.
+     * @param driveGains      The drive PID gains.
+     * @param driveFF         The drive feedforward gains, in volts per wheel radian per second.
+     * @param turnGains       The turn PID gains, continuous between -pi and pi.
+     */
+    public SwerveControlKernel(
+        Translation2d[] moduleLocations, double maxSpeed, double period, double wheelRadius,
+        PIDGains driveGains, SimpleFeedForwardGains driveFF, PIDGains turnGains) {
+
+        this.moduleCount = moduleLocations.length;
+        this.moduleX = new double[moduleCount];
+        this.moduleY = new double[moduleCount];
+
+        for (int i = 0; i < moduleCount; i++) {
+            moduleX[i] = moduleLocations[i].getX();
+            moduleY[i] = moduleLocations[i].getY();
+        }
+
+        this.maxSpeed = maxSpeed;
+        this.period = period;
+        this.wheelRadius = wheelRadius;
+
+        this.drivePID = new PIDArrays(moduleCount, driveGains, period, false, 0.0);
+        this.turnPID = new PIDArrays(moduleCount, turnGains, period, true, Math.PI);
+
+        setDriveFeedforward(driveFF);
+
+        this.headingCos = new double[moduleCount];
+        this.headingSin = new double[moduleCount];
+
+        this.targetSpeed = new double[moduleCount];
+        this.targetCos = new double[moduleCount];
+        this.targetSin = new double[moduleCount];
+
+        this.feedforwardVolts = new double[moduleCount];
+        this.turnClosedLoop = new boolean[moduleCount];
+        this.driveClosedLoop = new boolean[moduleCount];
+        this.driveOpenLoopVolts = new double[moduleCount];
+        this.turnOpenLoopVolts = new double[moduleCount];
+
+        Arrays.fill(headingCos, 1.0);
+    }
+
+    /**
+     * Sets the chassis speeds to follow, discretized over the loop period, and the module setpoints
+     * derived from them.
+     *
+     * @param vx           The robot relative X velocity in meters per second.
+     * @param vy           The robot relative Y velocity in meters per second.
+     * @param omega        The angular velocity in radians per second.
+     * @param moduleAngles The current angle of every module in radians, used to optimize.
+     */
+    public void setChassisSpeeds(double vx, double vy, double omega, double[] moduleAngles) {
+
+        // ChassisSpeeds.discretize: the twist from the origin to the pose reached after a period
+        double dx = vx * period;
+        double dy = vy * period;
+
+        normalize(Math.cos(omega * period), Math.sin(omega * period));
+        double rotationCos = normalizedCos;
+        double rotationSin = normalizedSin;
+        double dtheta = Math.atan2(rotationSin, rotationCos);
+
+        double halfDtheta = dtheta / 2.0;
+        double cosMinusOne = rotationCos - 1;
+        double halfThetaByTanOfHalfDtheta = Math.abs(cosMinusOne) < 1E-9
+            ? 1.0 - 1.0 / 12.0 * dtheta * dtheta
+            : -(halfDtheta * rotationSin) / cosMinusOne;
+
+        normalize(halfThetaByTanOfHalfDtheta, -halfDtheta);
+        double scale = Math.hypot(halfThetaByTanOfHalfDtheta, halfDtheta);
+
+        double discreteVx = (dx * normalizedCos - dy * normalizedSin) * scale / period;
+        double discreteVy = (dx * normalizedSin + dy * normalizedCos) * scale / period;
+        double discreteOmega = dtheta / period;
+
+        // SwerveDriveKinematics.toSwerveModuleStates
+        double realMaxSpeed = 0.0;
+
+        for (int i = 0; i < moduleCount; i++) {
+            double x = discreteVx - moduleY[i] * discreteOmega;
+            double y = discreteVy + moduleX[i] * discreteOmega;
+            double speed = Math.hypot(x, y);
+
+            if (speed > 1e-6) {
+                normalize(x, y);
+                headingCos[i] = normalizedCos;
+                headingSin[i] = normalizedSin;
+            }
+
+            targetSpeed[i] = speed;
+            targetCos[i] = headingCos[i];
+            targetSin[i] = headingSin[i];
+
+            realMaxSpeed = Math.max(realMaxSpeed, Math.abs(speed));
+        }
+
+        // SwerveDriveKinematics.desaturateWheelSpeeds
+        if (realMaxSpeed > maxSpeed) {
+            for (int i = 0; i < moduleCount; i++) {
+                targetSpeed[i] = targetSpeed[i] / realMaxSpeed * maxSpeed;
+            }
+        }
+
+        for (int i = 0; i < moduleCount; i++) {
+            applySetpoint(i, targetSpeed[i], targetCos[i], targetSin[i], moduleAngles[i]);
+        }
+    }
+
+    /**
+     * Sets the setpoint of a single module, optimized and cosine scaled against its current angle.
+     *
+     * @param module       The index of the module.
+     * @param speed        The module speed in meters per second.
+     * @param angle        The module angle in radians.
+     * @param currentAngle The current module angle in radians.
+     */
+    public void setModuleState(int module, double speed, double angle, double currentAngle) {
+        applySetpoint(module, speed, Math.cos(angle), Math.sin(angle), currentAngle);
+    }
+
+    /**
+     * SwerveModuleState.optimize and cosineScale, then the PID setpoints.
+     */
+    private void applySetpoint(int i, double speed, double angleCos, double angleSin, double currentAngle) {
+
+        double currentCos = Math.cos(-currentAngle);
+        double currentSin = Math.sin(-currentAngle);
+
+        normalize(angleCos * currentCos - angleSin * currentSin, angleCos * currentSin + angleSin * currentCos);
+
+        if (Math.abs(Math.toDegrees(Math.atan2(normalizedSin, normalizedCos))) > 90.0) {
+            speed *= -1;
+
+            normalize(angleCos * -1.0 - angleSin * kSinPi, angleCos * kSinPi + angleSin * -1.0);
+            angleCos = normalizedCos;
+            angleSin = normalizedSin;
+
+            normalize(angleCos * currentCos - angleSin * currentSin, angleCos * currentSin + angleSin * currentCos);
+        }
+
+        speed *= normalizedCos;
+
+        turnClosedLoop[i] = true;
+        driveClosedLoop[i] = true;
+
+        turnPID.setSetpoint(i, Math.atan2(angleSin, angleCos));
+
+        double wheelVelocity = speed / wheelRadius;
+        feedforwardVolts[i] = kS * Math.signum(wheelVelocity) + kV * wheelVelocity;
+        drivePID.setSetpoint(i, wheelVelocity);
+    }
+
+    /**
+     * Drives a module open loop while its turn PID keeps its setpoint, used for characterization.
+     *
+     * @param module The index of the module.
+     * @param volts  The drive voltage.
+     */
+    public void setDriveOpenLoop(int module, double volts) {
+        driveClosedLoop[module] = false;
+        driveOpenLoopVolts[module] = volts;
+    }
+
+    /**
+     * Sets the turn setpoint of a module without optimizing it.
+     *
+     * @param module The index of the module.
+     * @param angle  The angle in radians.
+     */
+    public void setTurnSetpoint(int module, double angle) {
+        turnPID.setSetpoint(module, angle);
+    }
+
+    /**
+     * Stops the closed loop control of a module and outputs fixed voltages.
+     *
+     * @param module     The index of the module.
+     * @param driveVolts The drive voltage.
+     * @param turnVolts  The turn voltage.
+     */
+    public void setOpenLoop(int module, double driveVolts, double turnVolts) {
+        turnClosedLoop[module] = false;
+        driveClosedLoop[module] = false;
+        driveOpenLoopVolts[module] = driveVolts;
+        turnOpenLoopVolts[module] = turnVolts;
+    }
+
+    /**
+     * Sets the heading a module keeps while the robot is not moving, like
+     * {@code SwerveDriveKinematics.resetHeadings}.
+     *
+     * @param module The index of the module.
+     * @param x      The X component of the heading.
+     * @param y      The Y component of the heading.
+     */
+    public void resetHeading(int module, double x, double y) {
+        normalize(x, y);
+        headingCos[module] = normalizedCos;
+        headingSin[module] = normalizedSin;
+    }
+
+    /**
+     * Runs the PID and feedforward of every module.
+     *
+     * @param moduleAngles    The angle of every module in radians.
+     * @param driveVelocities The wheel velocity of every module in radians per second.
+     * @param driveVoltsOut   Receives the drive voltage of every module.
+     * @param turnVoltsOut    Receives the turn voltage of every module.
+     */
+    public void calculate(double[] moduleAngles, double[] driveVelocities, double[] driveVoltsOut, double[] turnVoltsOut) {
+
+        for (int i = 0; i < moduleCount; i++) {
+
+            if (turnClosedLoop[i]) {
+                turnVoltsOut[i] = turnPID.calculate(i, moduleAngles[i]);
+
+                if (driveClosedLoop[i]) {
+                    driveVoltsOut[i] = drivePID.calculate(i, driveVelocities[i]) + feedforwardVolts[i];
+                } else {
+                    drivePID.reset(i);
+                    driveVoltsOut[i] = driveOpenLoopVolts[i];
+                }
+
+            } else {
+                turnPID.reset(i);
+                turnVoltsOut[i] = turnOpenLoopVolts[i];
+                driveVoltsOut[i] = driveOpenLoopVolts[i];
+            }
+        }
+    }
+
+    /**
+     * @param gains The new drive PID gains.
+     */
+    public void setDriveGains(PIDGains gains) {
+        drivePID.setGains(gains);
+    }
+
+    /**
+     * @param gains The new turn PID gains.
+     */
+    public void setTurnGains(PIDGains gains) {
+        turnPID.setGains(gains);
+    }
+
+    /**
+     * @param gains The new drive feedforward gains, in volts per wheel radian per second.
+     */
+    public void setDriveFeedforward(SimpleFeedForwardGains gains) {
+        this.kS = gains.kS();
+        this.kV = gains.kV();
+    }
+
+    /**
+     * @param module The index of the module.
+     * @return The optimized module angle setpoint in radians.
+     */
+    public double getTurnSetpoint(int module) {
+        return turnPID.setpoint[module];
+    }
+
+    /**
+     * @param module The index of the module.
+     * @return The cosine scaled wheel velocity setpoint in radians per second.
+     */
+    public double getDriveSetpoint(int module) {
+        return drivePID.setpoint[module];
+    }
+
+    /**
+     * @param module The index of the module.
+     * @return The drive feedforward voltage of the current setpoint.
+     */
+    public double getDriveFeedforward(int module) {
+        return feedforwardVolts[module];
+    }
+
+    /**
+     * @param module The index of the module.
+     * @return true if the turn PID of the module is running.
+     */
+    public boolean isTurnClosedLoop(int module) {
+        return turnClosedLoop[module];
+    }
+
+    /**
+     * @param module The index of the module.
+     * @return true if the drive PID of the module is running, only while the turn PID does.
+     */
+    public boolean isDriveClosedLoop(int module) {
+        return turnClosedLoop[module] && driveClosedLoop[module];
+    }
+
+    /**
+     * @param module The index of the module.
+     * @return The drive voltage used while the drive is open loop.
+     */
+    public double getDriveOpenLoopVoltage(int module) {
+        return driveOpenLoopVolts[module];
+    }
+
+    /**
+     * @param module The index of the module.
+     * @return The turn voltage used while the turn is open loop.
+     */
+    public double getTurnOpenLoopVoltage(int module) {
+        return turnOpenLoopVolts[module];
+    }
+
+    /**
+     * @return The amount of modules.
+     */
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    /**
+     * Same normalization as the {@code Rotation2d(x, y)} constructor.
+     */
+    private void normalize(double x, double y) {
+        double magnitude = Math.hypot(x, y);
+
+        if (magnitude > 1e-6) {
+            normalizedCos = x / magnitude;
+            normalizedSin = y / magnitude;
+        } else {
+            normalizedCos = 1.0;
+            normalizedSin = 0.0;
+        }
+    }
+}
@@ -1,31 +1,58 @@
 package lib.Forge.SwerveLib.Odometer;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Twist2d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import lib.Forge.SwerveLib.Utils.PrimitiveSwerveKinematics;
+import lib.Forge.SwerveLib.Vision.VisionMeasurement;
 
 /**
  * Handles pose estimation for a swerve drive using WPILib's {@link SwerveDrivePoseEstimator}.
  * <p>
+ * The estimator is only touched while holding an internal lock, so odometry updates, resets and
+ * vision measurements coming from different threads are serialized. Readers never take that lock:
+ * {@link #getEstimatedPose()} and {@link #getEstimatedPose(PoseSample)} read a snapshot published
+ * after every change. Past poses and velocities are kept in a shared {@link PoseHistory}, see
+ * {@link #getPoseAt(double, PoseSample)}.
+ * <p>
  * <b>Note:</b> Only one instance of this class should be created. Creating multiple instances
  * may lead to unexpected behavior or incorrect pose estimation.
  */
 public class ForgeSwerveDrivePoseEstimator {
+
+    /**
+     * Samples the raw position of every module. Used by the high frequency odometry mode, so it
+     * is called from the sampling thread and must not block.
+     */
+    @FunctionalInterface
+    public interface ModuleSampler{
+        /**
+         * Writes the current module readings into the given arrays.
+         *
+         * @param drivePositionsMeters Drive position of every module in meters.
+         * @param turnAnglesRadians    Turn angle of every module in radians.
+         */
+        void sample(double[] drivePositionsMeters, double[] turnAnglesRadians);
+    }
     
     private final SwerveDriveKinematics kinematics;
+    private final PrimitiveSwerveKinematics primitiveKinematics;
     private final SwerveDrivePoseEstimator poseEstimator;
     private Rotation2d rawGyroRotation;
     private BooleanSupplier gyroConnection;
@@ -45,7 +72,44 @@ public class ForgeSwerveDrivePoseEstimator {
 
     private Field2d field = null;
 
+    private final Object estimatorLock = new Object();
+    private final PoseSnapshot snapshot = new PoseSnapshot();
+
+    private Notifier sampler = null;
+    private OdometrySampleQueue sampleQueue = null;
+    private ModuleSampler moduleSampler;
+    private DoubleSupplier getGyroYaw;
+
+    private double lastUpdateTimestamp = 0.0;
+
+    private final double[] sampledDrivePositions = new double[4];
+    private final double[] sampledTurnAngles = new double[4];
+    private final double[] lastSampledDrivePositions = {Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+    private double lastSampleTimestamp = Double.NEGATIVE_INFINITY;
+    private double replayPeriod = kDefaultPeriod;
+    private final OdometrySampleQueue.SampleConsumer sampleReplayer = this::applySample;
+
+    private final double[] rawDistances = new double[4];
+    private final double[] moduleDeltas = new double[4];
+    private final double[] moduleCos = new double[4];
+    private final double[] moduleSin = new double[4];
+    private final double[] lastTurnAngles = {Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+    private final double[] twist = new double[3];
+    private double lastGyroYaw = Double.NaN;
+    private double lastIntegratedGyro = 0.0;
+
+    private final WheelSlipDetector slipDetector;
+
+    private final PoseHistory poseHistory = new PoseHistory(kPoseHistoryCapacity);
+    private double lastHistoryTimestamp = Double.NaN;
+    private double lastHistoryGyro = 0.0;
+
+    private volatile long resetCount = 0;
+
     public static final double kDefaultPeriod = 0.02;
+    public static final double kDefaultSamplingFrequency = 250.0;
+    public static final int kSampleQueueCapacity = 64;
+    public static final int kPoseHistoryCapacity = 512;
 
     /**
      * Creates a new instance of {@link ForgeSwerveDrivePoseEstimator}.
@@ -67,6 +131,8 @@ public class ForgeSwerveDrivePoseEstimator {
         boolean createFieldWidget) {
 
         this.kinematics = kinematics;
+        this.primitiveKinematics = new PrimitiveSwerveKinematics(kinematics);
+        this.slipDetector = new WheelSlipDetector(primitiveKinematics);
         this.gyroConnection = gyroConnection;
         this.rawGyroRotation = new Rotation2d();
 
@@ -111,6 +177,8 @@ public class ForgeSwerveDrivePoseEstimator {
         double period) {
 
         this.kinematics = kinematics;
+        this.primitiveKinematics = new PrimitiveSwerveKinematics(kinematics);
+        this.slipDetector = new WheelSlipDetector(primitiveKinematics);
         this.gyroConnection = gyroConnection;
         this.rawGyroRotation = new Rotation2d();
 
@@ -134,41 +202,274 @@ public class ForgeSwerveDrivePoseEstimator {
 
     }
 
-    private void update() {
+    /**
+     * Creates a new {@link ForgeSwerveDrivePoseEstimator} running in high frequency odometry mode.
+     * <p>
+     * A dedicated thread samples the modules and the gyro at {@code samplingFrequency} into a
+     * lock-free {@link OdometrySampleQueue}, and every {@code period} the queued samples are
+     * replayed in order into the {@link SwerveDrivePoseEstimator} with their own timestamps.
+     * Recommended sampling frequencies are between 100 and 250 Hz.
+     * <p>
+     * The drive positions should be sent by the devices at least at {@code samplingFrequency}.
+     * Samples that repeat every drive position of the previous one are taken as stale and dropped,
+     * except one every {@code period} so a still robot keeps updating.
+     * <p>
+     * <b>Warning: </b> Only one instance should be created. Running multiple instances
+     * simultaneously may cause conflicts in pose estimation.
+     *
+     * @param kinematics        The swerve drive kinematics model.
+     * @param gyroConnection    Supplier that indicates if the gyro is connected.
+     * @param moduleSampler     Sampler for the raw module drive positions and turn angles.
+     * @param getGyroYaw        Supplier for the gyro yaw in radians, only read while connected.
+     * @param createFieldWidget Whether to create a Field2d dashboard widget.
+     * @param samplingFrequency The frequency in Hz at which modules and gyro are sampled.
+     * @param period            The period to replay the samples into the pose Estimator.
+     */
+    public ForgeSwerveDrivePoseEstimator(
+        SwerveDriveKinematics kinematics,
+        BooleanSupplier gyroConnection,
+        ModuleSampler moduleSampler,
+        DoubleSupplier getGyroYaw,
+        boolean createFieldWidget,
+        double samplingFrequency,
+        double period) {
 
-        SwerveModulePosition[] modulePositions = getModulePositions.get();
-        SwerveModulePosition[] moduleDeltas = new SwerveModulePosition[4];
-    
-        for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++) {
-            moduleDeltas[moduleIndex] =
-                new SwerveModulePosition(
-                    modulePositions[moduleIndex].distanceMeters
-                        - lastModulePositions[moduleIndex].distanceMeters,
-                    modulePositions[moduleIndex].angle);
-            lastModulePositions[moduleIndex] = modulePositions[moduleIndex];
+        this.kinematics = kinematics;
+        this.primitiveKinematics = new PrimitiveSwerveKinematics(kinematics);
+        this.slipDetector = new WheelSlipDetector(primitiveKinematics);
+        this.gyroConnection = gyroConnection;
+        this.rawGyroRotation = new Rotation2d();
+
+        this.moduleSampler = moduleSampler;
+        this.getGyroYaw = getGyroYaw;
+        this.sampleQueue = new OdometrySampleQueue(kSampleQueueCapacity, 4);
+        this.replayPeriod = period;
+
+        this.poseEstimator = new SwerveDrivePoseEstimator(
+            kinematics,
+            rawGyroRotation,
+            lastModulePositions,
+            Pose2d.kZero);
+
+        if (createFieldWidget == true) {
+            this.field = new Field2d();
+            SmartDashboard.putData("ForgePoseEstimator/Field", field);
         }
-        
-        if (gyroConnection.getAsBoolean() == true) {
-            rawGyroRotation = getGyroRotation.get();
-        } else {
-        Twist2d twist = kinematics.toTwist2d(moduleDeltas);
-            rawGyroRotation = rawGyroRotation.plus(new Rotation2d(twist.dtheta));
+
+        this.sampler = new Notifier(this::sample);
+        this.sampler.setName("ForgePoseEstimatorSampler");
+        sampler.startPeriodic(1.0 / samplingFrequency);
+
+        this.backgroundUpdater = new Notifier(this::update);
+        this.backgroundUpdater.setName("ForgePoseEstimatorUpdater");
+        backgroundUpdater.startPeriodic(period);
+
+    }
+
+    private void sample() {
+
+        moduleSampler.sample(sampledDrivePositions, sampledTurnAngles);
+
+        double timestamp = Timer.getFPGATimestamp();
+
+        // A repeated drive position was read before the device sent a new status frame, stamping it
+        // now would replay a zero delta followed by a jump on the next fresh sample
+        if (isRepeatedSample() && timestamp - lastSampleTimestamp < replayPeriod) {
+            return;
         }
 
-        poseEstimator.update(rawGyroRotation, modulePositions);
+        System.arraycopy(sampledDrivePositions, 0, lastSampledDrivePositions, 0, 4);
+        lastSampleTimestamp = timestamp;
+
+        boolean gyroConnected = gyroConnection.getAsBoolean();
+        double gyroYaw = gyroConnected ? getGyroYaw.getAsDouble() : 0.0;
+
+        sampleQueue.offer(timestamp, sampledDrivePositions, sampledTurnAngles, gyroYaw, gyroConnected);
+    }
+
+    private boolean isRepeatedSample() {
+        for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++) {
+            if (sampledDrivePositions[moduleIndex] != lastSampledDrivePositions[moduleIndex]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void update() {
+        update(Timer.getFPGATimestamp());
+    }
+
+    /**
+     * Runs one update with the current readings, like the background updater does every period.
+     * Meant for code that drives the estimator itself after {@link #stopUpdates()}, like tests.
+     * In high frequency odometry mode the queued samples keep their own timestamps.
+     *
+     * @param timestamp The FPGA timestamp in seconds of the readings.
+     */
+    public void update(double timestamp) {
+
+        synchronized (estimatorLock) {
+            if (sampleQueue != null) {
+                if (sampleQueue.drain(sampleReplayer) == 0) {
+                    return;
+                }
+            } else {
+                SwerveModulePosition[] modulePositions = getModulePositions.get();
+
+                for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++) {
+                    moduleDeltas[moduleIndex] = modulePositions[moduleIndex].distanceMeters - rawDistances[moduleIndex];
+                    rawDistances[moduleIndex] = modulePositions[moduleIndex].distanceMeters;
+                    lastModulePositions[moduleIndex].angle = modulePositions[moduleIndex].angle;
+                }
+
+                boolean gyroConnected = gyroConnection.getAsBoolean();
+
+                if (gyroConnected) {
+                    rawGyroRotation = getGyroRotation.get();
+                }
+
+                integrate(timestamp, gyroConnected);
+            }
+
+            publishSnapshot(lastUpdateTimestamp);
+        }
 
         if (field != null) {
             field.setRobotPose(getEstimatedPose()); 
         }      
     }
 
+    private void applySample(double timestamp, double[] drivePositionsMeters, double[] turnAnglesRadians, double gyroYawRadians, boolean gyroConnected) {
+
+        for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++) {
+            SwerveModulePosition lastPosition = lastModulePositions[moduleIndex];
+
+            moduleDeltas[moduleIndex] = drivePositionsMeters[moduleIndex] - rawDistances[moduleIndex];
+            rawDistances[moduleIndex] = drivePositionsMeters[moduleIndex];
+
+            // Rotation2d is immutable, only create a new one when the module actually turned
+            if (turnAnglesRadians[moduleIndex] != lastTurnAngles[moduleIndex]) {
+                lastPosition.angle = new Rotation2d(turnAnglesRadians[moduleIndex]);
+                lastTurnAngles[moduleIndex] = turnAnglesRadians[moduleIndex];
+            }
+        }
+
+        if (gyroConnected) {
+            if (gyroYawRadians != lastGyroYaw) {
+                rawGyroRotation = new Rotation2d(gyroYawRadians);
+                lastGyroYaw = gyroYawRadians;
+            }
+        } else {
+            lastGyroYaw = Double.NaN;
+        }
+
+        integrate(timestamp, gyroConnected);
+    }
+
     /**
-     * Gets the estimated pose of the robot.
+     * Integrates one sample into the pose estimator. The raw deltas from the previous sample must
+     * already be in {@code moduleDeltas}, the module angles in {@code lastModulePositions} and the
+     * gyro rotation in {@code rawGyroRotation} if the gyro is connected.
+     * <p>
+     * Slipping modules are corrected before the deltas are accumulated into the positions fed to
+     * the estimator, so those positions can drift away from the raw encoder readings.
+     *
+     * @param timestamp     The timestamp of the readings.
+     * @param gyroConnected Whether the gyro is connected, if not the rotation is integrated from the modules.
+     */
+    private void integrate(double timestamp, boolean gyroConnected) {
+
+        double dt = timestamp - lastUpdateTimestamp;
+
+        for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++) {
+            moduleCos[moduleIndex] = lastModulePositions[moduleIndex].angle.getCos();
+            moduleSin[moduleIndex] = lastModulePositions[moduleIndex].angle.getSin();
+        }
+
+        slipDetector.correct(timestamp, dt, moduleDeltas, moduleCos, moduleSin);
+
+        for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++) {
+            lastModulePositions[moduleIndex].distanceMeters += moduleDeltas[moduleIndex];
+        }
+
+        primitiveKinematics.toTwist(moduleDeltas, moduleCos, moduleSin, twist);
+
+        if (gyroConnected) {
+            double gyroDtheta = MathUtil.angleModulus(rawGyroRotation.getRadians() - lastIntegratedGyro);
+            slipDetector.checkCollision(timestamp, dt, twist[2], gyroDtheta);
+        } else if (twist[2] != 0.0) {
+            rawGyroRotation = new Rotation2d(rawGyroRotation.getRadians() + twist[2]);
+        }
+
+        lastIntegratedGyro = rawGyroRotation.getRadians();
+
+        poseEstimator.updateWithTime(timestamp, rawGyroRotation, lastModulePositions);
+        lastUpdateTimestamp = timestamp;
+
+        recordHistory(timestamp);
+    }
+
+    /**
+     * Stores the latest estimate and the field relative velocity measured by the modules and the
+     * gyro in the pose history, so vision corrections do not show up as velocity spikes. Uses the
+     * twist left in {@code twist} by the last integration.
+     *
+     * @param timestamp The timestamp of the estimate.
+     */
+    private void recordHistory(double timestamp) {
+
+        Pose2d pose = poseEstimator.getEstimatedPosition();
+        double gyro = rawGyroRotation.getRadians();
+        double dt = timestamp - lastHistoryTimestamp;
+
+        double vx = 0.0;
+        double vy = 0.0;
+        double omega = 0.0;
+
+        if (dt > 0.0) {
+            double cos = pose.getRotation().getCos();
+            double sin = pose.getRotation().getSin();
+
+            vx = (twist[0] * cos - twist[1] * sin) / dt;
+            vy = (twist[0] * sin + twist[1] * cos) / dt;
+            omega = MathUtil.angleModulus(gyro - lastHistoryGyro) / dt;
+        }
+
+        poseHistory.add(timestamp, pose.getX(), pose.getY(), pose.getRotation().getRadians(), vx, vy, omega);
+
+        lastHistoryTimestamp = timestamp;
+        lastHistoryGyro = gyro;
+    }
+
+    /**
+     * Publishes the current estimate to readers. Must be called while holding the estimator lock.
+     *
+     * @param timestamp The timestamp of the estimate.
+     */
+    private void publishSnapshot(double timestamp) {
+        snapshot.write(poseEstimator.getEstimatedPosition(), timestamp);
+    }
+
+    /**
+     * Gets the estimated pose of the robot. Does not lock nor allocate, the returned
+     * {@link Pose2d} is shared between all callers until the next update.
      *
      * @return The current estimated {@link Pose2d}.
      */
     public Pose2d getEstimatedPose() {
-        return poseEstimator.getEstimatedPosition();
+        return snapshot.getPose();
+    }
+
+    /**
+     * Copies the estimated pose of the robot and its timestamp into {@code out} without locking
+     * nor allocating.
+     *
+     * @param out The sample to fill.
+     */
+    public void getEstimatedPose(PoseSample out) {
+        snapshot.read(out);
     }
 
     public Optional<Field2d> getFieldWidget(){
@@ -198,7 +499,25 @@ public class ForgeSwerveDrivePoseEstimator {
      * @param pose The new pose to set.
      */
     public void resetPosition(Pose2d pose) {
-        poseEstimator.resetPosition(rawGyroRotation, getModulePositions.get(), pose);
+        synchronized (estimatorLock) {
+            if (sampleQueue == null) {
+                SwerveModulePosition[] modulePositions = getModulePositions.get();
+
+                for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++) {
+                    rawDistances[moduleIndex] = modulePositions[moduleIndex].distanceMeters;
+                    lastModulePositions[moduleIndex].angle = modulePositions[moduleIndex].angle;
+                }
+            }
+
+            poseEstimator.resetPosition(rawGyroRotation, lastModulePositions, pose);
+
+            poseHistory.clear();
+            lastHistoryTimestamp = Double.NaN;
+            slipDetector.reset();
+            resetCount++;
+
+            publishSnapshot(Timer.getFPGATimestamp());
+        }
     }
 
     /**
@@ -208,7 +527,10 @@ public class ForgeSwerveDrivePoseEstimator {
      * @param timestamp The timestamp of the measurement.
      */
     public void addVisionMeasurement(Pose2d visionMeasurement, double timestamp) {
-        poseEstimator.addVisionMeasurement(visionMeasurement, timestamp);
+        synchronized (estimatorLock) {
+            poseEstimator.addVisionMeasurement(visionMeasurement, timestamp);
+            publishSnapshot(lastUpdateTimestamp);
+        }
     }
 
     /**
@@ -219,14 +541,114 @@ public class ForgeSwerveDrivePoseEstimator {
      * @param visionMeasurementStdDevs Standard deviations of the vision pose measurement (x position in meters, y position in meters, and heading in radians). Increase these numbers to trust the vision pose measurement less.
      */
     public void addVisionMeasurement(Pose2d visionMeasurement, double timestamp, Matrix<N3, N1> visionMeasurementStdDevs) {
-        poseEstimator.addVisionMeasurement(visionMeasurement,timestamp, visionMeasurementStdDevs);
+        synchronized (estimatorLock) {
+            poseEstimator.addVisionMeasurement(visionMeasurement,timestamp, visionMeasurementStdDevs);
+            publishSnapshot(lastUpdateTimestamp);
+        }
+    }
+
+    /**
+     * Adds a batch of vision measurements to the pose estimator, taking the internal lock and
+     * publishing the new estimate only once. Measurements without standard deviations use the
+     * default ones of the estimator.
+     *
+     * @param measurements The measurements, ordered by timestamp.
+     */
+    public void addVisionMeasurements(List<VisionMeasurement> measurements) {
+        synchronized (estimatorLock) {
+            for (int i = 0; i < measurements.size(); i++) {
+                VisionMeasurement measurement = measurements.get(i);
+
+                if (measurement.getStdDevs() != null) {
+                    poseEstimator.addVisionMeasurement(measurement.getPose(), measurement.getTimestamp(), measurement.getStdDevs());
+                } else {
+                    poseEstimator.addVisionMeasurement(measurement.getPose(), measurement.getTimestamp());
+                }
+            }
+
+            publishSnapshot(lastUpdateTimestamp);
+        }
+    }
+
+    /**
+     * Gets the estimated pose of the robot at a past timestamp, interpolated from the pose history.
+     * Does not take the estimator lock.
+     *
+     * @param timestamp The FPGA timestamp in seconds.
+     * @return The pose at that time, or empty if the timestamp is older than the history.
+     */
+    public Optional<Pose2d> getPoseAt(double timestamp) {
+        PoseSample sample = new PoseSample();
+
+        if (!poseHistory.getPoseAt(timestamp, sample)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(sample.toPose2d());
+    }
+
+    /**
+     * Copies the estimated pose of the robot at a past timestamp into {@code out} without locking
+     * the estimator nor allocating.
+     *
+     * @param timestamp The FPGA timestamp in seconds.
+     * @param out       The sample to fill.
+     * @return false if the timestamp is older than the history.
+     */
+    public boolean getPoseAt(double timestamp, PoseSample out) {
+        return poseHistory.getPoseAt(timestamp, out);
+    }
+
+    /**
+     * @return The detector of slipping modules and collisions, used to tune its thresholds.
+     */
+    public WheelSlipDetector getWheelSlipDetector() {
+        return slipDetector;
+    }
+
+    /**
+     * Gets how much the odometry can be trusted right now, see {@link WheelSlipDetector#getOdometryTrust}.
+     *
+     * @return 1 when no slip nor collision is being detected, lower while recovering from one.
+     */
+    public double getOdometryTrust() {
+        return slipDetector.getOdometryTrust(Timer.getFPGATimestamp());
+    }
+
+    /**
+     * @return The amount of times {@link #resetPosition} was called, so consumers can tell the
+     * pose history started over.
+     */
+    public long getResetCount() {
+        return resetCount;
+    }
+
+    /**
+     * @return The history of past poses and field relative velocities, shared by every consumer.
+     */
+    public PoseHistory getPoseHistory() {
+        return poseHistory;
     }
 
      /**
      * Stops background updates from running.
      */
     public void stopUpdates(){
+        if (sampler != null) {
+            sampler.stop();
+        }
         backgroundUpdater.stop();
     }
 
+    /**
+     * @return The amount of odometry samples dropped because the replay could not keep up,
+     * always 0 if high frequency odometry is not being used.
+     */
+    public long getDroppedOdometrySamples(){
+        if (sampleQueue == null) {
+            return 0;
+        }
+        return sampleQueue.getDroppedSamples();
+    }
+
 }
@@ -0,0 +1,142 @@
+package lib.Forge.SwerveLib.Odometer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free, single-producer / single-consumer ring buffer of timestamped odometry samples.
+ * <p>
+ * Every sample stores the FPGA timestamp, the drive position and turn angle of each module and the
+ * gyro yaw as primitives, so neither the sampling thread nor the replaying thread allocates.
+ * <p>
+ * <b>Note:</b> Exactly one thread may call {@link #offer} and exactly one thread may call {@link #drain}.
+ * When the buffer is full new samples are dropped and counted in {@link #getDroppedSamples()}.
+ */
+public class OdometrySampleQueue {
+
+    /**
+     * Receives the samples stored in the queue, oldest first.
+     * The arrays passed are reused between calls and must not be kept.
+     */
+    @FunctionalInterface
+    public interface SampleConsumer{
+        void accept(double timestamp, double[] drivePositionsMeters, double[] turnAnglesRadians, double gyroYawRadians, boolean gyroConnected);
+    }
+
+    private final int capacity;
+    private final int moduleCount;
+
+    private final double[] timestamps;
+    private final double[] drivePositions;
+    private final double[] turnAngles;
+    private final double[] gyroYaws;
+    private final boolean[] gyroConnections;
+
+    private final double[] driveScratch;
+    private final double[] turnScratch;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile long droppedSamples = 0;
+
+    /**
+     * Creates a new {@link OdometrySampleQueue}.
+     *
+     * @param capacity    Maximum amount of samples stored before new ones are dropped.
+     * @param moduleCount Amount of swerve modules per sample.
+     */
+    public OdometrySampleQueue(int capacity, int moduleCount) {
+        this.capacity = capacity;
+        this.moduleCount = moduleCount;
+
+        this.timestamps = new double[capacity];
+        this.drivePositions = new double[capacity * moduleCount];
+        this.turnAngles = new double[capacity * moduleCount];
+        this.gyroYaws = new double[capacity];
+        this.gyroConnections = new boolean[capacity];
+
+        this.driveScratch = new double[moduleCount];
+        this.turnScratch = new double[moduleCount];
+    }
+
+    /**
+     * Stores a new sample. Must only be called from the sampling thread.
+     *
+     * @param timestamp             FPGA timestamp of the sample in seconds.
+     * @param drivePositionsMeters  Drive position of every module.
+     * @param turnAnglesRadians     Turn angle of every module.
+     * @param gyroYawRadians        Gyro yaw at the moment of the sample.
+     * @param gyroConnected         Whether the gyro reading is valid.
+     * @return true if the sample was stored, false if the queue was full.
+     */
+    public boolean offer(double timestamp, double[] drivePositionsMeters, double[] turnAnglesRadians, double gyroYawRadians, boolean gyroConnected) {
+        long writeIndex = head.get();
+
+        if (writeIndex - tail.get() >= capacity) {
+            droppedSamples++;
+            return false;
+        }
+
+        int slot = (int) (writeIndex % capacity);
+        int offset = slot * moduleCount;
+
+        timestamps[slot] = timestamp;
+        gyroYaws[slot] = gyroYawRadians;
+        gyroConnections[slot] = gyroConnected;
+        System.arraycopy(drivePositionsMeters, 0, drivePositions, offset, moduleCount);
+        System.arraycopy(turnAnglesRadians, 0, turnAngles, offset, moduleCount);
+
+        head.lazySet(writeIndex + 1);
+        return true;
+    }
+
+    /**
+     * Passes every pending sample to the consumer in the order they were sampled.
+     * Must only be called from the replaying thread.
+     *
+     * @param consumer The consumer of the samples.
+     * @return The amount of samples replayed.
+     */
+    public int drain(SampleConsumer consumer) {
+        long readIndex = tail.get();
+        long writeIndex = head.get();
+        int replayed = 0;
+
+        while (readIndex < writeIndex) {
+            int slot = (int) (readIndex % capacity);
+            int offset = slot * moduleCount;
+
+            System.arraycopy(drivePositions, offset, driveScratch, 0, moduleCount);
+            System.arraycopy(turnAngles, offset, turnScratch, 0, moduleCount);
+
+            consumer.accept(timestamps[slot], driveScratch, turnScratch, gyroYaws[slot], gyroConnections[slot]);
+
+            readIndex++;
+            replayed++;
+            tail.lazySet(readIndex);
+        }
+
+        return replayed;
+    }
+
+    /**
+     * @return The amount of samples waiting to be replayed.
+     */
+    public int size() {
+        return (int) (head.get() - tail.get());
+    }
+
+    /**
+     * @return The amount of samples dropped because the queue was full.
+     */
+    public long getDroppedSamples() {
+        return droppedSamples;
+    }
+
+    /**
+     * @return The amount of modules stored per sample.
+     */
+    public int getModuleCount() {
+        return moduleCount;
+    }
+}
@@ -0,0 +1,212 @@
+package lib.Forge.SwerveLib.Odometer;
+
+import java.util.concurrent.locks.StampedLock;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Fixed-size ring buffer of past robot poses and field relative velocities, stored as primitives.
+ * <p>
+ * Written by the odometry thread after every update and readable from any thread. Lookups binary
+ * search the buffer and interpolate between the two closest samples, so asking "where was the robot
+ * 80 ms ago" neither allocates (when using {@link #getPoseAt(double, PoseSample)}) nor copies the
+ * history.
+ */
+public class PoseHistory {
+
+    private final int capacity;
+
+    private final double[] timestamps;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] thetas;
+    private final double[] vxs;
+    private final double[] vys;
+    private final double[] omegas;
+
+    private final StampedLock lock = new StampedLock();
+
+    private int start = 0;
+    private int count = 0;
+
+    /**
+     * Creates a new {@link PoseHistory}.
+     *
+     * @param capacity The amount of samples kept, the oldest ones are overwritten.
+     */
+    public PoseHistory(int capacity) {
+        this.capacity = capacity;
+
+        this.timestamps = new double[capacity];
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.thetas = new double[capacity];
+        this.vxs = new double[capacity];
+        this.vys = new double[capacity];
+        this.omegas = new double[capacity];
+    }
+
+    /**
+     * Adds a sample. Timestamps must be increasing, older samples are ignored.
+     *
+     * @param timestamp The FPGA timestamp in seconds.
+     * @param x         The X position in meters.
+     * @param y         The Y position in meters.
+     * @param theta     The heading in radians.
+     * @param vx        The field relative X velocity in meters per second.
+     * @param vy        The field relative Y velocity in meters per second.
+     * @param omega     The angular velocity in radians per second.
+     */
+    void add(double timestamp, double x, double y, double theta, double vx, double vy, double omega) {
+        long stamp = lock.writeLock();
+        try {
+            if (count > 0 && timestamp <= timestamps[slot(count - 1)]) {
+                return;
+            }
+
+            int slot;
+
+            if (count < capacity) {
+                slot = slot(count);
+                count++;
+            } else {
+                slot = start;
+                start = (start + 1) % capacity;
+            }
+
+            timestamps[slot] = timestamp;
+            xs[slot] = x;
+            ys[slot] = y;
+            thetas[slot] = theta;
+            vxs[slot] = vx;
+            vys[slot] = vy;
+            omegas[slot] = omega;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes every sample.
+     */
+    void clear() {
+        long stamp = lock.writeLock();
+        try {
+            start = 0;
+            count = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copies the interpolated pose at {@code timestamp} into {@code out}. Timestamps newer than the
+     * latest sample return the latest sample.
+     *
+     * @param timestamp The FPGA timestamp in seconds.
+     * @param out       The sample to fill.
+     * @return false if the history is empty or the timestamp is older than the history.
+     */
+    public boolean getPoseAt(double timestamp, PoseSample out) {
+        return sample(timestamp, out, null);
+    }
+
+    /**
+     * Copies the interpolated field relative velocity at {@code timestamp} into {@code out} as
+     * vx, vy and omega. Timestamps newer than the latest sample return the latest sample.
+     *
+     * @param timestamp The FPGA timestamp in seconds.
+     * @param out       Array of at least 3 elements to fill.
+     * @return false if the history is empty or the timestamp is older than the history.
+     */
+    public boolean getVelocityAt(double timestamp, double[] out) {
+        return sample(timestamp, null, out);
+    }
+
+    /**
+     * Interpolates the pose and the velocity at the given timestamp.
+     *
+     * @param timestamp   The FPGA timestamp in seconds.
+     * @param poseOut     The sample to fill, or null.
+     * @param velocityOut The velocity to fill, or null.
+     * @return false if the history is empty or the timestamp is older than the history.
+     */
+    public boolean sample(double timestamp, PoseSample poseOut, double[] velocityOut) {
+        long stamp = lock.readLock();
+        try {
+            if (count == 0 || timestamp < timestamps[start]) {
+                return false;
+            }
+
+            int newest = slot(count - 1);
+
+            if (timestamp >= timestamps[newest]) {
+                write(newest, newest, 0.0, timestamps[newest], poseOut, velocityOut);
+                return true;
+            }
+
+            int low = 0;
+            int high = count - 1;
+
+            // Finds the last sample at or before the timestamp
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+
+                if (timestamps[slot(middle)] <= timestamp) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            int before = slot(low);
+            int after = slot(low + 1);
+
+            double t = (timestamp - timestamps[before]) / (timestamps[after] - timestamps[before]);
+
+            write(before, after, t, timestamp, poseOut, velocityOut);
+            return true;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void write(int before, int after, double t, double timestamp, PoseSample poseOut, double[] velocityOut) {
+        if (poseOut != null) {
+            poseOut.set(
+                MathUtil.interpolate(xs[before], xs[after], t),
+                MathUtil.interpolate(ys[before], ys[after], t),
+                MathUtil.angleModulus(thetas[before] + MathUtil.angleModulus(thetas[after] - thetas[before]) * t),
+                timestamp);
+        }
+
+        if (velocityOut != null) {
+            velocityOut[0] = MathUtil.interpolate(vxs[before], vxs[after], t);
+            velocityOut[1] = MathUtil.interpolate(vys[before], vys[after], t);
+            velocityOut[2] = MathUtil.interpolate(omegas[before], omegas[after], t);
+        }
+    }
+
+    private int slot(int index) {
+        return (start + index) % capacity;
+    }
+
+    /**
+     * @return The amount of samples stored.
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return count;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return The maximum amount of samples stored.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
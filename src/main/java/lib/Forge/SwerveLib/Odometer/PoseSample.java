@@ -0,0 +1,63 @@
+package lib.Forge.SwerveLib.Odometer;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * Mutable, reusable holder of a timestamped robot pose stored as primitives.
+ * <p>
+ * Meant to be allocated once by a consumer and filled on every loop by
+ * {@link ForgeSwerveDrivePoseEstimator#getEstimatedPose(PoseSample)}, so reading the pose does not
+ * create new objects.
+ */
+public class PoseSample {
+
+    private double x;
+    private double y;
+    private double rotationRadians;
+    private double timestamp;
+
+    void set(double x, double y, double rotationRadians, double timestamp){
+        this.x = x;
+        this.y = y;
+        this.rotationRadians = rotationRadians;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return The X position in meters.
+     */
+    public double getX(){
+        return x;
+    }
+
+    /**
+     * @return The Y position in meters.
+     */
+    public double getY(){
+        return y;
+    }
+
+    /**
+     * @return The heading in radians.
+     */
+    public double getRotationRadians(){
+        return rotationRadians;
+    }
+
+    /**
+     * @return The FPGA timestamp of the pose in seconds.
+     */
+    public double getTimestamp(){
+        return timestamp;
+    }
+
+    /**
+     * Creates a new {@link Pose2d} from this sample. Allocates, avoid it in hot loops.
+     *
+     * @return The sample as a {@link Pose2d}.
+     */
+    public Pose2d toPose2d(){
+        return new Pose2d(x, y, new Rotation2d(rotationRadians));
+    }
+}
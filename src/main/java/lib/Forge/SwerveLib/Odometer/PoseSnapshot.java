@@ -0,0 +1,80 @@
+package lib.Forge.SwerveLib.Odometer;
+
+import java.util.concurrent.locks.StampedLock;
+
+import edu.wpi.first.math.geometry.Pose2d;
+
+/**
+ * Single-writer snapshot of the latest estimated pose, shared between the odometry thread and any
+ * amount of readers.
+ * <p>
+ * The pose is stored twice: as primitives behind a {@link StampedLock} used as a seqlock, so readers
+ * copy x, y, theta and timestamp with an optimistic read that never blocks the writer, and as the
+ * immutable {@link Pose2d} produced by the estimator, published through a volatile reference so it
+ * can be handed out without allocating.
+ */
+class PoseSnapshot {
+
+    private final StampedLock sequence = new StampedLock();
+
+    private double x;
+    private double y;
+    private double rotationRadians;
+    private double timestamp;
+
+    private volatile Pose2d pose = Pose2d.kZero;
+
+    /**
+     * Publishes a new pose. Must only be called by one thread at a time.
+     *
+     * @param pose      The new pose.
+     * @param timestamp The FPGA timestamp of the pose.
+     */
+    void write(Pose2d pose, double timestamp){
+        long stamp = sequence.writeLock();
+        try {
+            this.x = pose.getX();
+            this.y = pose.getY();
+            this.rotationRadians = pose.getRotation().getRadians();
+            this.timestamp = timestamp;
+        } finally {
+            sequence.unlockWrite(stamp);
+        }
+
+        this.pose = pose;
+    }
+
+    /**
+     * Copies the latest pose into the given sample without locking in the common case.
+     *
+     * @param out The sample to fill.
+     */
+    void read(PoseSample out){
+        long stamp = sequence.tryOptimisticRead();
+        double readX = x;
+        double readY = y;
+        double readRotation = rotationRadians;
+        double readTimestamp = timestamp;
+
+        if (!sequence.validate(stamp)) {
+            stamp = sequence.readLock();
+            try {
+                readX = x;
+                readY = y;
+                readRotation = rotationRadians;
+                readTimestamp = timestamp;
+            } finally {
+                sequence.unlockRead(stamp);
+            }
+        }
+
+        out.set(readX, readY, readRotation, readTimestamp);
+    }
+
+    /**
+     * @return The latest pose. The returned object is immutable and shared.
+     */
+    Pose2d getPose(){
+        return pose;
+    }
+}
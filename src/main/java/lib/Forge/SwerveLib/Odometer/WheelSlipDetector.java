@@ -0,0 +1,194 @@
+package lib.Forge.SwerveLib.Odometer;
+
+import lib.Forge.SwerveLib.Utils.PrimitiveSwerveKinematics;
+
+/**
+ * Detects slipping modules and collisions from the odometry deltas.
+ * <p>
+ * Every module is checked against the motion solved from the other modules. When the worst module
+ * disagrees by more than the allowed slip, its delta is replaced by the one the rest of the robot
+ * predicts for it. The rotation measured by the wheels is also compared against the gyro, a
+ * mismatch means the robot was pushed or hit. After either event {@link #getOdometryTrust} drops
+ * and recovers linearly, so vision can be trusted more while the odometry is unreliable.
+ * <p>
+ * <b>Note:</b> Only one module can be corrected per sample, with two slipping modules the
+ * remaining ones do not define the motion anymore.
+ */
+public class WheelSlipDetector {
+
+    private final PrimitiveSwerveKinematics kinematics;
+
+    private final double[] excludedTwist = new double[3];
+    private final double[] predictedDeltas;
+
+    private volatile double slipVelocityThreshold = 0.5;
+    private volatile double slipRatioThreshold = 0.25;
+    private volatile double collisionRateThreshold = 1.0;
+    private volatile double disturbedTrust = 0.25;
+    private volatile double recoveryTime = 1.0;
+
+    private volatile double lastDisturbance = Double.NEGATIVE_INFINITY;
+    private volatile int lastSlippingModule = -1;
+    private volatile long slipEvents = 0;
+    private volatile long collisionEvents = 0;
+
+    /**
+     * Creates a new {@link WheelSlipDetector}.
+     *
+     * @param kinematics The kinematics of the drive, must have at least 4 modules.
+     */
+    public WheelSlipDetector(PrimitiveSwerveKinematics kinematics) {
+        this.kinematics = kinematics;
+        this.predictedDeltas = new double[kinematics.getModuleCount()];
+    }
+
+    /**
+     * Checks every module against the others and replaces the delta of the worst one in place if
+     * it is slipping.
+     *
+     * @param timestamp      The timestamp of the sample.
+     * @param dt             The time since the previous sample in seconds.
+     * @param distanceDeltas Distance travelled by every module, corrected in place.
+     * @param angleCos       Cosine of the angle of every module.
+     * @param angleSin       Sine of the angle of every module.
+     * @return The index of the corrected module, or -1 if none was slipping.
+     */
+    int correct(double timestamp, double dt, double[] distanceDeltas, double[] angleCos, double[] angleSin) {
+
+        int worstModule = -1;
+        double worstResidual = 0.0;
+
+        for (int i = 0; i < predictedDeltas.length; i++) {
+            kinematics.toTwistExcluding(i, distanceDeltas, angleCos, angleSin, excludedTwist);
+            predictedDeltas[i] = kinematics.toModuleDistance(i, excludedTwist, angleCos[i], angleSin[i]);
+
+            double residual = Math.abs(distanceDeltas[i] - predictedDeltas[i]);
+
+            if (residual > worstResidual) {
+                worstResidual = residual;
+                worstModule = i;
+            }
+        }
+
+        if (worstModule == -1) {
+            lastSlippingModule = -1;
+            return -1;
+        }
+
+        double allowedSlip = Math.max(
+            slipVelocityThreshold * dt,
+            slipRatioThreshold * Math.abs(predictedDeltas[worstModule]));
+
+        if (worstResidual <= allowedSlip) {
+            lastSlippingModule = -1;
+            return -1;
+        }
+
+        distanceDeltas[worstModule] = predictedDeltas[worstModule];
+
+        if (lastSlippingModule != worstModule) {
+            slipEvents++;
+        }
+
+        lastSlippingModule = worstModule;
+        lastDisturbance = timestamp;
+
+        return worstModule;
+    }
+
+    /**
+     * Compares the rotation measured by the wheels against the gyro.
+     *
+     * @param timestamp   The timestamp of the sample.
+     * @param dt          The time since the previous sample in seconds.
+     * @param wheelDtheta The rotation measured by the wheels in radians.
+     * @param gyroDtheta  The rotation measured by the gyro in radians.
+     * @return true if the difference means the robot was hit.
+     */
+    boolean checkCollision(double timestamp, double dt, double wheelDtheta, double gyroDtheta) {
+
+        if (dt <= 0.0 || Math.abs(wheelDtheta - gyroDtheta) / dt <= collisionRateThreshold) {
+            return false;
+        }
+
+        if (timestamp - lastDisturbance > recoveryTime) {
+            collisionEvents++;
+        }
+
+        lastDisturbance = timestamp;
+        return true;
+    }
+
+    /**
+     * Forgets the last disturbance, used after the pose is reset.
+     */
+    void reset() {
+        lastDisturbance = Double.NEGATIVE_INFINITY;
+        lastSlippingModule = -1;
+    }
+
+    /**
+     * Gets how much the odometry can be trusted. It is 1 while no slip nor collision is being
+     * detected, drops to the disturbed trust on every event and recovers linearly.
+     *
+     * @param timestamp The current FPGA timestamp in seconds.
+     * @return The trust, between the disturbed trust and 1.
+     */
+    public double getOdometryTrust(double timestamp) {
+        double elapsed = timestamp - lastDisturbance;
+
+        if (elapsed >= recoveryTime) {
+            return 1.0;
+        }
+
+        return disturbedTrust + (1.0 - disturbedTrust) * Math.max(elapsed, 0.0) / recoveryTime;
+    }
+
+    /**
+     * Sets how much a module can disagree with the others before it is considered slipping.
+     *
+     * @param slipVelocity The allowed disagreement in meters per second.
+     * @param slipRatio    The allowed disagreement relative to the predicted motion.
+     */
+    public void setSlipThresholds(double slipVelocity, double slipRatio) {
+        this.slipVelocityThreshold = slipVelocity;
+        this.slipRatioThreshold = slipRatio;
+    }
+
+    /**
+     * @param collisionRate The allowed difference between the wheel and gyro angular velocity in radians per second.
+     */
+    public void setCollisionThreshold(double collisionRate) {
+        this.collisionRateThreshold = collisionRate;
+    }
+
+    /**
+     * @param disturbedTrust The odometry trust right after a disturbance, between 0 and 1.
+     * @param recoveryTime   The time in seconds to recover full trust.
+     */
+    public void setTrustRecovery(double disturbedTrust, double recoveryTime) {
+        this.disturbedTrust = disturbedTrust;
+        this.recoveryTime = recoveryTime;
+    }
+
+    /**
+     * @return The index of the module corrected on the last sample, or -1.
+     */
+    public int getSlippingModule() {
+        return lastSlippingModule;
+    }
+
+    /**
+     * @return The amount of times a module started slipping.
+     */
+    public long getSlipEvents() {
+        return slipEvents;
+    }
+
+    /**
+     * @return The amount of collisions detected.
+     */
+    public long getCollisionEvents() {
+        return collisionEvents;
+    }
+}
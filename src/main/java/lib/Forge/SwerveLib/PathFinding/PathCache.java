@@ -0,0 +1,308 @@
+package lib.Forge.SwerveLib.PathFinding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.pathfinding.LocalADStar;
+import com.pathplanner.lib.pathfinding.Pathfinder;
+
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import lib.Forge.Field.FieldObject;
+import lib.Forge.Field.Pose2DFlipper;
+
+/**
+ * Precomputes paths to the registered goals in a background thread, so a pathfinding command can
+ * start following a path right away instead of waiting for the first solution of the pathfinder.
+ * <p>
+ * The field is split in square cells of {@link #kCellSize} meters. Paths are computed from the
+ * center of the cells around the robot to every goal, and kept by start cell, goal and constraints.
+ * The goals are registered in blue alliance coordinates and solved for the current alliance.
+ * Paths of cells the robot left behind, or of the other alliance, are dropped, so the cache holds
+ * at most {@code (2 * kNeighborCells + 1)^2} paths per goal. Setting dynamic obstacles clears the
+ * cache.
+ * <p>
+ * The thread uses its own {@link LocalADStar}, separate from the one PathPlanner commands use.
+ */
+public class PathCache {
+
+    /** The size in meters of the start cells, small enough for a path to start close to the robot. */
+    public static final double kCellSize = 0.5;
+
+    /** How many cells around the robot cell get paths, in every direction. */
+    public static final int kNeighborCells = 1;
+
+    /** The longest time in seconds the thread waits for a solution. */
+    public static final double kSolveTimeout = 2.0;
+
+    private static final long kIdlePeriodNanos = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long kPollPeriodNanos = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private record Goal(Pose2d pose, PathConstraints constraints) {}
+
+    private record PathKey(int cellX, int cellY, Pose2d goal, PathConstraints constraints) {}
+
+    private final FieldObject field;
+
+    private final ConcurrentHashMap<PathKey, PathPlannerPath> paths = new ConcurrentHashMap<>();
+    // Paths without a solution, not retried until the cache is cleared or the robot leaves the cell
+    private final Set<PathKey> unsolved = ConcurrentHashMap.newKeySet();
+    private final CopyOnWriteArrayList<Goal> goals = new CopyOnWriteArrayList<>();
+
+    private final Object invalidationLock = new Object();
+    private volatile long generation = 0;
+
+    private volatile List<Pair<Translation2d, Translation2d>> obstacles = List.of();
+    private volatile boolean obstaclesChanged = false;
+
+    private volatile int robotCellX;
+    private volatile int robotCellY;
+    private volatile boolean hasRobotCell = false;
+    private volatile boolean blueAlliance = true;
+
+    // What the cache was last trimmed for, only used by the thread
+    private int trimmedCellX;
+    private int trimmedCellY;
+    private boolean trimmedBlueAlliance;
+    private boolean trimmed = false;
+
+    private final Thread thread;
+
+    /**
+     * Creates a new {@link PathCache} and starts its thread.
+     *
+     * @param field The field, used to flip the goals for the red alliance.
+     */
+    public PathCache(FieldObject field) {
+        this.field = field;
+
+        this.thread = new Thread(this::run, "ForgePathCache");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Registers a goal to precompute paths to, does nothing if already registered.
+     *
+     * @param blueGoal    The goal in blue alliance coordinates.
+     * @param constraints The constraints of the paths.
+     */
+    public void addGoal(Pose2d blueGoal, PathConstraints constraints) {
+        if (goals.addIfAbsent(new Goal(blueGoal, constraints))) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Tells the thread where the robot is, called every loop from the robot thread.
+     *
+     * @param robotPosition The robot position on the field.
+     * @param blueAlliance  True if the robot is on the blue alliance.
+     */
+    public void update(Translation2d robotPosition, boolean blueAlliance) {
+        int cellX = cellOf(robotPosition.getX());
+        int cellY = cellOf(robotPosition.getY());
+
+        if (!hasRobotCell || cellX != robotCellX || cellY != robotCellY || blueAlliance != this.blueAlliance) {
+            this.robotCellX = cellX;
+            this.robotCellY = cellY;
+            this.blueAlliance = blueAlliance;
+            this.hasRobotCell = true;
+
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Gets the cached path from the cell of the robot to a goal.
+     *
+     * @param robotPosition The robot position on the field.
+     * @param goal          The goal in field coordinates, already flipped for the alliance.
+     * @param constraints   The constraints of the path.
+     * @return The path, or null if it is not cached.
+     */
+    public PathPlannerPath get(Translation2d robotPosition, Pose2d goal, PathConstraints constraints) {
+        return paths.get(new PathKey(cellOf(robotPosition.getX()), cellOf(robotPosition.getY()), goal, constraints));
+    }
+
+    /**
+     * Sets the dynamic obstacles of the precomputed paths and clears the cache.
+     *
+     * @param obstacles The obstacles as pairs of opposite corners of a bounding box.
+     */
+    public void setDynamicObstacles(List<Pair<Translation2d, Translation2d>> obstacles) {
+        this.obstacles = List.copyOf(obstacles);
+        this.obstaclesChanged = true;
+        invalidate();
+    }
+
+    /**
+     * Clears every cached path.
+     */
+    public void invalidate() {
+        synchronized (invalidationLock) {
+            generation++;
+            paths.clear();
+            unsolved.clear();
+        }
+
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * @return The amount of cached paths.
+     */
+    public int size() {
+        return paths.size();
+    }
+
+    private static int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / kCellSize);
+    }
+
+    private void run() {
+        Pathfinder pathfinder = new LocalADStar();
+
+        while (true) {
+            try {
+                if (obstaclesChanged) {
+                    obstaclesChanged = false;
+                    pathfinder.setDynamicObstacles(obstacles, cellCenter(robotCellX, robotCellY));
+                }
+
+                if (!solveNext(pathfinder)) {
+                    LockSupport.parkNanos(kIdlePeriodNanos);
+                }
+
+            } catch (Exception e) {
+                e.printStackTrace();
+                LockSupport.parkNanos(kIdlePeriodNanos);
+            }
+        }
+    }
+
+    /**
+     * Solves the first missing path, closest cells first.
+     *
+     * @return false if there was nothing to solve.
+     */
+    private boolean solveNext(Pathfinder pathfinder) {
+        if (!hasRobotCell || goals.isEmpty()) {
+            return false;
+        }
+
+        int centerX = robotCellX;
+        int centerY = robotCellY;
+        boolean blue = blueAlliance;
+
+        if (!trimmed || centerX != trimmedCellX || centerY != trimmedCellY || blue != trimmedBlueAlliance) {
+            trim(centerX, centerY, blue);
+        }
+
+        for (int ring = 0; ring <= kNeighborCells; ring++) {
+            for (int x = centerX - ring; x <= centerX + ring; x++) {
+                for (int y = centerY - ring; y <= centerY + ring; y++) {
+
+                    if (Math.max(Math.abs(x - centerX), Math.abs(y - centerY)) != ring || x < 0 || y < 0) {
+                        continue;
+                    }
+
+                    for (Goal goal : goals) {
+                        PathKey key = new PathKey(x, y, fieldGoal(goal, blue), goal.constraints());
+
+                        if (!paths.containsKey(key) && !unsolved.contains(key)) {
+                            solve(pathfinder, key);
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Drops the paths of cells out of the neighborhood of the robot, and the ones to the goals of
+     * the other alliance.
+     */
+    private void trim(int centerX, int centerY, boolean blue) {
+        ArrayList<Pose2d> fieldGoals = new ArrayList<>(goals.size());
+
+        for (Goal goal : goals) {
+            fieldGoals.add(fieldGoal(goal, blue));
+        }
+
+        paths.keySet().removeIf(key -> !isNeighbor(key, centerX, centerY) || !fieldGoals.contains(key.goal()));
+        unsolved.removeIf(key -> !isNeighbor(key, centerX, centerY) || !fieldGoals.contains(key.goal()));
+
+        trimmedCellX = centerX;
+        trimmedCellY = centerY;
+        trimmedBlueAlliance = blue;
+        trimmed = true;
+    }
+
+    private static boolean isNeighbor(PathKey key, int centerX, int centerY) {
+        return Math.abs(key.cellX() - centerX) <= kNeighborCells && Math.abs(key.cellY() - centerY) <= kNeighborCells;
+    }
+
+    private Pose2d fieldGoal(Goal goal, boolean blue) {
+        return blue ? goal.pose() : Pose2DFlipper.flip(goal.pose(), field);
+    }
+
+    private void solve(Pathfinder pathfinder, PathKey key) {
+        long startGeneration = generation;
+
+        // Drop a solution left by a previous request that timed out
+        if (pathfinder.isNewPathAvailable()) {
+            pathfinder.getCurrentPath(key.constraints(), new GoalEndState(0, key.goal().getRotation()));
+        }
+
+        pathfinder.setStartPosition(cellCenter(key.cellX(), key.cellY()));
+        pathfinder.setGoalPosition(key.goal().getTranslation());
+
+        long deadline = System.nanoTime() + (long) (kSolveTimeout * 1e9);
+
+        while (!pathfinder.isNewPathAvailable()) {
+            if (generation != startGeneration) {
+                return;
+            }
+
+            if (System.nanoTime() > deadline) {
+                unsolved.add(key);
+                return;
+            }
+
+            LockSupport.parkNanos(kPollPeriodNanos);
+        }
+
+        PathPlannerPath path = pathfinder.getCurrentPath(key.constraints(), new GoalEndState(0, key.goal().getRotation()));
+
+        synchronized (invalidationLock) {
+            // The robot may have left the neighborhood of the cell while solving
+            if (generation != startGeneration || !isNeighbor(key, robotCellX, robotCellY)) {
+                return;
+            }
+
+            if (path == null) {
+                unsolved.add(key);
+            } else {
+                paths.put(key, path);
+            }
+        }
+    }
+
+    private static Translation2d cellCenter(int cellX, int cellY) {
+        return new Translation2d((cellX + 0.5) * kCellSize, (cellY + 0.5) * kCellSize);
+    }
+}
@@ -1,6 +1,8 @@
 package lib.Forge.SwerveLib.PathFinding;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -9,8 +11,13 @@ import com.pathplanner.lib.auto.AutoBuilder;
 import com.pathplanner.lib.commands.PathfindingCommand;
 import com.pathplanner.lib.path.PathConstraints;
 import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.path.Waypoint;
+import com.pathplanner.lib.pathfinding.Pathfinding;
+
+import edu.wpi.first.math.Pair;
 
 import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.util.sendable.Sendable;
 import edu.wpi.first.util.sendable.SendableBuilder;
@@ -32,15 +39,24 @@ import lib.Forge.Field.Pose2DFlipper;
  */
 public class PoseFinder implements Sendable{
 
+    /** How far in meters the robot can be from the start of a cached path to follow it as it is. */
+    public static final double kCachedPathStartTolerance = 0.1;
+
+    /** The speed in meters per second under which the robot can follow a cached path as it is. */
+    public static final double kCachedPathMaxStartSpeed = 0.1;
+
     private Subsystem swerveSub;
     private Pose2d goal;
     private Supplier<Pose2d> swervePose;
+    private Supplier<ChassisSpeeds> swerveSpeeds;
     private Consumer<Pose2d> poseReseter;
     private Consumer<ChassisSpeeds> runVelocity;
     private FieldObject field;
     private PathConstraints constraints;
     private boolean currentState = false;
     private double errorTolerance = 0;
+    private TwoDimensionalSpace goalSpace;
+    private PathCache pathCache;
 
     /**
      * Constructs a {@code PoseFinder} instance for autonomous navigation.
@@ -54,15 +70,35 @@ public class PoseFinder implements Sendable{
      * @param holonomicDriveTrain The swerve subsystem, required for command-based operations.
      */
     public PoseFinder(FieldObject field, PathConstraints finderConstraints, Consumer<ChassisSpeeds> setVelocity, Supplier<Pose2d> getPose, Consumer<Pose2d> setPose, double errorTolerance, Subsystem holonomicDriveTrain){
+        this(field, finderConstraints, setVelocity, getPose, null, setPose, errorTolerance, holonomicDriveTrain);
+    }
+
+    /**
+     * Constructs a {@code PoseFinder} instance for autonomous navigation, that follows the cached
+     * paths as they are when the robot is stopped at their start.
+     *
+     * @param field The field object for flipping poses based on alliance color.
+     * @param finderConstraints The default path constraints.
+     * @param setVelocity A consumer to set the robot's velocity.
+     * @param getPose A supplier to retrieve the current robot pose.
+     * @param getSpeeds A supplier to retrieve the robot relative speeds, null if unknown.
+     * @param setPose A consumer to reset the robot's pose.
+     * @param errorTolerance The allowable position tolerance for reaching the goal.
+     * @param holonomicDriveTrain The swerve subsystem, required for command-based operations.
+     */
+    public PoseFinder(FieldObject field, PathConstraints finderConstraints, Consumer<ChassisSpeeds> setVelocity, Supplier<Pose2d> getPose, Supplier<ChassisSpeeds> getSpeeds, Consumer<Pose2d> setPose, double errorTolerance, Subsystem holonomicDriveTrain){
         this.goal = new Pose2d();
         this.swerveSub = holonomicDriveTrain;
         this.swervePose = getPose;
+        this.swerveSpeeds = getSpeeds;
         this.poseReseter = setPose;
         this.runVelocity = setVelocity;
         this.field = field;
         this.constraints = finderConstraints;
         this.currentState = false;
         this.errorTolerance = errorTolerance;
+        this.goalSpace = new TwoDimensionalSpace(goal.getTranslation(), errorTolerance);
+        this.pathCache = new PathCache(field);
 
         PathfindingCommand.warmupCommand().schedule();
 
@@ -81,9 +117,55 @@ public class PoseFinder implements Sendable{
         builder.addDoubleProperty("PercentageTolerance", ()-> errorTolerance, null);
 
         builder.addBooleanProperty("IsSwervePathFinding", ()-> isPathFinding(), null);
+
+        builder.addIntegerProperty("CachedPaths", ()-> pathCache.size(), null);
         
     }
 
+    /**
+     * Updates the start cell of the precomputed paths, must be called periodically.
+     */
+    public void periodic(){
+        pathCache.update(swervePose.get().getTranslation(), isBlueAlliance());
+    }
+
+    /**
+     * Registers a goal so the paths to it are precomputed around the robot, the pose commands
+     * register their goals by themselves.
+     *
+     * @param objective The goal in blue alliance coordinates.
+     * @param pathConstraints The path constraints.
+     */
+    public void registerGoal(Pose2d objective, PathConstraints pathConstraints){
+        pathCache.addGoal(objective, pathConstraints);
+    }
+
+    /**
+     * Registers a goal with the default constraints so the paths to it are precomputed.
+     *
+     * @param objective The goal in blue alliance coordinates.
+     */
+    public void registerGoal(Pose2d objective){
+        registerGoal(objective, constraints);
+    }
+
+    /**
+     * Sets the dynamic obstacles of the pathfinder and clears the precomputed paths.
+     *
+     * @param obstacles The obstacles as pairs of opposite corners of a bounding box.
+     */
+    public void setDynamicObstacles(List<Pair<Translation2d, Translation2d>> obstacles){
+        Pathfinding.setDynamicObstacles(obstacles, swervePose.get().getTranslation());
+        pathCache.setDynamicObstacles(obstacles);
+    }
+
+    /**
+     * @return The cache of precomputed paths.
+     */
+    public PathCache getPathCache(){
+        return pathCache;
+    }
+
     /**
      * @return The position tolerance for determining if the robot has reached its goal.
      */
@@ -98,6 +180,7 @@ public class PoseFinder implements Sendable{
      */
     public void setPathFindingTolerance(double newTolerance){
         this.errorTolerance = newTolerance;
+        this.goalSpace = new TwoDimensionalSpace(goal.getTranslation(), newTolerance);
     }
 
 
@@ -119,7 +202,12 @@ public class PoseFinder implements Sendable{
      * @return True if the robot is within the error tolerance of the goal.
      */
     public boolean atGoal(){
-        return new TwoDimensionalSpace(goal.getTranslation(), errorTolerance).atSpace(swervePose.get());
+        return goalSpace.atSpace(swervePose.get());
+    }
+
+    private void setGoal(Pose2d goal){
+        this.goal = goal;
+        this.goalSpace = new TwoDimensionalSpace(goal.getTranslation(), errorTolerance);
     }
 
 
@@ -154,11 +242,84 @@ public class PoseFinder implements Sendable{
         return currentState;
     }
 
+    /**
+     * Follows the precomputed path from the cell of the robot if there is one, otherwise pathfinds.
+     */
+    private Command pathTo(Pose2d pose, PathConstraints pathVel){
+        Pose2d robotPose = swervePose.get();
+        PathPlannerPath cachedPath = pathCache.get(robotPose.getTranslation(), pose, pathVel);
+
+        if (cachedPath == null) {
+            return AutoBuilder.pathfindToPose(pose, pathVel);
+        }
+
+        return AutoBuilder.followPath(isStoppedAtStart(cachedPath, robotPose) ? cachedPath : fromRobot(cachedPath, robotPose));
+    }
+
+    /**
+     * @return True if the robot is stopped close enough to the start of the path to follow it as it is.
+     */
+    private boolean isStoppedAtStart(PathPlannerPath path, Pose2d robotPose){
+        if (swerveSpeeds == null) {
+            return false;
+        }
+
+        ChassisSpeeds speeds = swerveSpeeds.get();
+
+        return path.getWaypoints().get(0).anchor().getDistance(robotPose.getTranslation()) < kCachedPathStartTolerance
+            && Math.hypot(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond) < kCachedPathMaxStartSpeed;
+    }
+
+    /**
+     * Rebuilds a cached path so it starts at the robot instead of the center of its cell, heading
+     * where the robot moves if it is moving.
+     */
+    private PathPlannerPath fromRobot(PathPlannerPath path, Pose2d robotPose){
+        Translation2d robotPosition = robotPose.getTranslation();
+        List<Waypoint> waypoints = path.getWaypoints();
+
+        ArrayList<Translation2d> anchors = new ArrayList<>(waypoints.size() + 1);
+        anchors.add(robotPosition);
+
+        for (int i = 0; i < waypoints.size(); i++) {
+            Translation2d anchor = waypoints.get(i).anchor();
+
+            // A start too close to the robot is replaced by it, it would not give a heading
+            if (i == 0 && anchor.getDistance(robotPosition) < kCachedPathStartTolerance) {
+                continue;
+            }
+
+            anchors.add(anchor);
+        }
+
+        ChassisSpeeds speeds = swerveSpeeds != null
+            ? ChassisSpeeds.fromRobotRelativeSpeeds(swerveSpeeds.get(), robotPose.getRotation())
+            : new ChassisSpeeds();
+
+        int last = anchors.size() - 1;
+        ArrayList<Pose2d> poses = new ArrayList<>(anchors.size());
+
+        for (int i = 0; i <= last; i++) {
+            Translation2d direction;
+
+            if (i == 0 && Math.hypot(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond) >= kCachedPathMaxStartSpeed) {
+                direction = new Translation2d(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond);
+            } else {
+                direction = anchors.get(Math.min(i + 1, last)).minus(anchors.get(Math.max(i - 1, 0)));
+            }
+
+            poses.add(new Pose2d(anchors.get(i), direction.getAngle()));
+        }
+
+        return new PathPlannerPath(
+            PathPlannerPath.waypointsFromPoses(poses), path.getGlobalConstraints(), null, path.getGoalEndState());
+    }
+
     private Command toRawPose(Pose2d pose, PathConstraints pathVel){
 
-        Command pathFind = AutoBuilder.pathfindToPose(pose, pathVel).beforeStarting(()-> {
+        Command pathFind = Commands.defer(()-> pathTo(pose, pathVel), Set.of(swerveSub)).beforeStarting(()-> {
 
-        this.goal = pose;
+        setGoal(pose);
         this.currentState = true;
         }, swerveSub).onlyWhile(()-> !atGoal()).finallyDo(()-> {
             this.currentState = false;
@@ -203,6 +364,8 @@ public class PoseFinder implements Sendable{
      * @return A ConditionalCommand that adjusts for alliance color.
      */
     public ConditionalCommand toPoseCommand(Pose2d objective){
+        registerGoal(objective, constraints);
+
         return new ConditionalCommand(
             toRawPose(objective, constraints),
             toRawPose(Pose2DFlipper.flip(objective, field), constraints),
@@ -218,6 +381,8 @@ public class PoseFinder implements Sendable{
      * @return A ConditionalCommand that adjusts for alliance color.
      */
     public ConditionalCommand toPoseCommand(Pose2d objective, PathConstraints newConstraints){
+        registerGoal(objective, newConstraints);
+
         return new ConditionalCommand(
             toRawPose(objective, newConstraints),
             toRawPose(Pose2DFlipper.flip(objective, field), newConstraints),
@@ -394,24 +559,62 @@ public class PoseFinder implements Sendable{
     }
 
     /**
-     * Moves to the nearest pose in the list.
+     * Moves to the pose of the index closest to the robot when the command starts.
+     *
+     * @param poses The index of possible target poses.
+     * @param newConstraints The path constraints.
+     * @return A ConditionalCommand that adjusts for alliance color.
+     */
+    public ConditionalCommand toNearestPoseCommand(PoseIndex poses, PathConstraints newConstraints){
+        for (int i = 0; i < poses.size(); i++) {
+            registerGoal(poses.getPose(i, true), newConstraints);
+        }
+
+        return new ConditionalCommand(
+            toNearestRawPose(poses, true, newConstraints),
+            toNearestRawPose(poses, false, newConstraints),
+            ()-> isBlueAlliance());
+    }
+
+    /**
+     * Moves to the pose of the index closest to the robot when the command starts.
+     *
+     * @param poses The index of possible target poses.
+     * @return A ConditionalCommand that adjusts for alliance color.
+     */
+    public ConditionalCommand toNearestPoseCommand(PoseIndex poses){
+        return toNearestPoseCommand(poses, constraints);
+    }
+
+    /**
+     * Moves to the nearest pose in the list. Builds a {@link PoseIndex} every call, keep one for
+     * lists used more than once.
      *
      * @param poses The list of possible target poses.
      * @return A ConditionalCommand to move to the nearest pose.
      */
     public ConditionalCommand toNearestPoseCommand(List<Pose2d> poses){
-        return toPoseCommand(swervePose.get().nearest(poses));
+        return toNearestPoseCommand(new PoseIndex(poses, field));
     }
 
     /**
-     * Moves to the nearest pose in the list with specified constraints.
+     * Moves to the nearest pose in the list with specified constraints. Builds a {@link PoseIndex}
+     * every call, keep one for lists used more than once.
      *
      * @param poses The list of possible target poses.
      * @param newConstraints The path constraints.
      * @return A ConditionalCommand to move to the nearest pose.
      */
     public ConditionalCommand toNearestPoseCommand(List<Pose2d> poses, PathConstraints newConstraints){
-        return toPoseCommand(swervePose.get().nearest(poses), newConstraints);
+        return toNearestPoseCommand(new PoseIndex(poses, field), newConstraints);
+    }
+
+    private Command toNearestRawPose(PoseIndex poses, boolean blueAlliance, PathConstraints pathVel){
+        return Commands.defer(()-> {
+            Pose2d nearest = poses.nearest(swervePose.get().getTranslation(), blueAlliance);
+
+            return nearest != null ? toRawPose(nearest, pathVel) : Commands.none();
+        }, Set.of(swerveSub));
     }
 
     /**
@@ -0,0 +1,298 @@
+package lib.Forge.SwerveLib.PathFinding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import lib.Forge.Field.FieldObject;
+import lib.Forge.Field.Pose2DFlipper;
+
+/**
+ * A k-d tree of target poses for nearest pose queries, with the red alliance copies flipped once
+ * when it is built.
+ * <p>
+ * The trees live in primitive arrays, so {@link #nearestIndex} and {@link #kNearest} do not
+ * allocate and can run every loop, e.g. to re-rank the targets as the robot moves. Distances only
+ * consider the translation of the poses. Queries use scratch fields, an index must be queried from
+ * one thread at a time.
+ */
+public class PoseIndex {
+
+    /**
+     * A static 2-d tree stored in place: the node of a range is its middle element, the left and
+     * right halves are its children, and the split axis alternates between X and Y by depth.
+     */
+    private static final class Tree {
+
+        private final double[] x;
+        private final double[] y;
+        private final int[] ids;
+
+        Tree(double[] px, double[] py) {
+            int size = px.length;
+
+            this.ids = new int[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = i;
+            }
+
+            build(px, py, 0, size, 0);
+
+            this.x = new double[size];
+            this.y = new double[size];
+            for (int i = 0; i < size; i++) {
+                x[i] = px[ids[i]];
+                y[i] = py[ids[i]];
+            }
+        }
+
+        private void build(double[] px, double[] py, int lo, int hi, int depth) {
+            if (hi - lo <= 1) {
+                return;
+            }
+
+            double[] axis = (depth & 1) == 0 ? px : py;
+
+            // Only done once, a sort of the range keeps the median in the middle
+            for (int i = lo + 1; i < hi; i++) {
+                int id = ids[i];
+                int j = i - 1;
+
+                while (j >= lo && axis[ids[j]] > axis[id]) {
+                    ids[j + 1] = ids[j];
+                    j--;
+                }
+
+                ids[j + 1] = id;
+            }
+
+            int middle = (lo + hi) >>> 1;
+            build(px, py, lo, middle, depth + 1);
+            build(px, py, middle + 1, hi, depth + 1);
+        }
+    }
+
+    private final Pose2d[] bluePoses;
+    private final Pose2d[] redPoses;
+    private final String[] names;
+
+    private final Tree blueTree;
+    private final Tree redTree;
+
+    // Query scratch, see the class comment
+    private int bestSlot;
+    private double bestDistance;
+    private int foundCount;
+
+    /**
+     * Creates a new {@link PoseIndex} of unnamed poses.
+     *
+     * @param poses The poses in blue alliance coordinates.
+     * @param field The field, used to flip the poses for the red alliance.
+     */
+    public PoseIndex(List<Pose2d> poses, FieldObject field) {
+        this(null, poses, field);
+    }
+
+    /**
+     * Creates a new {@link PoseIndex} of named poses.
+     *
+     * @param namedPoses The poses in blue alliance coordinates by name, in the order of their indices.
+     * @param field      The field, used to flip the poses for the red alliance.
+     */
+    public PoseIndex(Map<String, Pose2d> namedPoses, FieldObject field) {
+        this(new ArrayList<>(namedPoses.keySet()), new ArrayList<>(namedPoses.values()), field);
+    }
+
+    private PoseIndex(List<String> names, List<Pose2d> poses, FieldObject field) {
+        int size = poses.size();
+
+        this.bluePoses = poses.toArray(new Pose2d[0]);
+        this.redPoses = new Pose2d[size];
+        this.names = names != null ? names.toArray(new String[0]) : null;
+
+        double[] blueX = new double[size];
+        double[] blueY = new double[size];
+        double[] redX = new double[size];
+        double[] redY = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            redPoses[i] = Pose2DFlipper.flip(bluePoses[i], field);
+
+            blueX[i] = bluePoses[i].getX();
+            blueY[i] = bluePoses[i].getY();
+            redX[i] = redPoses[i].getX();
+            redY[i] = redPoses[i].getY();
+        }
+
+        this.blueTree = new Tree(blueX, blueY);
+        this.redTree = new Tree(redX, redY);
+    }
+
+    /**
+     * Finds the pose closest to a position.
+     *
+     * @param x            The X coordinate of the position in meters.
+     * @param y            The Y coordinate of the position in meters.
+     * @param blueAlliance True to search the blue alliance poses, false for the flipped ones.
+     * @return The index of the closest pose, or -1 if the index is empty.
+     */
+    public int nearestIndex(double x, double y, boolean blueAlliance) {
+        Tree tree = blueAlliance ? blueTree : redTree;
+
+        bestSlot = -1;
+        bestDistance = Double.POSITIVE_INFINITY;
+
+        searchNearest(tree, 0, tree.ids.length, 0, x, y);
+
+        return bestSlot < 0 ? -1 : tree.ids[bestSlot];
+    }
+
+    /**
+     * Finds the pose closest to a position.
+     *
+     * @param position     The position.
+     * @param blueAlliance True to search the blue alliance poses, false for the flipped ones.
+     * @return The closest pose in field coordinates, or null if the index is empty.
+     */
+    public Pose2d nearest(Translation2d position, boolean blueAlliance) {
+        int index = nearestIndex(position.getX(), position.getY(), blueAlliance);
+
+        return index < 0 ? null : getPose(index, blueAlliance);
+    }
+
+    /**
+     * Finds the poses closest to a position, as many as the length of {@code indicesOut}.
+     *
+     * @param x            The X coordinate of the position in meters.
+     * @param y            The Y coordinate of the position in meters.
+     * @param blueAlliance True to search the blue alliance poses, false for the flipped ones.
+     * @param indicesOut   Receives the indices of the poses, closest first.
+     * @param distancesOut Receives the distances in meters, at least as long as {@code indicesOut}.
+     * @return The amount of poses found, less than requested if the index is smaller.
+     */
+    public int kNearest(double x, double y, boolean blueAlliance, int[] indicesOut, double[] distancesOut) {
+        Tree tree = blueAlliance ? blueTree : redTree;
+
+        foundCount = 0;
+
+        if (indicesOut.length > 0) {
+            searchKNearest(tree, 0, tree.ids.length, 0, x, y, indicesOut, distancesOut);
+        }
+
+        // Squared distances while searching
+        for (int i = 0; i < foundCount; i++) {
+            distancesOut[i] = Math.sqrt(distancesOut[i]);
+        }
+
+        return foundCount;
+    }
+
+    private void searchNearest(Tree tree, int lo, int hi, int depth, double qx, double qy) {
+        if (lo >= hi) {
+            return;
+        }
+
+        int middle = (lo + hi) >>> 1;
+
+        double dx = qx - tree.x[middle];
+        double dy = qy - tree.y[middle];
+        double distance = dx * dx + dy * dy;
+
+        if (distance < bestDistance) {
+            bestDistance = distance;
+            bestSlot = middle;
+        }
+
+        double split = (depth & 1) == 0 ? dx : dy;
+
+        if (split < 0) {
+            searchNearest(tree, lo, middle, depth + 1, qx, qy);
+
+            if (split * split < bestDistance) {
+                searchNearest(tree, middle + 1, hi, depth + 1, qx, qy);
+            }
+
+        } else {
+            searchNearest(tree, middle + 1, hi, depth + 1, qx, qy);
+
+            if (split * split < bestDistance) {
+                searchNearest(tree, lo, middle, depth + 1, qx, qy);
+            }
+        }
+    }
+
+    private void searchKNearest(
+        Tree tree, int lo, int hi, int depth, double qx, double qy, int[] indicesOut, double[] distancesOut) {
+
+        if (lo >= hi) {
+            return;
+        }
+
+        int middle = (lo + hi) >>> 1;
+
+        double dx = qx - tree.x[middle];
+        double dy = qy - tree.y[middle];
+        insertFound(tree.ids[middle], dx * dx + dy * dy, indicesOut, distancesOut);
+
+        double split = (depth & 1) == 0 ? dx : dy;
+        int nearLo = split < 0 ? lo : middle + 1;
+        int nearHi = split < 0 ? middle : hi;
+        int farLo = split < 0 ? middle + 1 : lo;
+        int farHi = split < 0 ? hi : middle;
+
+        searchKNearest(tree, nearLo, nearHi, depth + 1, qx, qy, indicesOut, distancesOut);
+
+        if (foundCount < indicesOut.length || split * split < distancesOut[foundCount - 1]) {
+            searchKNearest(tree, farLo, farHi, depth + 1, qx, qy, indicesOut, distancesOut);
+        }
+    }
+
+    /**
+     * Keeps the closest poses found so far sorted by squared distance.
+     */
+    private void insertFound(int id, double distance, int[] indicesOut, double[] distancesOut) {
+        int capacity = indicesOut.length;
+
+        if (foundCount == capacity && distance >= distancesOut[capacity - 1]) {
+            return;
+        }
+
+        int i = foundCount < capacity ? foundCount++ : capacity - 1;
+
+        while (i > 0 && distancesOut[i - 1] > distance) {
+            indicesOut[i] = indicesOut[i - 1];
+            distancesOut[i] = distancesOut[i - 1];
+            i--;
+        }
+
+        indicesOut[i] = id;
+        distancesOut[i] = distance;
+    }
+
+    /**
+     * @param index        The index of the pose.
+     * @param blueAlliance True for the blue alliance pose, false for the flipped one.
+     * @return The pose in field coordinates.
+     */
+    public Pose2d getPose(int index, boolean blueAlliance) {
+        return blueAlliance ? bluePoses[index] : redPoses[index];
+    }
+
+    /**
+     * @param index The index of the pose.
+     * @return The name of the pose, or null if the poses are not named.
+     */
+    public String getName(int index) {
+        return names != null ? names[index] : null;
+    }
+
+    /**
+     * @return The amount of poses.
+     */
+    public int size() {
+        return bluePoses.length;
+    }
+}
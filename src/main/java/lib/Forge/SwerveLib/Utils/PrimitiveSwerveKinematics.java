@@ -0,0 +1,190 @@
+package lib.Forge.SwerveLib.Utils;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+
+/**
+ * Allocation-free swerve forward kinematics working on primitive arrays.
+ * <p>
+ * Solves the same least squares problem as {@link SwerveDriveKinematics#toTwist2d}, but the
+ * normal matrix is inverted once at construction and every call only performs a handful of
+ * multiplications, so it can run on odometry threads at hundreds of Hz without creating garbage.
+ */
+public class PrimitiveSwerveKinematics {
+
+    private final int moduleCount;
+    private final double[] moduleX;
+    private final double[] moduleY;
+
+    private final double[] inverseNormal = new double[9];
+    private final double[][] excludedInverseNormals;
+
+    /**
+     * Creates a new {@link PrimitiveSwerveKinematics}.
+     *
+     * @param moduleLocations The location of every module relative to the center of the robot.
+     */
+    public PrimitiveSwerveKinematics(Translation2d... moduleLocations) {
+        this.moduleCount = moduleLocations.length;
+        this.moduleX = new double[moduleCount];
+        this.moduleY = new double[moduleCount];
+
+        for (int i = 0; i < moduleCount; i++) {
+            moduleX[i] = moduleLocations[i].getX();
+            moduleY[i] = moduleLocations[i].getY();
+        }
+
+        buildInverseNormal(-1, inverseNormal);
+
+        this.excludedInverseNormals = new double[moduleCount][9];
+
+        if (moduleCount > 3) {
+            for (int i = 0; i < moduleCount; i++) {
+                buildInverseNormal(i, excludedInverseNormals[i]);
+            }
+        }
+    }
+
+    /**
+     * Creates a new {@link PrimitiveSwerveKinematics} with the module locations of a
+     * {@link SwerveDriveKinematics}.
+     *
+     * @param kinematics The kinematics to copy the module locations from.
+     */
+    public PrimitiveSwerveKinematics(SwerveDriveKinematics kinematics) {
+        this(kinematics.getModules());
+    }
+
+    /**
+     * Computes the robot relative twist from the distance each module travelled.
+     *
+     * @param distanceDeltas Distance travelled by every module in meters.
+     * @param angleCos       Cosine of the angle of every module.
+     * @param angleSin       Sine of the angle of every module.
+     * @param out            Array of at least 3 elements receiving dx, dy and dtheta.
+     */
+    public void toTwist(double[] distanceDeltas, double[] angleCos, double[] angleSin, double[] out) {
+        solve(-1, distanceDeltas, angleCos, angleSin, inverseNormal, out);
+    }
+
+    /**
+     * Computes the robot relative twist ignoring one module, used to check that module against the
+     * rest. Requires at least 4 modules.
+     *
+     * @param excludedModule The index of the module to ignore.
+     * @param distanceDeltas Distance travelled by every module in meters.
+     * @param angleCos       Cosine of the angle of every module.
+     * @param angleSin       Sine of the angle of every module.
+     * @param out            Array of at least 3 elements receiving dx, dy and dtheta.
+     */
+    public void toTwistExcluding(int excludedModule, double[] distanceDeltas, double[] angleCos, double[] angleSin, double[] out) {
+        if (moduleCount <= 3) {
+            throw new IllegalStateException("At least 4 modules are needed to leave one out");
+        }
+
+        solve(excludedModule, distanceDeltas, angleCos, angleSin, excludedInverseNormals[excludedModule], out);
+    }
+
+    /**
+     * Computes the distance a module should have travelled along its wheel direction for a twist.
+     *
+     * @param module   The module index.
+     * @param twist    The robot relative twist as dx, dy and dtheta.
+     * @param angleCos Cosine of the angle of the module.
+     * @param angleSin Sine of the angle of the module.
+     * @return The expected distance in meters.
+     */
+    public double toModuleDistance(int module, double[] twist, double angleCos, double angleSin) {
+        double vx = twist[0] - twist[2] * moduleY[module];
+        double vy = twist[1] + twist[2] * moduleX[module];
+
+        return vx * angleCos + vy * angleSin;
+    }
+
+    /**
+     * @return The amount of modules.
+     */
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    /**
+     * @param module The module index.
+     * @return The X location of the module in meters.
+     */
+    public double getModuleX(int module) {
+        return moduleX[module];
+    }
+
+    /**
+     * @param module The module index.
+     * @return The Y location of the module in meters.
+     */
+    public double getModuleY(int module) {
+        return moduleY[module];
+    }
+
+    /**
+     * Solves the least squares twist, optionally leaving one module out.
+     */
+    private void solve(int excludedModule, double[] distanceDeltas, double[] angleCos, double[] angleSin, double[] inverse, double[] out) {
+        double sumX = 0.0;
+        double sumY = 0.0;
+        double sumTheta = 0.0;
+
+        for (int i = 0; i < moduleCount; i++) {
+            if (i == excludedModule) continue;
+
+            double vx = distanceDeltas[i] * angleCos[i];
+            double vy = distanceDeltas[i] * angleSin[i];
+
+            sumX += vx;
+            sumY += vy;
+            sumTheta += moduleX[i] * vy - moduleY[i] * vx;
+        }
+
+        out[0] = inverse[0] * sumX + inverse[1] * sumY + inverse[2] * sumTheta;
+        out[1] = inverse[3] * sumX + inverse[4] * sumY + inverse[5] * sumTheta;
+        out[2] = inverse[6] * sumX + inverse[7] * sumY + inverse[8] * sumTheta;
+    }
+
+    /**
+     * Builds the inverse of the normal matrix A^T A, where every module contributes the rows
+     * [1, 0, -y] and [0, 1, x], optionally leaving one module out.
+     */
+    private void buildInverseNormal(int excludedModule, double[] out) {
+        double count = 0.0;
+        double sumX = 0.0;
+        double sumY = 0.0;
+        double sumSquares = 0.0;
+
+        for (int i = 0; i < moduleCount; i++) {
+            if (i == excludedModule) continue;
+
+            count++;
+            sumX += moduleX[i];
+            sumY += moduleY[i];
+            sumSquares += moduleX[i] * moduleX[i] + moduleY[i] * moduleY[i];
+        }
+
+        double a = count, b = 0.0, c = -sumY;
+        double d = 0.0, e = count, f = sumX;
+        double g = -sumY, h = sumX, k = sumSquares;
+
+        double determinant = a * (e * k - f * h) - b * (d * k - f * g) + c * (d * h - e * g);
+
+        if (Math.abs(determinant) < 1e-12) {
+            throw new IllegalArgumentException("Module locations do not define a solvable swerve drive");
+        }
+
+        out[0] = (e * k - f * h) / determinant;
+        out[1] = (c * h - b * k) / determinant;
+        out[2] = (b * f - c * e) / determinant;
+        out[3] = (f * g - d * k) / determinant;
+        out[4] = (a * k - c * g) / determinant;
+        out[5] = (c * d - a * f) / determinant;
+        out[6] = (d * h - e * g) / determinant;
+        out[7] = (b * g - a * h) / determinant;
+        out[8] = (a * e - b * d) / determinant;
+    }
+}
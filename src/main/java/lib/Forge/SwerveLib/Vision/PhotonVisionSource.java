@@ -0,0 +1,95 @@
+package lib.Forge.SwerveLib.Vision;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.photonvision.EstimatedRobotPose;
+import org.photonvision.PhotonCamera;
+import org.photonvision.PhotonPoseEstimator;
+import org.photonvision.PhotonPoseEstimator.PoseStrategy;
+import org.photonvision.targeting.PhotonPipelineResult;
+import org.photonvision.targeting.PhotonTrackedTarget;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.geometry.Transform3d;
+
+/**
+ * {@link VisionSource} backed by a PhotonVision camera. Multi tag results are solved on the
+ * coprocessor, single tag results fall back to the lowest ambiguity target.
+ */
+public class PhotonVisionSource implements VisionSource {
+
+    private final PhotonCamera camera;
+    private final PhotonPoseEstimator poseEstimator;
+    private final Transform3d robotToCamera;
+
+    /**
+     * Creates a new {@link PhotonVisionSource}.
+     *
+     * @param cameraName    The name of the camera in PhotonVision.
+     * @param robotToCamera The transform from the center of the robot to the camera.
+     * @param fieldLayout   The layout of the AprilTags on the field.
+     */
+    public PhotonVisionSource(String cameraName, Transform3d robotToCamera, AprilTagFieldLayout fieldLayout) {
+        this.camera = new PhotonCamera(cameraName);
+        this.robotToCamera = robotToCamera;
+
+        this.poseEstimator = new PhotonPoseEstimator(fieldLayout, PoseStrategy.MULTI_TAG_PNP_ON_COPROCESSOR, robotToCamera);
+        this.poseEstimator.setMultiTagFallbackStrategy(PoseStrategy.LOWEST_AMBIGUITY);
+    }
+
+    @Override
+    public String getName() {
+        return camera.getName();
+    }
+
+    @Override
+    public void poll(List<VisionMeasurement> out) {
+
+        for (PhotonPipelineResult result : camera.getAllUnreadResults()) {
+
+            if (!result.hasTargets()) continue;
+
+            Optional<EstimatedRobotPose> estimation = poseEstimator.update(result);
+
+            if (estimation.isEmpty()) continue;
+
+            EstimatedRobotPose estimatedPose = estimation.get();
+            List<PhotonTrackedTarget> targets = estimatedPose.targetsUsed;
+
+            double totalDistance = 0.0;
+            double ambiguity = 0.0;
+
+            for (PhotonTrackedTarget target : targets) {
+                totalDistance += target.getBestCameraToTarget().getTranslation().getNorm();
+                ambiguity = Math.max(ambiguity, target.getPoseAmbiguity());
+            }
+
+            int tagCount = targets.size();
+
+            if (tagCount == 0) continue;
+
+            out.add(new VisionMeasurement(
+                getName(),
+                estimatedPose.estimatedPose.toPose2d(),
+                estimatedPose.timestampSeconds,
+                tagCount,
+                totalDistance / tagCount,
+                tagCount > 1 ? 0.0 : ambiguity));
+        }
+    }
+
+    /**
+     * @return The underlying {@link PhotonCamera}.
+     */
+    public PhotonCamera getCamera() {
+        return camera;
+    }
+
+    /**
+     * @return The transform from the center of the robot to the camera.
+     */
+    public Transform3d getRobotToCamera() {
+        return robotToCamera;
+    }
+}
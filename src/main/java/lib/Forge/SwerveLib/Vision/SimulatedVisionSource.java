@@ -0,0 +1,84 @@
+package lib.Forge.SwerveLib.Vision;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import org.photonvision.simulation.PhotonCameraSim;
+import org.photonvision.simulation.SimCameraProperties;
+import org.photonvision.simulation.VisionSystemSim;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Transform3d;
+
+/**
+ * Simulated stand-in for a {@link PhotonVisionSource}. Renders the AprilTags seen from the pose
+ * given by {@code groundTruth} through PhotonVision's camera simulation and then reads the results
+ * exactly like a real camera would.
+ * <p>
+ * Measurements the camera simulation would not produce, like outliers, can be added with
+ * {@link #inject} and are returned by the next poll.
+ */
+public class SimulatedVisionSource implements VisionSource {
+
+    private final PhotonVisionSource source;
+    private final VisionSystemSim visionSystem;
+    private final Supplier<Pose2d> groundTruth;
+    private final ConcurrentLinkedQueue<VisionMeasurement> injected = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a new {@link SimulatedVisionSource} with default camera properties.
+     *
+     * @param cameraName    The name of the simulated camera.
+     * @param robotToCamera The transform from the center of the robot to the camera.
+     * @param fieldLayout   The layout of the AprilTags on the field.
+     * @param groundTruth   Supplier of the simulated robot pose.
+     */
+    public SimulatedVisionSource(String cameraName, Transform3d robotToCamera, AprilTagFieldLayout fieldLayout, Supplier<Pose2d> groundTruth) {
+        this(cameraName, robotToCamera, fieldLayout, groundTruth, new SimCameraProperties());
+    }
+
+    /**
+     * Creates a new {@link SimulatedVisionSource}.
+     *
+     * @param cameraName       The name of the simulated camera.
+     * @param robotToCamera    The transform from the center of the robot to the camera.
+     * @param fieldLayout      The layout of the AprilTags on the field.
+     * @param groundTruth      Supplier of the simulated robot pose.
+     * @param cameraProperties The resolution, noise and latency of the simulated camera.
+     */
+    public SimulatedVisionSource(String cameraName, Transform3d robotToCamera, AprilTagFieldLayout fieldLayout, Supplier<Pose2d> groundTruth, SimCameraProperties cameraProperties) {
+        this.source = new PhotonVisionSource(cameraName, robotToCamera, fieldLayout);
+        this.groundTruth = groundTruth;
+
+        this.visionSystem = new VisionSystemSim(cameraName);
+        this.visionSystem.addAprilTags(fieldLayout);
+        this.visionSystem.addCamera(new PhotonCameraSim(source.getCamera(), cameraProperties), robotToCamera);
+    }
+
+    @Override
+    public String getName() {
+        return source.getName();
+    }
+
+    /**
+     * Queues a measurement to be returned by the next poll, after the simulated ones.
+     *
+     * @param measurement The measurement.
+     */
+    public void inject(VisionMeasurement measurement) {
+        injected.add(measurement);
+    }
+
+    @Override
+    public void poll(List<VisionMeasurement> out) {
+        visionSystem.update(groundTruth.get());
+        source.poll(out);
+
+        VisionMeasurement measurement;
+        while ((measurement = injected.poll()) != null) {
+            out.add(measurement);
+        }
+    }
+}
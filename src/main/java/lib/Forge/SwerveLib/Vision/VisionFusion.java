@@ -0,0 +1,327 @@
+package lib.Forge.SwerveLib.Vision;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import lib.Forge.SwerveLib.Odometer.ForgeSwerveDrivePoseEstimator;
+import lib.Forge.SwerveLib.Odometer.PoseSample;
+
+/**
+ * Fuses the measurements of any amount of {@link VisionSource}s into a
+ * {@link ForgeSwerveDrivePoseEstimator}.
+ * <p>
+ * A background thread polls every source into a buffer ordered by capture timestamp. Measurements
+ * are held in the buffer for {@link #setReorderWindow a short window}, so a slower camera can still
+ * deliver an older image before newer ones are applied. Released measurements get standard
+ * deviations based on the distance to the tags and the amount of tags seen, outliers are rejected
+ * against the odometry history and the remaining ones are applied to the estimator in a single
+ * batch, so the main loop never waits on vision. While the estimator reports slipping wheels or a
+ * collision the X and Y standard deviations are scaled by its odometry trust, so vision pulls the
+ * pose back faster.
+ * <p>
+ * Every measurement is compared against the pose the estimator had when the image was captured and
+ * dropped if it deviates more than {@link #setMaxDeviation}, multi tag measurements are allowed a
+ * larger deviation. So a wrong pose can still be corrected, the check is skipped until a measurement
+ * is accepted after every {@link ForgeSwerveDrivePoseEstimator#resetPosition reset} (and at boot),
+ * and multi tag measurements skip it while the odometry trust is low or after
+ * {@link #setRecovery too many of them} were rejected in a row.
+ */
+public class VisionFusion {
+
+    private final ForgeSwerveDrivePoseEstimator poseEstimator;
+    private final List<VisionSource> sources = new CopyOnWriteArrayList<>();
+
+    private final ArrayList<VisionMeasurement> received = new ArrayList<>();
+    private final ArrayList<VisionMeasurement> pending = new ArrayList<>();
+    private final ArrayList<VisionMeasurement> accepted = new ArrayList<>();
+    private final PoseSample odometryPose = new PoseSample();
+
+    private final Notifier fusionThread;
+
+    private double xyStdDevCoefficient = 0.02;
+    private double thetaStdDevCoefficient = 0.06;
+    private double maxAmbiguity = 0.3;
+    private double maxDistance = 6.0;
+    private double maxDeviation = 1.0;
+    private double maxMultiTagDeviation = 2.0;
+    private int maxConsecutiveRejections = kDefaultMaxConsecutiveRejections;
+    private double lowOdometryTrust = kDefaultLowOdometryTrust;
+    private double reorderWindow = kDefaultReorderWindow;
+    private double fieldLength = 17.548;
+    private double fieldWidth = 8.052;
+
+    // The estimator reset count a measurement was last accepted for, -1 before the first one
+    private long acceptedResetCount = -1;
+    private int consecutiveRejections = 0;
+
+    private volatile long acceptedMeasurements = 0;
+    private volatile long rejectedMeasurements = 0;
+
+    public static final double kDefaultPeriod = 0.02;
+    public static final double kDefaultReorderWindow = 0.05;
+    public static final int kDefaultMaxConsecutiveRejections = 5;
+    public static final double kDefaultLowOdometryTrust = 0.5;
+    public static final double kSingleTagThetaStdDev = 1e6;
+
+    private static final Comparator<VisionMeasurement> byTimestamp =
+        Comparator.comparingDouble(VisionMeasurement::getTimestamp);
+
+    /**
+     * Creates a new {@link VisionFusion} and starts polling its sources.
+     *
+     * @param poseEstimator The estimator that receives the measurements.
+     * @param period        The period in seconds to poll the sources.
+     */
+    public VisionFusion(ForgeSwerveDrivePoseEstimator poseEstimator, double period) {
+        this.poseEstimator = poseEstimator;
+
+        this.fusionThread = new Notifier(()-> fuse(Timer.getFPGATimestamp()));
+        this.fusionThread.setName("ForgeVisionFusion");
+        fusionThread.startPeriodic(period);
+    }
+
+    /**
+     * Creates a new {@link VisionFusion} polling its sources every {@value #kDefaultPeriod} seconds.
+     *
+     * @param poseEstimator The estimator that receives the measurements.
+     */
+    public VisionFusion(ForgeSwerveDrivePoseEstimator poseEstimator) {
+        this(poseEstimator, kDefaultPeriod);
+    }
+
+    /**
+     * Adds a source to be polled. Can be called at any time.
+     *
+     * @param source The source.
+     * @return This instance for chaining.
+     */
+    public VisionFusion addSource(VisionSource source) {
+        sources.add(source);
+        return this;
+    }
+
+    /**
+     * Polls the sources and applies the measurements older than the reorder window. Called by the
+     * fusion thread, package visible for tests.
+     *
+     * @param now The current FPGA timestamp in seconds.
+     */
+    void fuse(double now) {
+
+        for (VisionSource source : sources) {
+            try {
+                source.poll(received);
+            } catch (Exception e) {
+                System.err.println("[VisionFusion] Failed to poll " + source.getName() + ": " + e.getMessage());
+            }
+        }
+
+        // A timestamp in the future would never leave the buffer
+        for (VisionMeasurement measurement : received) {
+            if (measurement.getTimestamp() > now) {
+                rejectedMeasurements++;
+            } else {
+                pending.add(measurement);
+            }
+        }
+
+        received.clear();
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        pending.sort(byTimestamp);
+
+        double releaseTimestamp = now - reorderWindow;
+        int released = 0;
+
+        while (released < pending.size() && pending.get(released).getTimestamp() <= releaseTimestamp) {
+            released++;
+        }
+
+        if (released == 0) {
+            return;
+        }
+
+        double odometryTrust = poseEstimator.getOdometryTrust();
+        long resetCount = poseEstimator.getResetCount();
+
+        // Decided once per batch, the accepted measurements are only added to the estimator at the end
+        boolean gated = acceptedResetCount == resetCount;
+        boolean odometryLost = odometryTrust < lowOdometryTrust;
+
+        for (int i = 0; i < released; i++) {
+            VisionMeasurement measurement = pending.get(i);
+
+            if (isValid(measurement, gated, odometryLost)) {
+                double xyStdDev = getXYStdDev(measurement) * odometryTrust;
+
+                measurement.setStdDevs(VecBuilder.fill(
+                    xyStdDev,
+                    xyStdDev,
+                    getThetaStdDev(measurement)));
+
+                accepted.add(measurement);
+            } else {
+                rejectedMeasurements++;
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            poseEstimator.addVisionMeasurements(accepted);
+            acceptedMeasurements += accepted.size();
+            acceptedResetCount = resetCount;
+        }
+
+        pending.subList(0, released).clear();
+        accepted.clear();
+    }
+
+    /**
+     * @param gated        False to skip the deviation check, nothing was accepted since the last reset.
+     * @param odometryLost True if multi tag measurements skip the deviation check.
+     */
+    private boolean isValid(VisionMeasurement measurement, boolean gated, boolean odometryLost) {
+
+        Pose2d pose = measurement.getPose();
+        boolean multiTag = measurement.getTagCount() > 1;
+
+        if (!multiTag && measurement.getAmbiguity() > maxAmbiguity) return false;
+
+        if (measurement.getAverageTagDistance() > maxDistance) return false;
+
+        if (pose.getX() < 0.0 || pose.getX() > fieldLength || pose.getY() < 0.0 || pose.getY() > fieldWidth) return false;
+
+        if (!gated || (multiTag && (odometryLost || consecutiveRejections >= maxConsecutiveRejections))) {
+            consecutiveRejections = 0;
+            return true;
+        }
+
+        if (!poseEstimator.getPoseAt(measurement.getTimestamp(), odometryPose)) return false;
+
+        double deviation = Math.hypot(odometryPose.getX() - pose.getX(), odometryPose.getY() - pose.getY());
+
+        if (deviation <= (multiTag ? maxMultiTagDeviation : maxDeviation)) {
+            consecutiveRejections = 0;
+            return true;
+        }
+
+        if (multiTag) {
+            consecutiveRejections++;
+        }
+
+        return false;
+    }
+
+    private double getXYStdDev(VisionMeasurement measurement) {
+        double distance = measurement.getAverageTagDistance();
+        return xyStdDevCoefficient * distance * distance / measurement.getTagCount();
+    }
+
+    private double getThetaStdDev(VisionMeasurement measurement) {
+        if (measurement.getTagCount() == 1) {
+            return kSingleTagThetaStdDev;
+        }
+
+        double distance = measurement.getAverageTagDistance();
+        return thetaStdDevCoefficient * distance * distance / measurement.getTagCount();
+    }
+
+    /**
+     * Sets the coefficients used to compute the standard deviations, which are
+     * {@code coefficient * averageDistance^2 / tagCount}.
+     *
+     * @param xyCoefficient    Coefficient for the X and Y standard deviations.
+     * @param thetaCoefficient Coefficient for the heading standard deviation, single tag headings are never trusted.
+     */
+    public void setStdDevCoefficients(double xyCoefficient, double thetaCoefficient) {
+        this.xyStdDevCoefficient = xyCoefficient;
+        this.thetaStdDevCoefficient = thetaCoefficient;
+    }
+
+    /**
+     * @param maxAmbiguity The maximum ambiguity accepted for single tag measurements.
+     */
+    public void setMaxAmbiguity(double maxAmbiguity) {
+        this.maxAmbiguity = maxAmbiguity;
+    }
+
+    /**
+     * @param maxDistance The maximum average tag distance in meters accepted.
+     */
+    public void setMaxDistance(double maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Sets how far from the odometry history a measurement can be before it is rejected.
+     *
+     * @param maxDeviation         The maximum distance in meters for single tag measurements.
+     * @param maxMultiTagDeviation The maximum distance in meters for multi tag measurements.
+     */
+    public void setMaxDeviation(double maxDeviation, double maxMultiTagDeviation) {
+        this.maxDeviation = maxDeviation;
+        this.maxMultiTagDeviation = maxMultiTagDeviation;
+    }
+
+    /**
+     * Sets when multi tag measurements skip the deviation check, so vision can correct a pose the
+     * odometry lost.
+     *
+     * @param maxConsecutiveRejections The multi tag measurements rejected in a row by the deviation
+     *                                 check before the next one is accepted anyway.
+     * @param lowOdometryTrust         The odometry trust under which the check is skipped, see
+     *                                 {@link ForgeSwerveDrivePoseEstimator#getOdometryTrust}.
+     */
+    public void setRecovery(int maxConsecutiveRejections, double lowOdometryTrust) {
+        this.maxConsecutiveRejections = maxConsecutiveRejections;
+        this.lowOdometryTrust = lowOdometryTrust;
+    }
+
+    /**
+     * @param reorderWindow The time in seconds measurements are held before being applied, so the
+     *                      ones of slower cameras are applied in capture order.
+     */
+    public void setReorderWindow(double reorderWindow) {
+        this.reorderWindow = reorderWindow;
+    }
+
+    /**
+     * Sets the field size used to discard measurements outside of it.
+     *
+     * @param fieldLength The field length in meters.
+     * @param fieldWidth  The field width in meters.
+     */
+    public void setFieldSize(double fieldLength, double fieldWidth) {
+        this.fieldLength = fieldLength;
+        this.fieldWidth = fieldWidth;
+    }
+
+    /**
+     * @return The amount of measurements applied to the estimator.
+     */
+    public long getAcceptedMeasurements() {
+        return acceptedMeasurements;
+    }
+
+    /**
+     * @return The amount of measurements rejected.
+     */
+    public long getRejectedMeasurements() {
+        return rejectedMeasurements;
+    }
+
+    /**
+     * Stops polling the sources.
+     */
+    public void stop() {
+        fusionThread.stop();
+    }
+}
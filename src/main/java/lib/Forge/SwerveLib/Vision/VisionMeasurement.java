@@ -0,0 +1,76 @@
+package lib.Forge.SwerveLib.Vision;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+
+/**
+ * A robot pose observed by a {@link VisionSource}, together with the information used to decide
+ * how much it should be trusted.
+ */
+public class VisionMeasurement {
+
+    private final String sourceName;
+    private final Pose2d pose;
+    private final double timestamp;
+    private final int tagCount;
+    private final double averageTagDistance;
+    private final double ambiguity;
+
+    private Matrix<N3, N1> stdDevs;
+
+    /**
+     * Creates a new {@link VisionMeasurement}.
+     *
+     * @param sourceName         The name of the source that produced it.
+     * @param pose               The observed robot pose.
+     * @param timestamp          The FPGA timestamp in seconds at which the image was captured.
+     * @param tagCount           The amount of tags used to solve the pose.
+     * @param averageTagDistance The average distance from the camera to the tags in meters.
+     * @param ambiguity          The pose ambiguity, only meaningful for single tag results.
+     */
+    public VisionMeasurement(String sourceName, Pose2d pose, double timestamp, int tagCount, double averageTagDistance, double ambiguity) {
+        this.sourceName = sourceName;
+        this.pose = pose;
+        this.timestamp = timestamp;
+        this.tagCount = tagCount;
+        this.averageTagDistance = averageTagDistance;
+        this.ambiguity = ambiguity;
+    }
+
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    public Pose2d getPose() {
+        return pose;
+    }
+
+    public double getTimestamp() {
+        return timestamp;
+    }
+
+    public int getTagCount() {
+        return tagCount;
+    }
+
+    public double getAverageTagDistance() {
+        return averageTagDistance;
+    }
+
+    public double getAmbiguity() {
+        return ambiguity;
+    }
+
+    /**
+     * @return The standard deviations assigned by {@link VisionFusion}, or null if it has not been processed yet.
+     */
+    public Matrix<N3, N1> getStdDevs() {
+        return stdDevs;
+    }
+
+    void setStdDevs(Matrix<N3, N1> stdDevs) {
+        this.stdDevs = stdDevs;
+    }
+}
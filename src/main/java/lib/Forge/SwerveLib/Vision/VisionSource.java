@@ -0,0 +1,22 @@
+package lib.Forge.SwerveLib.Vision;
+
+import java.util.List;
+
+/**
+ * A camera, or anything else, that can observe the pose of the robot. Polled from the
+ * {@link VisionFusion} thread, so implementations must not touch the command scheduler.
+ */
+public interface VisionSource {
+
+    /**
+     * @return The name of the source, used for logging.
+     */
+    String getName();
+
+    /**
+     * Adds every measurement received since the last call to {@code out}.
+     *
+     * @param out The list receiving the new measurements.
+     */
+    void poll(List<VisionMeasurement> out);
+}
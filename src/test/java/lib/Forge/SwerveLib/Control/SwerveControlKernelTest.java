@@ -0,0 +1,141 @@
+package lib.Forge.SwerveLib.Control;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import lib.Forge.Math.Constants.ProfileGains.PIDGains;
+import lib.Forge.Math.Constants.ProfileGains.SimpleFeedForwardGains;
+
+class SwerveControlKernelTest {
+
+    private static final Translation2d[] kModuleLocations = {
+        new Translation2d(0.3, 0.25),
+        new Translation2d(0.3, -0.25),
+        new Translation2d(-0.3, 0.25),
+        new Translation2d(-0.3, -0.25)
+    };
+
+    private static final double kMaxSpeed = 4.5;
+    private static final double kPeriod = 0.02;
+    private static final double kWheelRadius = 0.0508;
+
+    private static final PIDGains kDriveGains = new PIDGains(0.2, 0.05, 0.001);
+    private static final SimpleFeedForwardGains kDriveFF = new SimpleFeedForwardGains(0.15, 0.12, 0.0);
+    private static final PIDGains kTurnGains = new PIDGains(4.0, 0.1, 0.05);
+
+    private static final double kEpsilon = 1e-8;
+
+    /**
+     * The object pipeline the kernel replaces, one PIDController of each kind per module.
+     */
+    private static class Reference {
+
+        private final SwerveDriveKinematics kinematics = new SwerveDriveKinematics(kModuleLocations);
+        private final SimpleMotorFeedforward feedforward = new SimpleMotorFeedforward(kDriveFF.kS(), kDriveFF.kV());
+
+        private final PIDController[] drivePIDs = new PIDController[kModuleLocations.length];
+        private final PIDController[] turnPIDs = new PIDController[kModuleLocations.length];
+        private final double[] feedforwardVolts = new double[kModuleLocations.length];
+
+        Reference() {
+            for (int i = 0; i < kModuleLocations.length; i++) {
+                drivePIDs[i] = new PIDController(kDriveGains.kP(), kDriveGains.kI(), kDriveGains.kD(), kPeriod);
+                turnPIDs[i] = new PIDController(kTurnGains.kP(), kTurnGains.kI(), kTurnGains.kD(), kPeriod);
+                turnPIDs[i].enableContinuousInput(-Math.PI, Math.PI);
+            }
+        }
+
+        void setChassisSpeeds(double vx, double vy, double omega, double[] moduleAngles) {
+            SwerveModuleState[] states = kinematics.toSwerveModuleStates(ChassisSpeeds.discretize(vx, vy, omega, kPeriod));
+            SwerveDriveKinematics.desaturateWheelSpeeds(states, kMaxSpeed);
+
+            for (int i = 0; i < states.length; i++) {
+                Rotation2d current = new Rotation2d(moduleAngles[i]);
+
+                states[i].optimize(current);
+                states[i].cosineScale(current);
+
+                double wheelVelocity = states[i].speedMetersPerSecond / kWheelRadius;
+
+                turnPIDs[i].setSetpoint(states[i].angle.getRadians());
+                drivePIDs[i].setSetpoint(wheelVelocity);
+                feedforwardVolts[i] = feedforward.calculate(wheelVelocity);
+            }
+        }
+
+        void calculate(double[] moduleAngles, double[] driveVelocities, double[] driveVoltsOut, double[] turnVoltsOut) {
+            for (int i = 0; i < moduleAngles.length; i++) {
+                turnVoltsOut[i] = turnPIDs[i].calculate(moduleAngles[i]);
+                driveVoltsOut[i] = drivePIDs[i].calculate(driveVelocities[i]) + feedforwardVolts[i];
+            }
+        }
+    }
+
+    private static double uniform(Random random, double bound) {
+        return (random.nextDouble() * 2.0 - 1.0) * bound;
+    }
+
+    @Test
+    void matchesTheObjectPipeline() {
+        Random random = new Random(4481);
+        int modules = kModuleLocations.length;
+
+        SwerveControlKernel kernel = new SwerveControlKernel(
+            kModuleLocations, kMaxSpeed, kPeriod, kWheelRadius, kDriveGains, kDriveFF, kTurnGains);
+        Reference reference = new Reference();
+
+        double[] moduleAngles = new double[modules];
+        double[] driveVelocities = new double[modules];
+
+        double[] kernelDriveVolts = new double[modules];
+        double[] kernelTurnVolts = new double[modules];
+        double[] referenceDriveVolts = new double[modules];
+        double[] referenceTurnVolts = new double[modules];
+
+        for (int step = 0; step < 2000; step++) {
+            // Some steps stand still, so the modules keep their last heading
+            boolean still = random.nextInt(10) == 0;
+
+            double vx = still ? 0.0 : uniform(random, 6.0);
+            double vy = still ? 0.0 : uniform(random, 6.0);
+            double omega = still ? 0.0 : uniform(random, 10.0);
+
+            for (int i = 0; i < modules; i++) {
+                moduleAngles[i] = uniform(random, Math.PI);
+                driveVelocities[i] = uniform(random, kMaxSpeed / kWheelRadius);
+            }
+
+            kernel.setChassisSpeeds(vx, vy, omega, moduleAngles);
+            reference.setChassisSpeeds(vx, vy, omega, moduleAngles);
+
+            // The modules have moved by the time the controllers run
+            for (int i = 0; i < modules; i++) {
+                moduleAngles[i] = uniform(random, Math.PI);
+            }
+
+            kernel.calculate(moduleAngles, driveVelocities, kernelDriveVolts, kernelTurnVolts);
+            reference.calculate(moduleAngles, driveVelocities, referenceDriveVolts, referenceTurnVolts);
+
+            for (int i = 0; i < modules; i++) {
+                String at = "step " + step + ", module " + i;
+
+                assertEquals(reference.turnPIDs[i].getSetpoint(), kernel.getTurnSetpoint(i), kEpsilon, at);
+                assertEquals(reference.drivePIDs[i].getSetpoint(), kernel.getDriveSetpoint(i), kEpsilon, at);
+                assertEquals(reference.feedforwardVolts[i], kernel.getDriveFeedforward(i), kEpsilon, at);
+
+                assertEquals(referenceTurnVolts[i], kernelTurnVolts[i], kEpsilon, at);
+                assertEquals(referenceDriveVolts[i], kernelDriveVolts[i], kEpsilon, at);
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package lib.Forge.SwerveLib.Vision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.wpilibj.Timer;
+import lib.Forge.SwerveLib.Odometer.ForgeSwerveDrivePoseEstimator;
+
+class VisionFusionTest {
+
+    // In front of the blue reef, facing tags 17, 18 and 19
+    private static final Pose2d kTruth = new Pose2d(2.0, 4.03, Rotation2d.kZero);
+
+    private static final double kEpsilon = 1e-9;
+    private static final double kPeriod = 0.02;
+
+    private ForgeSwerveDrivePoseEstimator poseEstimator;
+    private VisionFusion fusion;
+
+    // The timestamp of the first and of the latest odometry sample in the history
+    private double base;
+    private double latest;
+
+    /**
+     * Returns the measurements added before each poll.
+     */
+    private static class ScriptedSource implements VisionSource {
+
+        private final List<VisionMeasurement> next = new ArrayList<>();
+
+        @Override
+        public String getName() {
+            return "scripted";
+        }
+
+        @Override
+        public void poll(List<VisionMeasurement> out) {
+            out.addAll(next);
+            next.clear();
+        }
+    }
+
+    @BeforeAll
+    static void initializeHAL() {
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    @BeforeEach
+    void setUp() {
+        SwerveDriveKinematics kinematics = new SwerveDriveKinematics(
+            new Translation2d(0.3, 0.3),
+            new Translation2d(0.3, -0.3),
+            new Translation2d(-0.3, 0.3),
+            new Translation2d(-0.3, -0.3));
+
+        SwerveModulePosition[] modulePositions = {
+            new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition()
+        };
+
+        poseEstimator = new ForgeSwerveDrivePoseEstimator(
+            kinematics, ()-> true, ()-> modulePositions, ()-> Rotation2d.kZero, false, 0.005);
+        poseEstimator.stopUpdates();
+        poseEstimator.resetPosition(kTruth);
+
+        base = Timer.getFPGATimestamp();
+        latest = base - kPeriod;
+        fillHistory(base + 0.5);
+
+        fusion = new VisionFusion(poseEstimator);
+        fusion.stop();
+        fusion.setReorderWindow(0.0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fusion.stop();
+        poseEstimator.stopUpdates();
+    }
+
+    /**
+     * Updates the still robot every period until {@code until}, like the background updater would.
+     */
+    private void fillHistory(double until) {
+        while (latest + kPeriod <= until) {
+            latest += kPeriod;
+            poseEstimator.update(latest);
+        }
+    }
+
+    /**
+     * Accepts a multi tag measurement at the true pose, so the next ones go through the deviation check.
+     */
+    private void acceptTruth(ScriptedSource source, double timestamp) {
+        source.next.add(measurement(kTruth.getX(), kTruth.getY(), timestamp, 2, 2.0, 0.0));
+        fusion.fuse(timestamp);
+    }
+
+    private static VisionMeasurement measurement(double x, double y, double timestamp, int tagCount, double distance, double ambiguity) {
+        return new VisionMeasurement("test", new Pose2d(x, y, Rotation2d.kZero), timestamp, tagCount, distance, ambiguity);
+    }
+
+    @Test
+    void rejectsOutliersAndAssignsStdDevs() {
+        ScriptedSource source = new ScriptedSource();
+        fusion.addSource(source);
+        acceptTruth(source, base + 0.1);
+
+        double now = base + 0.5;
+        double captured = now - 0.02;
+
+        VisionMeasurement singleTag = measurement(2.2, 4.03, captured, 1, 2.0, 0.1);
+        VisionMeasurement multiTag = measurement(2.5, 4.03, captured, 2, 3.0, 0.0);
+        source.next.add(singleTag);
+        source.next.add(multiTag);
+
+        // Too far from the odometry history, multi tag included
+        VisionMeasurement singleTagOutlier = measurement(3.5, 4.03, captured, 1, 2.0, 0.1);
+        VisionMeasurement multiTagOutlier = measurement(5.0, 4.03, captured, 3, 2.0, 0.0);
+        source.next.add(singleTagOutlier);
+        source.next.add(multiTagOutlier);
+
+        source.next.add(measurement(2.0, 4.03, captured, 1, 2.0, 0.5));
+        source.next.add(measurement(2.0, 4.03, captured, 2, 7.0, 0.0));
+        source.next.add(measurement(-1.0, 4.03, captured, 2, 2.0, 0.0));
+        source.next.add(measurement(2.0, 4.03, now + 1.0, 2, 2.0, 0.0));
+
+        fusion.fuse(now);
+
+        assertEquals(3, fusion.getAcceptedMeasurements());
+        assertEquals(6, fusion.getRejectedMeasurements());
+
+        // 0.02 * distance^2 / tags, the heading of a single tag is never trusted
+        assertEquals(0.08, singleTag.getStdDevs().get(0, 0), kEpsilon);
+        assertEquals(0.08, singleTag.getStdDevs().get(1, 0), kEpsilon);
+        assertEquals(VisionFusion.kSingleTagThetaStdDev, singleTag.getStdDevs().get(2, 0), kEpsilon);
+
+        // 0.06 * distance^2 / tags for the heading
+        assertEquals(0.09, multiTag.getStdDevs().get(0, 0), kEpsilon);
+        assertEquals(0.09, multiTag.getStdDevs().get(1, 0), kEpsilon);
+        assertEquals(0.27, multiTag.getStdDevs().get(2, 0), kEpsilon);
+
+        assertNull(singleTagOutlier.getStdDevs());
+        assertNull(multiTagOutlier.getStdDevs());
+    }
+
+    @Test
+    void holdsMeasurementsForTheReorderWindow() {
+        ScriptedSource source = new ScriptedSource();
+        fusion.addSource(source);
+        fusion.setReorderWindow(0.1);
+
+        double now = base + 0.5;
+
+        source.next.add(measurement(2.0, 4.03, now - 0.05, 2, 2.0, 0.0));
+        source.next.add(measurement(2.0, 4.03, now - 0.15, 2, 2.0, 0.0));
+
+        fusion.fuse(now);
+        assertEquals(1, fusion.getAcceptedMeasurements());
+
+        fusion.fuse(now + 0.1);
+        assertEquals(2, fusion.getAcceptedMeasurements());
+        assertEquals(0, fusion.getRejectedMeasurements());
+    }
+
+    @Test
+    void acceptsSimulatedCameraAndRejectsInjectedOutliers() {
+        SimulatedVisionSource camera = new SimulatedVisionSource(
+            "VisionFusionTest",
+            new Transform3d(new Translation3d(0.0, 0.0, 0.3), Rotation3d.kZero),
+            AprilTagFieldLayout.loadField(AprilTagFields.k2025ReefscapeWelded),
+            ()-> kTruth);
+
+        ScriptedSource source = new ScriptedSource();
+        fusion.addSource(source);
+        acceptTruth(source, base + 0.1);
+
+        fusion.addSource(camera);
+
+        // The camera simulation stamps its frames with the real time
+        double now = Timer.getFPGATimestamp();
+        fillHistory(now);
+
+        double captured = now - 0.02;
+
+        camera.inject(measurement(kTruth.getX() + 1.5, kTruth.getY(), captured, 1, 2.0, 0.1));
+        camera.inject(measurement(kTruth.getX() + 3.0, kTruth.getY(), captured, 3, 2.0, 0.0));
+
+        fusion.fuse(now);
+
+        assertTrue(fusion.getAcceptedMeasurements() >= 2, "The simulated camera should see the reef tags");
+        assertEquals(2, fusion.getRejectedMeasurements());
+    }
+
+    @Test
+    void skipsTheDeviationCheckUntilAMeasurementIsAcceptedAfterAReset() {
+        ScriptedSource source = new ScriptedSource();
+        fusion.addSource(source);
+
+        // Nothing was accepted yet, the odometry may start anywhere on the field
+        source.next.add(measurement(5.0, 4.03, base + 0.1, 1, 2.0, 0.1));
+        fusion.fuse(base + 0.1);
+        assertEquals(1, fusion.getAcceptedMeasurements());
+
+        source.next.add(measurement(5.0, 4.03, base + 0.2, 1, 2.0, 0.1));
+        fusion.fuse(base + 0.2);
+        assertEquals(1, fusion.getRejectedMeasurements());
+
+        // The history is cleared, so the pose at the capture is not even known
+        poseEstimator.resetPosition(kTruth);
+
+        source.next.add(measurement(5.0, 4.03, base + 0.3, 1, 2.0, 0.1));
+        fusion.fuse(base + 0.3);
+        assertEquals(2, fusion.getAcceptedMeasurements());
+        assertEquals(1, fusion.getRejectedMeasurements());
+    }
+
+    @Test
+    void acceptsMultiTagAfterConsecutiveRejections() {
+        ScriptedSource source = new ScriptedSource();
+        fusion.addSource(source);
+        fusion.setRecovery(3, 0.0);
+        acceptTruth(source, base + 0.1);
+
+        for (int i = 1; i <= 4; i++) {
+            double captured = base + 0.1 + i * 0.05;
+
+            // Single tag measurements are never let through
+            source.next.add(measurement(5.0, 4.03, captured, 1, 2.0, 0.1));
+            source.next.add(measurement(5.0, 4.03, captured, 2, 2.0, 0.0));
+            fusion.fuse(captured);
+        }
+
+        assertEquals(2, fusion.getAcceptedMeasurements());
+        assertEquals(7, fusion.getRejectedMeasurements());
+    }
+
+    @Test
+    void acceptsMultiTagWhileTheOdometryTrustIsLow() {
+        ScriptedSource source = new ScriptedSource();
+        fusion.addSource(source);
+        acceptTruth(source, base + 0.1);
+
+        // Above the trust of the still robot
+        fusion.setRecovery(Integer.MAX_VALUE, 1.5);
+
+        source.next.add(measurement(5.0, 4.03, base + 0.2, 1, 2.0, 0.1));
+        source.next.add(measurement(5.0, 4.03, base + 0.2, 2, 2.0, 0.0));
+        fusion.fuse(base + 0.2);
+
+        assertEquals(2, fusion.getAcceptedMeasurements());
+        assertEquals(1, fusion.getRejectedMeasurements());
+    }
+}